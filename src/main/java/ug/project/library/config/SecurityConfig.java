@@ -1,23 +1,69 @@
 package ug.project.library.config;
 
+import java.time.Duration;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import ug.project.library.security.AccessTokenService;
+import ug.project.library.security.BearerTokenAuthenticationFilter;
+import ug.project.library.security.BoundedPasswordEncoder;
+import ug.project.library.security.LoginAttemptThrottle;
+import ug.project.library.security.ThrottlingAuthenticationManager;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final int HASH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int HASH_QUEUE_CAPACITY = HASH_THREADS * 8;
+    private static final Duration HASH_MAX_WAIT = Duration.ofSeconds(5);
+
+    // REST API bez sesji: tożsamość wynika wyłącznie z podpisanego tokenu w nagłówku Authorization,
+    // więc dowolny węzeł obsłuży dowolne żądanie bez replikacji sesji i bez zapytań do bazy
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http, AccessTokenService accessTokenService) throws Exception {
+        http
+            .securityMatcher("/api/**")
+            .authorizeHttpRequests(auth -> auth
+                .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers("/api/stats/**").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/reservations", "/api/reservations/export").hasRole("ADMIN")
+                .anyRequest().permitAll()
+            )
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+            .addFilterBefore(new BearerTokenAuthenticationFilter(accessTokenService), UsernamePasswordAuthenticationFilter.class)
+            .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .requestCache(cache -> cache.disable())
+            .csrf(csrf -> csrf.disable());
+
+        return http.build();
+    }
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    @Order(2)
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationManager authenticationManager) throws Exception {
         http
+            .authenticationManager(authenticationManager)
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/", "/books/**", "/register", "/login", "/css/**", "/js/**", "/images/**").permitAll()
-                .requestMatchers("/api/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
@@ -41,7 +87,17 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                                       LoginAttemptThrottle loginAttemptThrottle) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return new ThrottlingAuthenticationManager(new ProviderManager(provider), loginAttemptThrottle);
+    }
+
+    // Pula dzielona przez logowanie, rejestrację i zmianę hasła; CPU zostaje dla reszty żądań
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder() {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), HASH_THREADS, HASH_QUEUE_CAPACITY, HASH_MAX_WAIT);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package ug.project.library.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ug.project.library.ratelimit.RateLimitInterceptor;
+import ug.project.library.ratelimit.RateLimitProperties;
+import ug.project.library.ratelimit.TokenBucketRateLimiter;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimitProperties rateLimitProperties;
+
+    public WebConfig(RateLimitProperties rateLimitProperties) {
+        this.rateLimitProperties = rateLimitProperties;
+    }
+
+    @Bean
+    public TokenBucketRateLimiter tokenBucketRateLimiter() {
+        return new TokenBucketRateLimiter();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(tokenBucketRateLimiter(), rateLimitProperties));
+    }
+}
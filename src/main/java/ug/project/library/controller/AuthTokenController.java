@@ -0,0 +1,49 @@
+package ug.project.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ug.project.library.dto.RefreshTokenRequest;
+import ug.project.library.dto.TokenRequest;
+import ug.project.library.dto.TokenResponse;
+import ug.project.library.service.AuthService;
+
+@RestController
+@RequestMapping("/api/auth")
+@Tag(name = "Auth", description = "Tokeny dostępowe API")
+public class AuthTokenController {
+
+    private final AuthService authService;
+
+    public AuthTokenController(AuthService authService) {
+        this.authService = authService;
+    }
+
+    @Operation(summary = "Zaloguj się i pobierz token dostępowy oraz token odświeżający")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tokeny zostały wydane"),
+            @ApiResponse(responseCode = "401", description = "Niepoprawny login lub hasło"),
+            @ApiResponse(responseCode = "429", description = "Zbyt wiele nieudanych prób logowania"),
+            @ApiResponse(responseCode = "503", description = "Pula haszowania haseł jest przeciążona")
+    })
+    @PostMapping("/token")
+    public ResponseEntity<TokenResponse> issueToken(@Valid @RequestBody TokenRequest request,
+                                                    HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(authService.issueTokens(request, httpRequest.getRemoteAddr()));
+    }
+
+    @Operation(summary = "Wymień token odświeżający na nową parę tokenów")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tokeny zostały odświeżone"),
+            @ApiResponse(responseCode = "401", description = "Token odświeżający jest niepoprawny lub wygasł")
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refreshTokens(request.getRefreshToken()));
+    }
+}
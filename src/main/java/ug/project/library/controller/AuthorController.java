@@ -1,6 +1,7 @@
 package ug.project.library.controller;
 
 import java.net.URI;
+import java.util.List;
 import jakarta.validation.Valid;
 
 import org.springframework.data.domain.Page;
@@ -37,6 +38,16 @@ public class AuthorController {
         return ResponseEntity.ok(authorsDto);
     }
 
+    @Operation(summary = "Wyszukaj autorów z tolerancją literówek i polskich znaków")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista pasujących autorów, od najbardziej podobnych")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<AuthorDto>> searchAuthors(@RequestParam String query,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(authorService.searchAuthors(query, limit));
+    }
+
     @Operation(summary = "Pobierz autora po ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Autor znaleziony"),
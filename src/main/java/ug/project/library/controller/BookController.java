@@ -14,6 +14,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import ug.project.library.dto.BookDto;
+import ug.project.library.dto.CursorPage;
+import ug.project.library.pagination.BookSort;
 import ug.project.library.service.BookService;
 
 @RestController
@@ -37,6 +39,30 @@ public class BookController{
         return ResponseEntity.ok(booksDto);
     }
 
+    @Operation(summary = "Pobierz książki stronicowane kursorem (keyset)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Strona książek została pobrana"),
+        @ApiResponse(responseCode = "400", description = "Niepoprawny kursor")
+    })
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<BookDto>> scrollBooks(@RequestParam(required = false) String title,
+                                                           @RequestParam(required = false) String author,
+                                                           @RequestParam(required = false) String keyword,
+                                                           @RequestParam(required = false, defaultValue = "title") String sortBy,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false, defaultValue = "20") int size,
+                                                           @RequestParam(required = false, defaultValue = "false") boolean withTotal) {
+        BookSort sort = BookSort.fromParam(sortBy);
+        int pageSize = BookService.clampPageSize(size);
+        boolean hasSearchParams = (title != null && !title.isBlank()) ||
+                                  (author != null && !author.isBlank()) ||
+                                  (keyword != null && !keyword.isBlank());
+        CursorPage<BookDto> books = hasSearchParams
+            ? bookService.searchBooksAfter(title, author, keyword, sort, cursor, pageSize, withTotal)
+            : bookService.getBooksAfter(sort, cursor, pageSize, withTotal);
+        return ResponseEntity.ok(books);
+    }
+
     @Operation(summary = "Pobierz książkę po ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Książka znaleziona"),
@@ -10,6 +10,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ug.project.library.dto.CommentDto;
+import ug.project.library.ratelimit.RateLimited;
 import ug.project.library.service.CommentService;
 
 import java.net.URI;
@@ -47,8 +48,10 @@ public class CommentController {
     @Operation(summary = "Dodaj nowy komentarz")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Komentarz został dodany"),
-            @ApiResponse(responseCode = "400", description = "Niepoprawne dane wejściowe")
+            @ApiResponse(responseCode = "400", description = "Niepoprawne dane wejściowe"),
+            @ApiResponse(responseCode = "429", description = "Przekroczono limit żądań")
     })
+    @RateLimited("comments")
     @PostMapping("/add")
     public ResponseEntity<CommentDto> addComment(@Valid @RequestBody CommentDto commentDto) {
         CommentDto savedComment = commentService.addComment(commentDto);
@@ -14,6 +14,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import ug.project.library.dto.RatingDto;
+import ug.project.library.ratelimit.RateLimited;
 import ug.project.library.service.RatingService;
 
 @RestController
@@ -52,8 +53,10 @@ public class RatingController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Ocena została dodana"),
         @ApiResponse(responseCode = "400", description = "Niepoprawne dane wejściowe"),
-        @ApiResponse(responseCode = "403", description = "Brak uprawnień lub naruszenie zasad dodawania ocen")
+        @ApiResponse(responseCode = "403", description = "Brak uprawnień lub naruszenie zasad dodawania ocen"),
+        @ApiResponse(responseCode = "429", description = "Przekroczono limit żądań")
     })
+    @RateLimited("ratings")
     @PostMapping("/add")
     public ResponseEntity<RatingDto> addRating (@Valid @RequestBody RatingDto ratingDto) {
         RatingDto savedRating = ratingService.addRating(ratingDto);
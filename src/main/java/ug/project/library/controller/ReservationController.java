@@ -1,20 +1,33 @@
 package ug.project.library.controller;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import jakarta.validation.Valid;
 
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import ug.project.library.dto.CursorPage;
 import ug.project.library.dto.ReservationDto;
+import ug.project.library.dto.ReservationFilter;
+import ug.project.library.dto.WaitlistPositionDto;
+import ug.project.library.ratelimit.RateLimited;
 import ug.project.library.service.ReservationService;
+import ug.project.library.service.WaitlistService;
 import ug.project.library.model.entity.Reservation;
 
 @RestController
@@ -23,22 +36,84 @@ import ug.project.library.model.entity.Reservation;
 public class ReservationController {
 
     private final ReservationService reservationService;
+    private final WaitlistService waitlistService;
 
-    public ReservationController(ReservationService reservationService){
+    public ReservationController(ReservationService reservationService, WaitlistService waitlistService){
         this.reservationService = reservationService;
+        this.waitlistService = waitlistService;
+    }
+
+    @Operation(summary = "Przeglądaj rezerwacje z filtrami, stronicowane kursorem (administrator)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Strona rezerwacji została pobrana"),
+        @ApiResponse(responseCode = "400", description = "Niepoprawny kursor")
+    })
+    @GetMapping
+    public ResponseEntity<CursorPage<ReservationDto>> searchReservations(@ParameterObject ReservationFilter filter,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false, defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, 100));
+        return ResponseEntity.ok(reservationService.findReservations(filter, cursor, pageSize));
+    }
+
+    @Operation(summary = "Eksportuj przefiltrowane rezerwacje do CSV (administrator)")
+    @ApiResponse(responseCode = "200", description = "Plik CSV wysyłany strumieniowo")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportReservations(@ParameterObject ReservationFilter filter) {
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            reservationService.exportReservations(filter, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservations.csv\"")
+            .body(body);
     }
 
     @Operation(summary = "Utwórz nową rezerwację dla książki")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Rezerwacja została utworzona"),
-        @ApiResponse(responseCode = "404", description = "Nie znaleziono książki o podanym ID")
+        @ApiResponse(responseCode = "404", description = "Nie znaleziono książki o podanym ID"),
+        @ApiResponse(responseCode = "409", description = "Klucz idempotencji użyty dla innej książki albo żądanie z tym kluczem jest w toku"),
+        @ApiResponse(responseCode = "429", description = "Przekroczono limit żądań")
     })
+    @RateLimited("reservations")
     @PostMapping("/{bookId}")
-    public ResponseEntity<ReservationDto> makeReservation(@PathVariable Long bookId) {
-        ReservationDto reservation = reservationService.createNewReservation(bookId);
+    public ResponseEntity<ReservationDto> makeReservation(@PathVariable Long bookId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        ReservationDto reservation = reservationService.createNewReservation(bookId, idempotencyKey);
         return ResponseEntity.ok(reservation);
     }
 
+    @Operation(summary = "Zapisz się do kolejki oczekujących na niedostępną książkę")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Pozycja w kolejce"),
+        @ApiResponse(responseCode = "400", description = "Książka jest dostępna - można ją zarezerwować od razu"),
+        @ApiResponse(responseCode = "404", description = "Nie znaleziono książki o podanym ID"),
+        @ApiResponse(responseCode = "429", description = "Przekroczono limit żądań")
+    })
+    @RateLimited("reservations")
+    @PostMapping("/waitlist/{bookId}")
+    public ResponseEntity<WaitlistPositionDto> joinWaitlist(@PathVariable Long bookId) {
+        return ResponseEntity.ok(waitlistService.join(bookId));
+    }
+
+    @Operation(summary = "Sprawdź pozycję w kolejce oczekujących (0 = nie czekasz)")
+    @ApiResponse(responseCode = "200", description = "Pozycja w kolejce")
+    @GetMapping("/waitlist/{bookId}")
+    public ResponseEntity<WaitlistPositionDto> getWaitlistPosition(@PathVariable Long bookId) {
+        return ResponseEntity.ok(waitlistService.getPosition(bookId));
+    }
+
+    @Operation(summary = "Wypisz się z kolejki oczekujących")
+    @ApiResponse(responseCode = "204", description = "Usunięto z kolejki")
+    @DeleteMapping("/waitlist/{bookId}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long bookId) {
+        waitlistService.leave(bookId);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(summary = "Potwierdź rezerwację")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Rezerwacja została potwierdzona"),
@@ -0,0 +1,54 @@
+package ug.project.library.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import ug.project.library.dto.AuthMetricsDto;
+import ug.project.library.dto.TrendingStatsDto;
+import ug.project.library.model.enumerate.StatsWindow;
+import ug.project.library.service.AuthService;
+import ug.project.library.service.StatisticsService;
+
+@RestController
+@RequestMapping("/api/stats")
+@Tag(name = "Statistics", description = "Statystyki wypożyczeń (tylko dla administratora)")
+public class StatisticsController {
+
+    private final StatisticsService statisticsService;
+    private final AuthService authService;
+
+    public StatisticsController(StatisticsService statisticsService, AuthService authService) {
+        this.statisticsService = statisticsService;
+        this.authService = authService;
+    }
+
+    @Operation(summary = "Najczęściej wypożyczane książki, autorzy i najaktywniejsi użytkownicy w oknie czasowym")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rankingi dla wybranego okna; 24h liczone od pełnej godziny, "
+            + "7d i 30d od pierwszej pełnej doby - faktyczny początek podaje pole from"),
+        @ApiResponse(responseCode = "400", description = "Nieznane okno - dostępne 24h, 7d, 30d")
+    })
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingStatsDto> getTrending(
+            @RequestParam(defaultValue = "7d") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(statisticsService.getTrendingStats(StatsWindow.fromCode(window), limit));
+    }
+
+    @Operation(summary = "Obciążenie puli haszowania haseł i blokady logowania")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Czas haszowania, głębokość kolejki i liczba zablokowanych prób")
+    })
+    @GetMapping("/auth")
+    public ResponseEntity<AuthMetricsDto> getAuthMetrics() {
+        return ResponseEntity.ok(authService.getAuthMetrics());
+    }
+}
@@ -1,13 +1,19 @@
 package ug.project.library.dao;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 import ug.project.library.model.entity.Book;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Repository
 public class BookDao {
@@ -32,8 +38,10 @@ public class BookDao {
         return jdbcTemplate.query(sql, new BookRowMapper(), "%" + authorName + "%", genreName);
     }
 
+    // Sprawdzenie stanu i pobranie egzemplarza w jednym UPDATE - blokada wiersza serializuje
+    // równoległe rezerwacje, więc stan nie spadnie poniżej zera; 0 = brak egzemplarzy
     public int deincrementQuantityAvailable(Long bookId) {
-        String sql = "UPDATE books SET quantity_available = quantity_available - 1 WHERE id = ?";
+        String sql = "UPDATE books SET quantity_available = quantity_available - 1 WHERE id = ? AND quantity_available > 0";
         return jdbcTemplate.update(sql, bookId);
     }
 
@@ -42,6 +50,76 @@ public class BookDao {
         return jdbcTemplate.update(sql, bookId);
     }
 
+    public Optional<Integer> findQuantityAvailable(Long bookId) {
+        return jdbcTemplate.query("SELECT quantity_available FROM books WHERE id = ?",
+            (rs, rowNum) -> rs.getInt("quantity_available"), bookId).stream().findFirst();
+    }
+
+    // Blokada wiersza książki do końca transakcji. Zapis do kolejki i zwolnienie egzemplarza biorą ją
+    // przed sprawdzeniem stanu/kolejki, więc jedno zawsze widzi skutek drugiego
+    public Optional<Integer> lockQuantityAvailable(Long bookId) {
+        return jdbcTemplate.query("SELECT quantity_available FROM books WHERE id = ? FOR UPDATE",
+            (rs, rowNum) -> rs.getInt("quantity_available"), bookId).stream().findFirst();
+    }
+
+    // Wiele książek naraz blokujemy rosnąco po ID, żeby równoległe paczki się nie zakleszczyły
+    public void lockBooks(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        List<Long> ordered = bookIds.stream().sorted().toList();
+        String placeholders = String.join(", ", Collections.nCopies(ordered.size(), "?"));
+        jdbcTemplate.queryForList("SELECT id FROM books WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+            Long.class, ordered.toArray());
+    }
+
+    // Zwrot egzemplarzy wielu książek jednym UPDATE: CASE wybiera przyrost dla każdego ID
+    public int restoreQuantities(Map<Long, Integer> copiesByBook) {
+        if (copiesByBook.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("UPDATE books SET quantity_available = quantity_available + CASE id");
+        List<Object> args = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : copiesByBook.entrySet()) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+        }
+        sql.append(" ELSE 0 END WHERE id IN (")
+            .append(String.join(", ", Collections.nCopies(copiesByBook.size(), "?")))
+            .append(")");
+        args.addAll(copiesByBook.keySet());
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    public void forEachBookForIndex(RowCallbackHandler handler) {
+        String sql = "SELECT id, title, publisher, avg_rating, year_published FROM books";
+        jdbcTemplate.query(sql, handler);
+    }
+
+    public void forEachBookAuthorName(RowCallbackHandler handler) {
+        String sql = """
+            SELECT ba.book_id, a.full_name
+            FROM book_author ba
+            JOIN authors a ON ba.author_id = a.id
+            """;
+        jdbcTemplate.query(sql, handler);
+    }
+
+    public void forEachAuthorName(RowCallbackHandler handler) {
+        String sql = "SELECT id, full_name FROM authors";
+        jdbcTemplate.query(sql, handler);
+    }
+
+    public void forEachBookGenreName(RowCallbackHandler handler) {
+        String sql = """
+            SELECT bg.book_id, g.name
+            FROM book_genre bg
+            JOIN genres g ON bg.genre_id = g.id
+            """;
+        jdbcTemplate.query(sql, handler);
+    }
+
     private static class BookRowMapper implements RowMapper<Book> {
         @Override
         public Book mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -0,0 +1,53 @@
+package ug.project.library.dao;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+
+// Produkcyjnie Postgres, w testach H2 - tam, gdzie składnia się rozjeżdża (upsert, SKIP LOCKED),
+// DAO pytają tutaj, z jaką bazą rozmawiają
+@Component
+public class DatabaseDialect {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Info info;
+
+    public DatabaseDialect(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPostgreSQL() {
+        return "PostgreSQL".equals(info().product());
+    }
+
+    public boolean isH2() {
+        return "H2".equals(info().product());
+    }
+
+    public String productName() {
+        return info().product();
+    }
+
+    public boolean isAtLeast(int major, int minor) {
+        Info current = info();
+        return current.major() > major || (current.major() == major && current.minor() >= minor);
+    }
+
+    private Info info() {
+        Info result = info;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Info>) connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                return new Info(metaData.getDatabaseProductName(),
+                    metaData.getDatabaseMajorVersion(), metaData.getDatabaseMinorVersion());
+            });
+            info = result;
+        }
+        return result;
+    }
+
+    private record Info(String product, int major, int minor) {
+    }
+}
@@ -0,0 +1,51 @@
+package ug.project.library.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class IdempotencyKeyDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Zajęcie klucza przed jakąkolwiek zmianą stanu. Równoległe żądanie z tym samym kluczem czeka na blokadzie
+    // klucza głównego, a po commicie pierwszego dostaje DuplicateKeyException - bez ruszania stanów książek.
+    // Wygasły, jeszcze nieusunięty wiersz zwalniamy najpierw, żeby ponowne użycie klucza po TTL nie trafiało na konflikt.
+    public void claim(Long userId, String key, Long bookId, LocalDateTime createdAt, LocalDateTime expiredBefore) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE user_id = ? AND idem_key = ? AND created_at < ?",
+            userId, key, Timestamp.valueOf(expiredBefore));
+        jdbcTemplate.update(
+            "INSERT INTO idempotency_keys (user_id, idem_key, book_id, created_at) VALUES (?, ?, ?, ?)",
+            userId, key, bookId, Timestamp.valueOf(createdAt));
+    }
+
+    public void complete(Long userId, String key, String response) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET response = ? WHERE user_id = ? AND idem_key = ?",
+            response, userId, key);
+    }
+
+    public Optional<StoredKey> find(Long userId, String key, LocalDateTime notBefore) {
+        List<StoredKey> rows = jdbcTemplate.query(
+            "SELECT book_id, response, created_at FROM idempotency_keys WHERE user_id = ? AND idem_key = ? AND created_at >= ?",
+            (rs, rowNum) -> new StoredKey(rs.getLong("book_id"), rs.getString("response"),
+                rs.getTimestamp("created_at").toLocalDateTime()),
+            userId, key, Timestamp.valueOf(notBefore));
+        return rows.stream().findFirst();
+    }
+
+    public int deleteCreatedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", Timestamp.valueOf(cutoff));
+    }
+
+    public record StoredKey(Long bookId, String response, LocalDateTime createdAt) {
+    }
+}
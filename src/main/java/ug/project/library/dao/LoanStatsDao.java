@@ -0,0 +1,267 @@
+package ug.project.library.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ug.project.library.dto.LoanRankingDto;
+import ug.project.library.model.enumerate.LoanSubject;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Liczniki wypożyczeń per książka, autor i użytkownik (tabele *_loan_stats) oraz kubełki czasowe (loan_buckets).
+// Za wypożyczenie liczy się rezerwacja, która choć raz przeszła w WYPOŻYCZONA - zwrot liczników nie zmienia.
+@Repository
+public class LoanStatsDao {
+
+    private static final String LOANED_STATUSES = "('WYPOŻYCZONA', 'ZWRÓCONA')";
+
+    static final int COMPACTION_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect databaseDialect;
+    private final WorkClaimSupport workClaimSupport;
+
+    public LoanStatsDao(JdbcTemplate jdbcTemplate, DatabaseDialect databaseDialect, WorkClaimSupport workClaimSupport) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseDialect = databaseDialect;
+        this.workClaimSupport = workClaimSupport;
+    }
+
+    // Wywoływane w transakcji wypożyczenia - upsert podbija licznik albo zakłada wiersz z 1
+    public void recordLoan(Long bookId, Long userId, LocalDateTime loanedAt) {
+        jdbcTemplate.update(increment("book_loan_stats", "book_id", "SELECT CAST(? AS BIGINT) AS id"), bookId);
+        jdbcTemplate.update(increment("user_loan_stats", "user_id", "SELECT CAST(? AS BIGINT) AS id"), userId);
+        jdbcTemplate.update(increment("author_loan_stats", "author_id",
+            "SELECT author_id AS id FROM book_author WHERE book_id = ?"), bookId);
+
+        LocalDateTime hour = loanedAt.truncatedTo(ChronoUnit.HOURS);
+        jdbcTemplate.update(mergeBuckets(hourBucket("SELECT CAST(? AS BIGINT) AS id")), LoanSubject.BOOK.name(), hour, bookId);
+        jdbcTemplate.update(mergeBuckets(hourBucket("SELECT CAST(? AS BIGINT) AS id")), LoanSubject.USER.name(), hour, userId);
+        jdbcTemplate.update(mergeBuckets(hourBucket("SELECT author_id AS id FROM book_author WHERE book_id = ?")),
+            LoanSubject.AUTHOR.name(), hour, bookId);
+    }
+
+    // Przeliczenie od zera z historii rezerwacji, na wypadek rozjazdu liczników.
+    // Kubełki odtwarzamy z borrowed_at - tej samej chwili, którą recordLoan dostaje przy wypożyczeniu
+    public void rebuild(LocalDateTime hourlySince, LocalDateTime dailySince) {
+        jdbcTemplate.update("DELETE FROM book_loan_stats");
+        jdbcTemplate.update("DELETE FROM author_loan_stats");
+        jdbcTemplate.update("DELETE FROM user_loan_stats");
+        jdbcTemplate.update("DELETE FROM loan_buckets");
+
+        jdbcTemplate.update("""
+            INSERT INTO book_loan_stats (book_id, loan_count)
+            SELECT book_id, COUNT(*) FROM reservations
+            WHERE status IN %s
+            GROUP BY book_id
+            """.formatted(LOANED_STATUSES));
+        jdbcTemplate.update("""
+            INSERT INTO user_loan_stats (user_id, loan_count)
+            SELECT user_id, COUNT(*) FROM reservations
+            WHERE status IN %s
+            GROUP BY user_id
+            """.formatted(LOANED_STATUSES));
+        jdbcTemplate.update("""
+            INSERT INTO author_loan_stats (author_id, loan_count)
+            SELECT ba.author_id, COUNT(*) FROM reservations r
+            JOIN book_author ba ON ba.book_id = r.book_id
+            WHERE r.status IN %s
+            GROUP BY ba.author_id
+            """.formatted(LOANED_STATUSES));
+
+        rebuildBuckets("HOUR", "DATE_TRUNC('HOUR', r.borrowed_at)", "r.borrowed_at >= ?", hourlySince);
+        rebuildBuckets("DAY", "CAST(CAST(r.borrowed_at AS DATE) AS TIMESTAMP)",
+            "r.borrowed_at >= ? AND r.borrowed_at < ?", dailySince, hourlySince);
+    }
+
+    // Kubełki godzinowe sprzed granicy zwijamy w dzienne - zbiory się nie nakładają,
+    // więc zapytania okienkowe mogą sumować oba rodzaje naraz.
+    // Zadanie działa na każdej instancji: do dziennych dodajemy tylko wiersze, które sami usunęliśmy
+    // (blokada SKIP LOCKED albo wynik DELETE), więc równoległe zwijanie nie liczy kubełka dwa razy.
+    // Wołać w transakcji - scalenie i usunięcie muszą się zatwierdzić razem.
+    public int compactHourlyBuckets(LocalDateTime before) {
+        String sql = """
+            SELECT subject_type, bucket_start, subject_id, loan_count
+            FROM loan_buckets
+            WHERE granularity = 'HOUR' AND bucket_start < ?
+            ORDER BY bucket_start, subject_type, subject_id
+            LIMIT ?
+            """ + (workClaimSupport.skipLockedSupported() ? "FOR UPDATE SKIP LOCKED" : "");
+        int compacted = 0;
+        List<HourlyBucket> rows;
+        do {
+            rows = jdbcTemplate.query(sql, (rs, rowNum) -> new HourlyBucket(rs.getString("subject_type"),
+                    rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getLong("subject_id"), rs.getLong("loan_count")),
+                Timestamp.valueOf(before), COMPACTION_CHUNK_SIZE);
+            List<HourlyBucket> claimed = deleteHourlyEach(rows);
+            mergeIntoDays(claimed);
+            compacted += claimed.size();
+        } while (rows.size() == COMPACTION_CHUNK_SIZE);
+        return compacted;
+    }
+
+    public int deleteDailyBucketsBefore(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM loan_buckets WHERE granularity = 'DAY' AND bucket_start < ?", before);
+    }
+
+    // Top N w oknie: godzinowe od początku okna plus dzienne od pierwszej pełnej doby w oknie.
+    // Niepełny dzień początku okna (już zwinięty w dzienny kubełek) pomijamy, zamiast doliczać
+    // wypożyczenia sprzed okna - dłuższe okna liczą więc od północy po `since`.
+    public List<LoanRankingDto> findTopSince(LoanSubject subject, LocalDateTime since, int limit) {
+        String sql = """
+            SELECT t.subject_id, x.%2$s AS name, t.loans
+            FROM (
+                SELECT subject_id, SUM(loan_count) AS loans
+                FROM loan_buckets
+                WHERE subject_type = ?
+                  AND ((granularity = 'HOUR' AND bucket_start >= ?) OR (granularity = 'DAY' AND bucket_start >= ?))
+                GROUP BY subject_id
+                ORDER BY loans DESC, subject_id
+                LIMIT ?
+            ) t
+            JOIN %1$s x ON x.id = t.subject_id
+            ORDER BY t.loans DESC, t.subject_id
+            """.formatted(subjectTable(subject), subjectLabel(subject));
+        return jdbcTemplate.query(sql,
+            (rs, rowNum) -> new LoanRankingDto(rs.getLong("subject_id"), rs.getString("name"), rs.getLong("loans")),
+            subject.name(), since.truncatedTo(ChronoUnit.HOURS), firstWholeDay(since), limit);
+    }
+
+    public static LocalDateTime firstWholeDay(LocalDateTime since) {
+        LocalDateTime day = since.truncatedTo(ChronoUnit.DAYS);
+        return day.equals(since) ? day : day.plusDays(1);
+    }
+
+    private void rebuildBuckets(String granularity, String bucketExpression, String borrowedFilter, Object... args) {
+        jdbcTemplate.update("""
+            INSERT INTO loan_buckets (subject_type, granularity, bucket_start, subject_id, loan_count)
+            SELECT 'BOOK', '%1$s', %2$s, r.book_id, COUNT(*) FROM reservations r
+            WHERE r.status IN %4$s AND %3$s
+            GROUP BY %2$s, r.book_id
+            """.formatted(granularity, bucketExpression, borrowedFilter, LOANED_STATUSES), args);
+        jdbcTemplate.update("""
+            INSERT INTO loan_buckets (subject_type, granularity, bucket_start, subject_id, loan_count)
+            SELECT 'USER', '%1$s', %2$s, r.user_id, COUNT(*) FROM reservations r
+            WHERE r.status IN %4$s AND %3$s
+            GROUP BY %2$s, r.user_id
+            """.formatted(granularity, bucketExpression, borrowedFilter, LOANED_STATUSES), args);
+        jdbcTemplate.update("""
+            INSERT INTO loan_buckets (subject_type, granularity, bucket_start, subject_id, loan_count)
+            SELECT 'AUTHOR', '%1$s', %2$s, ba.author_id, COUNT(*) FROM reservations r
+            JOIN book_author ba ON ba.book_id = r.book_id
+            WHERE r.status IN %4$s AND %3$s
+            GROUP BY %2$s, ba.author_id
+            """.formatted(granularity, bucketExpression, borrowedFilter, LOANED_STATUSES), args);
+    }
+
+    // Wiersz należy do tego, czyje DELETE go usunęło - równoległe DELETE czeka na blokadę i dostaje 0
+    private List<HourlyBucket> deleteHourlyEach(List<HourlyBucket> rows) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        int[] deleted = jdbcTemplate.batchUpdate("""
+            DELETE FROM loan_buckets
+            WHERE subject_type = ? AND granularity = 'HOUR' AND bucket_start = ? AND subject_id = ?
+            """, rows.stream()
+            .map(r -> new Object[]{r.subjectType(), Timestamp.valueOf(r.bucketStart()), r.subjectId()})
+            .toList());
+        List<HourlyBucket> claimed = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (deleted[i] == 1) {
+                claimed.add(rows.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    private void mergeIntoDays(List<HourlyBucket> claimed) {
+        Map<DayKey, Long> days = new LinkedHashMap<>();
+        for (HourlyBucket bucket : claimed) {
+            days.merge(new DayKey(bucket.subjectType(), bucket.bucketStart().truncatedTo(ChronoUnit.DAYS), bucket.subjectId()),
+                bucket.loanCount(), Long::sum);
+        }
+        if (days.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(mergeBuckets("""
+            SELECT CAST(? AS VARCHAR(10)) AS subject_type, 'DAY' AS granularity, CAST(? AS TIMESTAMP) AS bucket_start,
+                   CAST(? AS BIGINT) AS subject_id, CAST(? AS BIGINT) AS loans
+            """), days.entrySet().stream()
+            .map(e -> new Object[]{e.getKey().subjectType(), Timestamp.valueOf(e.getKey().day()), e.getKey().subjectId(), e.getValue()})
+            .toList());
+    }
+
+    private record HourlyBucket(String subjectType, LocalDateTime bucketStart, Long subjectId, long loanCount) {
+    }
+
+    private record DayKey(String subjectType, LocalDateTime day, Long subjectId) {
+    }
+
+    private static String hourBucket(String ids) {
+        return """
+            SELECT CAST(? AS VARCHAR(10)) AS subject_type, 'HOUR' AS granularity, CAST(? AS TIMESTAMP) AS bucket_start,
+                   s.id AS subject_id, 1 AS loans
+            FROM (%s) s
+            """.formatted(ids);
+    }
+
+    private static String subjectTable(LoanSubject subject) {
+        return switch (subject) {
+            case BOOK -> "books";
+            case AUTHOR -> "authors";
+            case USER -> "users";
+        };
+    }
+
+    private static String subjectLabel(LoanSubject subject) {
+        return switch (subject) {
+            case BOOK -> "title";
+            case AUTHOR -> "full_name";
+            case USER -> "username";
+        };
+    }
+
+    // Postgres: INSERT ... ON CONFLICT (bezpieczne przy równoległych wypożyczeniach),
+    // pozostałe bazy (H2 w testach): standardowy MERGE
+    private String increment(String table, String keyColumn, String source) {
+        if (databaseDialect.isPostgreSQL()) {
+            return """
+                INSERT INTO %1$s (%2$s, loan_count)
+                SELECT s.id, 1 FROM (%3$s) s
+                ON CONFLICT (%2$s) DO UPDATE SET loan_count = %1$s.loan_count + 1
+                """.formatted(table, keyColumn, source);
+        }
+        return """
+            MERGE INTO %1$s t
+            USING (%3$s) s ON t.%2$s = s.id
+            WHEN MATCHED THEN UPDATE SET loan_count = t.loan_count + 1
+            WHEN NOT MATCHED THEN INSERT (%2$s, loan_count) VALUES (s.id, 1)
+            """.formatted(table, keyColumn, source);
+    }
+
+    // Źródło musi zwracać kolumny subject_type, granularity, bucket_start, subject_id, loans
+    private String mergeBuckets(String source) {
+        if (databaseDialect.isPostgreSQL()) {
+            return """
+                INSERT INTO loan_buckets (subject_type, granularity, bucket_start, subject_id, loan_count)
+                SELECT s.subject_type, s.granularity, s.bucket_start, s.subject_id, s.loans FROM (%s) s
+                ON CONFLICT (subject_type, granularity, bucket_start, subject_id)
+                DO UPDATE SET loan_count = loan_buckets.loan_count + EXCLUDED.loan_count
+                """.formatted(source);
+        }
+        return """
+            MERGE INTO loan_buckets t
+            USING (%s) s
+            ON t.subject_type = s.subject_type AND t.granularity = s.granularity
+               AND t.bucket_start = s.bucket_start AND t.subject_id = s.subject_id
+            WHEN MATCHED THEN UPDATE SET loan_count = t.loan_count + s.loans
+            WHEN NOT MATCHED THEN INSERT (subject_type, granularity, bucket_start, subject_id, loan_count)
+                VALUES (s.subject_type, s.granularity, s.bucket_start, s.subject_id, s.loans)
+            """.formatted(source);
+    }
+}
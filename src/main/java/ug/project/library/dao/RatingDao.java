@@ -1,3 +1,118 @@
-// public class RatingDao {
-    
-// }
+package ug.project.library.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Liczniki ocen trzymane w wierszu książki: suma, liczba i histogram 1-5
+@Repository
+public class RatingDao {
+
+    private static final int MIN_SCORE = 1;
+    private static final int MAX_SCORE = 5;
+    // średnia z przyrostowego UPDATE i z AVG() może się różnić na ostatnich bitach
+    private static final double AVG_TOLERANCE = 1e-9;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect databaseDialect;
+
+    public RatingDao(JdbcTemplate jdbcTemplate, DatabaseDialect databaseDialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseDialect = databaseDialect;
+    }
+
+    // Jeden UPDATE w transakcji zapisu oceny - prawa strona SET widzi wartości sprzed zmiany,
+    // więc średnia liczy się z nowej sumy i licznika bez dodatkowego odczytu.
+    // Nową średnią zwraca ten sam UPDATE (Postgres: RETURNING, H2: FINAL TABLE); null, gdy książki nie ma.
+    public Double applyScoreChange(Long bookId, Integer removedScore, Integer addedScore) {
+        int sumDelta = (addedScore != null ? addedScore : 0) - (removedScore != null ? removedScore : 0);
+        int countDelta = (addedScore != null ? 1 : 0) - (removedScore != null ? 1 : 0);
+
+        StringBuilder sql = new StringBuilder("UPDATE books SET rating_sum = rating_sum + ?, rating_count = rating_count + ?");
+        if (removedScore != null && !removedScore.equals(addedScore)) {
+            sql.append(", ").append(histogramColumn(removedScore)).append(" = ").append(histogramColumn(removedScore)).append(" - 1");
+        }
+        if (addedScore != null && !addedScore.equals(removedScore)) {
+            sql.append(", ").append(histogramColumn(addedScore)).append(" = ").append(histogramColumn(addedScore)).append(" + 1");
+        }
+        sql.append("""
+            , avg_rating = CASE WHEN rating_count + ? > 0
+                THEN CAST(rating_sum + ? AS DOUBLE PRECISION) / (rating_count + ?)
+                ELSE 0 END
+            WHERE id = ?""");
+        String returning = databaseDialect.isPostgreSQL()
+            ? sql + " RETURNING avg_rating"
+            : "SELECT avg_rating FROM FINAL TABLE (" + sql + ")";
+        List<Double> result = jdbcTemplate.queryForList(returning, Double.class,
+            sumDelta, countDelta, countDelta, sumDelta, countDelta, bookId);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    public Double findAverageRating(Long bookId) {
+        String sql = "SELECT avg_rating FROM books WHERE id = ?";
+        List<Double> result = jdbcTemplate.queryForList(sql, Double.class, bookId);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    public List<RatingDrift> findDrift() {
+        String sql = """
+            SELECT b.id, b.rating_count, b.rating_sum,
+                   COALESCE(s.cnt, 0) AS actual_count, COALESCE(s.total, 0) AS actual_sum
+            FROM books b
+            LEFT JOIN (
+                SELECT book_id, COUNT(*) AS cnt, SUM(score) AS total,
+                       SUM(CASE WHEN score = 1 THEN 1 ELSE 0 END) AS r1,
+                       SUM(CASE WHEN score = 2 THEN 1 ELSE 0 END) AS r2,
+                       SUM(CASE WHEN score = 3 THEN 1 ELSE 0 END) AS r3,
+                       SUM(CASE WHEN score = 4 THEN 1 ELSE 0 END) AS r4,
+                       SUM(CASE WHEN score = 5 THEN 1 ELSE 0 END) AS r5
+                FROM ratings
+                GROUP BY book_id
+            ) s ON s.book_id = b.id
+            WHERE b.rating_count <> COALESCE(s.cnt, 0)
+               OR b.rating_sum <> COALESCE(s.total, 0)
+               OR b.rating_1 <> COALESCE(s.r1, 0)
+               OR b.rating_2 <> COALESCE(s.r2, 0)
+               OR b.rating_3 <> COALESCE(s.r3, 0)
+               OR b.rating_4 <> COALESCE(s.r4, 0)
+               OR b.rating_5 <> COALESCE(s.r5, 0)
+               OR ABS(COALESCE(b.avg_rating, 0) - COALESCE(CAST(s.total AS DOUBLE PRECISION) / s.cnt, 0)) > ?
+            ORDER BY b.id
+            """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new RatingDrift(
+            rs.getLong("id"),
+            rs.getLong("rating_count"),
+            rs.getLong("actual_count"),
+            rs.getLong("rating_sum"),
+            rs.getLong("actual_sum")
+        ), AVG_TOLERANCE);
+    }
+
+    public int[] recomputeAggregates(List<Long> bookIds) {
+        String sql = """
+            UPDATE books SET
+                rating_count = (SELECT COUNT(*) FROM ratings r WHERE r.book_id = books.id),
+                rating_sum = (SELECT COALESCE(SUM(r.score), 0) FROM ratings r WHERE r.book_id = books.id),
+                rating_1 = (SELECT COUNT(*) FROM ratings r WHERE r.book_id = books.id AND r.score = 1),
+                rating_2 = (SELECT COUNT(*) FROM ratings r WHERE r.book_id = books.id AND r.score = 2),
+                rating_3 = (SELECT COUNT(*) FROM ratings r WHERE r.book_id = books.id AND r.score = 3),
+                rating_4 = (SELECT COUNT(*) FROM ratings r WHERE r.book_id = books.id AND r.score = 4),
+                rating_5 = (SELECT COUNT(*) FROM ratings r WHERE r.book_id = books.id AND r.score = 5),
+                avg_rating = COALESCE((SELECT AVG(CAST(r.score AS DOUBLE PRECISION)) FROM ratings r WHERE r.book_id = books.id), 0)
+            WHERE id = ?
+            """;
+        List<Object[]> args = bookIds.stream().map(id -> new Object[]{id}).toList();
+        return jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    private String histogramColumn(int score) {
+        if (score < MIN_SCORE || score > MAX_SCORE) {
+            throw new IllegalArgumentException("musi byc liczba od 1 do 5");
+        }
+        return "rating_" + score;
+    }
+
+    public record RatingDrift(Long bookId, long storedCount, long actualCount, long storedSum, long actualSum) {
+    }
+}
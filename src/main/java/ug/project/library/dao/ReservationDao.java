@@ -1,32 +1,90 @@
 package ug.project.library.dao;
 
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ug.project.library.dto.ReservationDto;
+import ug.project.library.dto.ReservationFilter;
 import ug.project.library.model.entity.Reservation;
 import ug.project.library.model.entity.User;
 import ug.project.library.model.entity.Book;
 import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.pagination.ReservationCursor;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.sql.Timestamp;
 
 @Repository
 public class ReservationDao {
     
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String CONSOLE_SELECT = """
+            SELECT r.id, r.status, r.created_at, r.deadline, r.overdue_at, r.user_id, u.username, r.book_id, b.title
+            FROM reservations r
+            JOIN users u ON u.id = r.user_id
+            JOIN books b ON b.id = r.book_id
+        """;
+
     private final JdbcTemplate jdbcTemplate;
 
     public ReservationDao(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    // Konsola administratora: filtry + keyset po (created_at, id) malejąco. Każdy filtr ma indeks
+    // zaczynający się od swojej kolumny i kończący na (created_at, id), więc strona to krótki skan indeksu
+    public List<ReservationDto> findConsolePage(ReservationFilter filter, ReservationCursor after, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = CONSOLE_SELECT + consoleWhere(filter, after, args)
+            + " ORDER BY r.created_at DESC, r.id DESC LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapConsoleRow(rs), args.toArray());
+    }
+
+    // Eksport bez ładowania całej historii do pamięci - sterownik pobiera wiersze paczkami,
+    // a na Postgresie działa to tylko wewnątrz transakcji (kursor po stronie serwera)
+    public void forEachForExport(ReservationFilter filter, Consumer<ReservationDto> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = CONSOLE_SELECT + consoleWhere(filter, null, args) + " ORDER BY r.created_at DESC, r.id DESC";
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapConsoleRow(rs)));
+    }
+
+
+    // Terminy, po których egzemplarz może wrócić na półkę - wczytywane przy starcie przez AvailabilityForecast
+    public void forEachForecastDeadline(RowCallbackHandler handler) {
+        String sql = """
+            SELECT r.id, r.book_id, r.deadline
+            FROM reservations r
+            WHERE r.status IN ('OCZEKUJĄCA', 'WYPOŻYCZONA') AND r.deadline IS NOT NULL
+            """;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, handler);
+    }
 
     public List<Reservation> findActiveReservationsByUserId(Long userId) {
         String sql = """
-            SELECT r.id, r.status, r.created_at, r.deadline,
+            SELECT r.id, r.status, r.created_at, r.deadline, r.overdue_at,
                    r.user_id, r.book_id,
                    u.username, u.email, u.encrypted_password, u.user_role,
                    b.title, b.publisher, b.cover_image_url, b.year_published, 
@@ -44,7 +102,7 @@ public class ReservationDao {
 
     public List<Reservation> findByStatus(ReservationStatus status) {
         String sql = """
-            SELECT r.id, r.status, r.created_at, r.deadline,
+            SELECT r.id, r.status, r.created_at, r.deadline, r.overdue_at,
                    r.user_id, r.book_id
             FROM reservations r
             WHERE r.status = ?
@@ -55,6 +113,108 @@ public class ReservationDao {
     }
 
 
+    public void forEachPendingDeadline(RowCallbackHandler handler) {
+        String sql = """
+            SELECT r.id, r.deadline
+            FROM reservations r
+            WHERE r.status = 'OCZEKUJĄCA' AND r.deadline IS NOT NULL
+        """;
+        jdbcTemplate.query(sql, handler);
+    }
+
+
+    // Paczka przeterminowanych rezerwacji zablokowana do końca transakcji (FOR UPDATE SKIP LOCKED) -
+    // inne instancje pomijają te wiersze i biorą kolejne, a potwierdzenie nie zmieni ich w międzyczasie
+    public List<ExpiredReservation> claimExpiredChunk(LocalDateTime now, int limit) {
+        String sql = """
+            SELECT r.id, r.book_id, r.user_id
+            FROM reservations r
+            WHERE r.status = 'OCZEKUJĄCA' AND r.deadline < ?
+            ORDER BY r.deadline, r.id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        """;
+        return jdbcTemplate.query(sql,
+            (rs, rowNum) -> new ExpiredReservation(rs.getLong("id"), rs.getLong("book_id"), rs.getLong("user_id")),
+            Timestamp.valueOf(now), limit);
+    }
+
+    // Wariant bez blokad dla baz bez SKIP LOCKED - o przejęciu decyduje dopiero deletePendingEach
+    public List<ExpiredReservation> findExpiredChunk(LocalDateTime now, int limit) {
+        String sql = """
+            SELECT r.id, r.book_id, r.user_id
+            FROM reservations r
+            WHERE r.status = 'OCZEKUJĄCA' AND r.deadline < ?
+            ORDER BY r.deadline, r.id
+            LIMIT ?
+        """;
+        return jdbcTemplate.query(sql,
+            (rs, rowNum) -> new ExpiredReservation(rs.getLong("id"), rs.getLong("book_id"), rs.getLong("user_id")),
+            Timestamp.valueOf(now), limit);
+    }
+
+    // Wynik dla każdego ID: 1 = ten wiersz usunęliśmy my, 0 = ktoś był szybszy
+    public int[] deletePendingEach(List<Long> ids) {
+        String sql = "DELETE FROM reservations WHERE id = ? AND status = 'OCZEKUJĄCA'";
+        List<Object[]> args = ids.stream().map(id -> new Object[]{id}).toList();
+        return jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    public int deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "DELETE FROM reservations WHERE id IN (" + placeholders + ")";
+        return jdbcTemplate.update(sql, ids.toArray());
+    }
+
+    // Rezerwacja przydzielona z kolejki oczekujących - bez ładowania encji użytkownika i książki
+    public Long insertPending(Long userId, Long bookId, LocalDateTime createdAt, LocalDateTime deadline) {
+        String sql = "INSERT INTO reservations (status, created_at, deadline, user_id, book_id) VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, new String[]{"id"});
+            ps.setString(1, ReservationStatus.OCZEKUJĄCA.name());
+            ps.setTimestamp(2, Timestamp.valueOf(createdAt));
+            ps.setTimestamp(3, Timestamp.valueOf(deadline));
+            ps.setLong(4, userId);
+            ps.setLong(5, bookId);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    // Tylko wypożyczenia, które przekroczyły termin od ostatniego przeglądu: częściowy indeks
+    // idx_reservations_loan_due obejmuje wyłącznie nieoznaczone wypożyczenia, więc oznaczone z niego wypadają
+    public List<OverdueLoan> findNewlyOverdue(LocalDateTime now, int limit) {
+        String sql = """
+            SELECT r.id, r.user_id, r.book_id
+            FROM reservations r
+            WHERE r.status = 'WYPOŻYCZONA' AND r.overdue_at IS NULL AND r.deadline < ?
+            ORDER BY r.deadline, r.id
+            LIMIT ?
+        """;
+        return jdbcTemplate.query(sql,
+            (rs, rowNum) -> new OverdueLoan(rs.getLong("id"), rs.getLong("user_id"), rs.getLong("book_id")),
+            Timestamp.valueOf(now), limit);
+    }
+
+    // Wynik dla każdego ID: 1 = oznaczyliśmy my, 0 = inna instancja albo zwrot w międzyczasie
+    public int[] markOverdueEach(List<Long> ids, LocalDateTime now) {
+        String sql = "UPDATE reservations SET overdue_at = ? WHERE id = ? AND status = 'WYPOŻYCZONA' AND overdue_at IS NULL";
+        Timestamp markedAt = Timestamp.valueOf(now);
+        List<Object[]> args = ids.stream().map(id -> new Object[]{markedAt, id}).toList();
+        return jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    public record OverdueLoan(Long id, Long userId, Long bookId) {
+    }
+
+    public record ExpiredReservation(Long id, Long bookId, Long userId) {
+    }
+
+
     private static class ReservationRowMapper implements RowMapper<Reservation> {
         @Override
         public Reservation mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -67,6 +227,10 @@ public class ReservationDao {
             if (deadlineTimestamp != null) {
                 reservation.setDeadline(deadlineTimestamp.toLocalDateTime());
             }
+            Timestamp overdueTimestamp = rs.getTimestamp("overdue_at");
+            if (overdueTimestamp != null) {
+                reservation.setOverdueAt(overdueTimestamp.toLocalDateTime());
+            }
             
             User user = new User();
             user.setId(rs.getLong("user_id"));
@@ -82,4 +246,53 @@ public class ReservationDao {
             return reservation;
         }
     }
-}
\ No newline at end of file
+
+    private static String consoleWhere(ReservationFilter filter, ReservationCursor after, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            conditions.add("r.status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getUserId() != null) {
+            conditions.add("r.user_id = ?");
+            args.add(filter.getUserId());
+        }
+        if (filter.getBookId() != null) {
+            conditions.add("r.book_id = ?");
+            args.add(filter.getBookId());
+        }
+        if (filter.getFrom() != null) {
+            conditions.add("r.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.getFrom().atStartOfDay()));
+        }
+        if (filter.getTo() != null) {
+            conditions.add("r.created_at < ?");
+            args.add(Timestamp.valueOf(filter.getTo().plusDays(1).atStartOfDay()));
+        }
+        if (Boolean.TRUE.equals(filter.getOverdue())) {
+            conditions.add("r.status = 'WYPOŻYCZONA' AND r.overdue_at IS NOT NULL");
+        }
+        if (after != null) {
+            conditions.add("(r.created_at, r.id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static ReservationDto mapConsoleRow(ResultSet rs) throws SQLException {
+        Timestamp deadline = rs.getTimestamp("deadline");
+        ReservationStatus status = ReservationStatus.valueOf(rs.getString("status"));
+        ReservationDto dto = new ReservationDto(
+            rs.getLong("id"),
+            status,
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            deadline != null ? deadline.toLocalDateTime() : null,
+            rs.getLong("user_id"),
+            rs.getString("username"),
+            rs.getLong("book_id"),
+            rs.getString("title"));
+        dto.setOverdue(status == ReservationStatus.WYPOŻYCZONA && rs.getTimestamp("overdue_at") != null);
+        return dto;
+    }
+}
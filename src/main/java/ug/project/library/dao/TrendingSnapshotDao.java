@@ -0,0 +1,46 @@
+package ug.project.library.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class TrendingSnapshotDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TrendingSnapshotDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Zrzut zastępuje poprzedni w całości - to kilkaset wierszy, więc DELETE + batch INSERT wystarcza
+    public void replaceSnapshot(List<SnapshotRow> rows) {
+        jdbcTemplate.update("DELETE FROM trending_snapshot");
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO trending_snapshot (book_id, score, error, taken_at) VALUES (?, ?, ?, ?)",
+            rows, rows.size(), (ps, row) -> {
+                ps.setLong(1, row.bookId());
+                ps.setDouble(2, row.score());
+                ps.setDouble(3, row.error());
+                ps.setTimestamp(4, Timestamp.valueOf(row.takenAt()));
+            });
+    }
+
+    // Książki usunięte od czasu zrzutu odpadają na złączeniu
+    public List<SnapshotRow> findSnapshot() {
+        String sql = """
+            SELECT s.book_id, s.score, s.error, s.taken_at
+            FROM trending_snapshot s
+            JOIN books b ON b.id = s.book_id
+            """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new SnapshotRow(
+            rs.getLong("book_id"), rs.getDouble("score"), rs.getDouble("error"),
+            rs.getTimestamp("taken_at").toLocalDateTime()));
+    }
+
+    public record SnapshotRow(Long bookId, double score, double error, LocalDateTime takenAt) {
+    }
+}
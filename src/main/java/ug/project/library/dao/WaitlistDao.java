@@ -0,0 +1,94 @@
+package ug.project.library.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public class WaitlistDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WaitlistDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Wołać pod blokadą wiersza książki, po sprawdzeniu position() - unique_waitlist_book_user jest już tylko zabezpieczeniem
+    public void join(Long bookId, Long userId, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO waitlist_entries (book_id, user_id, created_at) VALUES (?, ?, ?)",
+            bookId, userId, Timestamp.valueOf(createdAt));
+    }
+
+    public int leave(Long bookId, Long userId) {
+        return jdbcTemplate.update("DELETE FROM waitlist_entries WHERE book_id = ? AND user_id = ?", bookId, userId);
+    }
+
+    // Pozycja liczona od 1; 0 = użytkownik nie czeka. Krótki skan indeksu (book_id, id)
+    public int position(Long bookId, Long userId) {
+        String sql = """
+            SELECT COUNT(*) FROM waitlist_entries w
+            WHERE w.book_id = ?
+              AND w.id <= (SELECT m.id FROM waitlist_entries m WHERE m.book_id = ? AND m.user_id = ?)
+        """;
+        Integer position = jdbcTemplate.queryForObject(sql, Integer.class, bookId, bookId, userId);
+        return position != null ? position : 0;
+    }
+
+    public int countWaiting(Long bookId) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM waitlist_entries WHERE book_id = ?", Integer.class, bookId);
+        return count != null ? count : 0;
+    }
+
+    // Jedno zapytanie zamiast sprawdzania kolejki każdej książki z paczki osobno
+    public Set<Long> findBooksWithWaiters(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(bookIds.size(), "?"));
+        String sql = "SELECT DISTINCT book_id FROM waitlist_entries WHERE book_id IN (" + placeholders + ")";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, bookIds.toArray()));
+    }
+
+    // Początek kolejki zablokowany do końca transakcji (FOR UPDATE SKIP LOCKED) - dwa równoległe zwroty
+    // tej samej książki dostają różnych oczekujących
+    public List<Waiter> claimHead(Long bookId, int limit) {
+        String sql = """
+            SELECT w.id, w.user_id
+            FROM waitlist_entries w
+            WHERE w.book_id = ?
+            ORDER BY w.id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Waiter(rs.getLong("id"), rs.getLong("user_id")), bookId, limit);
+    }
+
+    // Wariant bez blokad dla baz bez SKIP LOCKED - o przejęciu decyduje dopiero deleteEach
+    public List<Waiter> findHead(Long bookId, int limit) {
+        String sql = """
+            SELECT w.id, w.user_id
+            FROM waitlist_entries w
+            WHERE w.book_id = ?
+            ORDER BY w.id
+            LIMIT ?
+        """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Waiter(rs.getLong("id"), rs.getLong("user_id")), bookId, limit);
+    }
+
+    // Wynik dla każdego ID: 1 = ten wpis usunęliśmy my, 0 = ktoś był szybszy
+    public int[] deleteEach(List<Long> ids) {
+        List<Object[]> args = ids.stream().map(id -> new Object[]{id}).toList();
+        return jdbcTemplate.batchUpdate("DELETE FROM waitlist_entries WHERE id = ?", args);
+    }
+
+    public record Waiter(Long id, Long userId) {
+    }
+}
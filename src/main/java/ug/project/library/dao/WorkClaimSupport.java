@@ -0,0 +1,25 @@
+package ug.project.library.dao;
+
+import org.springframework.stereotype.Component;
+
+// Zadania w tle na kilku instancjach dzielą się pracą przez SELECT ... FOR UPDATE SKIP LOCKED:
+// każda instancja blokuje swoją paczkę wierszy, a cudze zablokowane po prostu pomija.
+// Bazy bez SKIP LOCKED obsługujemy zastępczo - wiersz "należy" do tego, kto go pierwszy zmieni.
+@Component
+public class WorkClaimSupport {
+
+    private final DatabaseDialect databaseDialect;
+
+    public WorkClaimSupport(DatabaseDialect databaseDialect) {
+        this.databaseDialect = databaseDialect;
+    }
+
+    public boolean skipLockedSupported() {
+        return switch (databaseDialect.productName()) {
+            case "PostgreSQL" -> databaseDialect.isAtLeast(9, 5);
+            case "H2" -> databaseDialect.isAtLeast(2, 0);
+            case "MySQL" -> databaseDialect.isAtLeast(8, 0);
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package ug.project.library.dto;
+
+
+public class ActiveUserDto {
+    private Long id;
+    private String username;
+    private String email;
+    private long loanCount;
+
+    public ActiveUserDto() {
+    }
+
+    public ActiveUserDto(Long id, String username, String email, long loanCount) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.loanCount = loanCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    public void setLoanCount(long loanCount) {
+        this.loanCount = loanCount;
+    }
+}
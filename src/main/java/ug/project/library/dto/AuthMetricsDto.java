@@ -0,0 +1,34 @@
+package ug.project.library.dto;
+
+import ug.project.library.security.BoundedPasswordEncoder;
+import ug.project.library.security.LoginAttemptThrottle;
+
+public class AuthMetricsDto {
+
+    private BoundedPasswordEncoder.HashingMetrics hashing;
+    private LoginAttemptThrottle.ThrottleMetrics throttle;
+
+    public AuthMetricsDto() {
+    }
+
+    public AuthMetricsDto(BoundedPasswordEncoder.HashingMetrics hashing, LoginAttemptThrottle.ThrottleMetrics throttle) {
+        this.hashing = hashing;
+        this.throttle = throttle;
+    }
+
+    public BoundedPasswordEncoder.HashingMetrics getHashing() {
+        return hashing;
+    }
+
+    public void setHashing(BoundedPasswordEncoder.HashingMetrics hashing) {
+        this.hashing = hashing;
+    }
+
+    public LoginAttemptThrottle.ThrottleMetrics getThrottle() {
+        return throttle;
+    }
+
+    public void setThrottle(LoginAttemptThrottle.ThrottleMetrics throttle) {
+        this.throttle = throttle;
+    }
+}
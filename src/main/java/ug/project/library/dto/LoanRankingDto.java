@@ -0,0 +1,41 @@
+package ug.project.library.dto;
+
+
+public class LoanRankingDto {
+    private Long id;
+    private String name;
+    private long loanCount;
+
+    public LoanRankingDto() {
+    }
+
+    public LoanRankingDto(Long id, String name, long loanCount) {
+        this.id = id;
+        this.name = name;
+        this.loanCount = loanCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    public void setLoanCount(long loanCount) {
+        this.loanCount = loanCount;
+    }
+}
@@ -0,0 +1,51 @@
+package ug.project.library.dto;
+
+
+public class PopularAuthorDto {
+    private Long id;
+    private String fullName;
+    private long bookCount;
+    private long loanCount;
+
+    public PopularAuthorDto() {
+    }
+
+    public PopularAuthorDto(Long id, String fullName, long bookCount, long loanCount) {
+        this.id = id;
+        this.fullName = fullName;
+        this.bookCount = bookCount;
+        this.loanCount = loanCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    public long getBookCount() {
+        return bookCount;
+    }
+
+    public void setBookCount(long bookCount) {
+        this.bookCount = bookCount;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    public void setLoanCount(long loanCount) {
+        this.loanCount = loanCount;
+    }
+}
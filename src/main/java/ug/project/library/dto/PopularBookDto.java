@@ -0,0 +1,61 @@
+package ug.project.library.dto;
+
+
+public class PopularBookDto {
+    private Long id;
+    private String title;
+    private String publisher;
+    private Double avgRating;
+    private long loanCount;
+
+    public PopularBookDto() {
+    }
+
+    public PopularBookDto(Long id, String title, String publisher, Double avgRating, long loanCount) {
+        this.id = id;
+        this.title = title;
+        this.publisher = publisher;
+        this.avgRating = avgRating;
+        this.loanCount = loanCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public void setPublisher(String publisher) {
+        this.publisher = publisher;
+    }
+
+    public Double getAvgRating() {
+        return avgRating;
+    }
+
+    public void setAvgRating(Double avgRating) {
+        this.avgRating = avgRating;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    public void setLoanCount(long loanCount) {
+        this.loanCount = loanCount;
+    }
+}
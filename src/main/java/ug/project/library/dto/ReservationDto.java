@@ -21,6 +21,9 @@ public class ReservationDto {
     @NotNull(message = "Id książki jest wymagane")
     private Long bookId;
     private String bookTitle;
+    private String bookPublisher;
+    private String bookCoverImageUrl;
+    private boolean overdue;
 
     public ReservationDto() {
     }
@@ -101,4 +104,28 @@ public class ReservationDto {
     public void setBookTitle(String bookTitle) {
         this.bookTitle = bookTitle;
     }
-}
\ No newline at end of file
+
+    public String getBookPublisher() {
+        return bookPublisher;
+    }
+
+    public void setBookPublisher(String bookPublisher) {
+        this.bookPublisher = bookPublisher;
+    }
+
+    public String getBookCoverImageUrl() {
+        return bookCoverImageUrl;
+    }
+
+    public void setBookCoverImageUrl(String bookCoverImageUrl) {
+        this.bookCoverImageUrl = bookCoverImageUrl;
+    }
+
+    public boolean isOverdue() {
+        return overdue;
+    }
+
+    public void setOverdue(boolean overdue) {
+        this.overdue = overdue;
+    }
+}
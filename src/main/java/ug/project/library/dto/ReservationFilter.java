@@ -0,0 +1,82 @@
+package ug.project.library.dto;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import ug.project.library.model.enumerate.ReservationStatus;
+
+// Filtry konsoli rezerwacji - każde pole opcjonalne, daty dotyczą created_at (obie granice włącznie);
+// overdue = tylko trwające wypożyczenia po terminie zwrotu
+public class ReservationFilter {
+    private ReservationStatus status;
+    private Long userId;
+    private Long bookId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private Boolean overdue;
+
+    public ReservationFilter() {
+    }
+
+    public ReservationFilter(ReservationStatus status, Long userId, Long bookId, LocalDate from, LocalDate to) {
+        this.status = status;
+        this.userId = userId;
+        this.bookId = bookId;
+        this.from = from;
+        this.to = to;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public Boolean getOverdue() {
+        return overdue;
+    }
+
+    public void setOverdue(Boolean overdue) {
+        this.overdue = overdue;
+    }
+}
@@ -0,0 +1,43 @@
+package ug.project.library.dto;
+
+import org.springframework.data.domain.Page;
+
+
+public class StatsDashboardDto {
+    private Page<PopularBookDto> books;
+    private Page<PopularAuthorDto> authors;
+    private Page<ActiveUserDto> users;
+
+    public StatsDashboardDto() {
+    }
+
+    public StatsDashboardDto(Page<PopularBookDto> books, Page<PopularAuthorDto> authors, Page<ActiveUserDto> users) {
+        this.books = books;
+        this.authors = authors;
+        this.users = users;
+    }
+
+    public Page<PopularBookDto> getBooks() {
+        return books;
+    }
+
+    public void setBooks(Page<PopularBookDto> books) {
+        this.books = books;
+    }
+
+    public Page<PopularAuthorDto> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(Page<PopularAuthorDto> authors) {
+        this.authors = authors;
+    }
+
+    public Page<ActiveUserDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(Page<ActiveUserDto> users) {
+        this.users = users;
+    }
+}
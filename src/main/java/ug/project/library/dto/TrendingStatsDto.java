@@ -0,0 +1,65 @@
+package ug.project.library.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+public class TrendingStatsDto {
+    private String window;
+    private LocalDateTime from;
+    private List<LoanRankingDto> books;
+    private List<LoanRankingDto> authors;
+    private List<LoanRankingDto> users;
+
+    public TrendingStatsDto() {
+    }
+
+    public TrendingStatsDto(String window, LocalDateTime from, List<LoanRankingDto> books,
+                            List<LoanRankingDto> authors, List<LoanRankingDto> users) {
+        this.window = window;
+        this.from = from;
+        this.books = books;
+        this.authors = authors;
+        this.users = users;
+    }
+
+    public String getWindow() {
+        return window;
+    }
+
+    public void setWindow(String window) {
+        this.window = window;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public List<LoanRankingDto> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<LoanRankingDto> books) {
+        this.books = books;
+    }
+
+    public List<LoanRankingDto> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<LoanRankingDto> authors) {
+        this.authors = authors;
+    }
+
+    public List<LoanRankingDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<LoanRankingDto> users) {
+        this.users = users;
+    }
+}
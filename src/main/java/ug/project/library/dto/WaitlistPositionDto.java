@@ -0,0 +1,41 @@
+package ug.project.library.dto;
+
+public class WaitlistPositionDto {
+
+    private Long bookId;
+    private int position;
+    private int waiting;
+
+    public WaitlistPositionDto() {
+    }
+
+    public WaitlistPositionDto(Long bookId, int position, int waiting) {
+        this.bookId = bookId;
+        this.position = position;
+        this.waiting = waiting;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public void setWaiting(int waiting) {
+        this.waiting = waiting;
+    }
+}
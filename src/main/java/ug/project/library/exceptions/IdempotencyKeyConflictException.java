@@ -0,0 +1,8 @@
+package ug.project.library.exceptions;
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ug.project.library.exceptions;
+
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Invalid pagination cursor: " + cursor);
+    }
+}
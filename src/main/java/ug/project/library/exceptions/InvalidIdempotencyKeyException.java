@@ -0,0 +1,8 @@
+package ug.project.library.exceptions;
+
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+    public InvalidIdempotencyKeyException(String key) {
+        super("Invalid Idempotency-Key: " + key);
+    }
+}
@@ -0,0 +1,8 @@
+package ug.project.library.exceptions;
+
+
+public class InvalidStatsWindowException extends RuntimeException {
+    public InvalidStatsWindowException(String window) {
+        super("Unknown statistics window: " + window + " (expected 24h, 7d or 30d)");
+    }
+}
@@ -0,0 +1,8 @@
+package ug.project.library.exceptions;
+
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package ug.project.library.exceptions;
+
+import org.springframework.security.core.AuthenticationException;
+
+public class LoginThrottledException extends AuthenticationException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Zbyt wiele nieudanych prób logowania, spróbuj ponownie za " + retryAfterSeconds + " s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
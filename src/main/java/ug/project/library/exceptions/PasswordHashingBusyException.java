@@ -0,0 +1,10 @@
+package ug.project.library.exceptions;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+// Pula haszowania haseł jest pełna - logowanie/rejestrację należy ponowić za chwilę
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+    public PasswordHashingBusyException() {
+        super("Serwer jest chwilowo przeciążony, spróbuj ponownie za chwilę");
+    }
+}
@@ -0,0 +1,4 @@
+package ug.project.library.live;
+
+public record AvailabilityEvent(Long bookId, int quantityAvailable) {
+}
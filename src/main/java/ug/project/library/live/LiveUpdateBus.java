@@ -0,0 +1,212 @@
+package ug.project.library.live;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ug.project.library.dao.BookDao;
+import ug.project.library.exceptions.RateLimitExceededException;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.transaction.AfterCommit;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Szyna zdarzeń w obrębie procesu dla strumieni SSE: dostępność książki i statusy rezerwacji użytkownika.
+// Subskrybent to tylko SseEmitter w mapie (asynchroniczne żądanie, bez wątku na połączenie), a publikacja
+// bez subskrybentów kończy się na jednym odczycie z mapy - bez zapytania do bazy.
+// Zdarzenia wychodzą po commicie z jednego wątku wysyłającego, więc transakcja nie czeka na wolnych klientów.
+@Component
+public class LiveUpdateBus {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdateBus.class);
+    static final long EMITTER_TIMEOUT_MILLIS = Duration.ofMinutes(30).toMillis();
+    private static final int MAX_SUBSCRIBERS = 10_000;
+    // strumienie książek są publiczne, więc jeden klient (IP albo konto) nie może zająć całej puli
+    static final int MAX_SUBSCRIBERS_PER_CLIENT = 20;
+    private static final long CLIENT_LIMIT_RETRY_AFTER_SECONDS = 60;
+    private static final int DISPATCH_QUEUE_CAPACITY = 10_000;
+
+    private final BookDao bookDao;
+    private final Executor dispatcher;
+    private final Map<Long, Set<SseEmitter>> bookSubscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<SseEmitter>> userSubscribers = new ConcurrentHashMap<>();
+    // książki z zaplanowanym odczytem stanu - kilka zmian przed wysyłką daje jeden odczyt
+    private final Set<Long> pendingAvailability = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> clientSubscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Autowired
+    public LiveUpdateBus(BookDao bookDao) {
+        this.bookDao = bookDao;
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(DISPATCH_QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "live-updates");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    LiveUpdateBus(BookDao bookDao, Executor dispatcher) {
+        this.bookDao = bookDao;
+        this.dispatcher = dispatcher;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    // client to "user:<id>" dla zalogowanych albo "ip:<adres>" dla anonimowych
+    public SseEmitter subscribeToBook(Long bookId, String client) {
+        return subscribe(bookSubscribers, bookId, client);
+    }
+
+    public SseEmitter subscribeToUser(Long userId) {
+        return subscribe(userSubscribers, userId, "user:" + userId);
+    }
+
+    // Stan czytamy dopiero po commicie i tylko, gdy ktoś obserwuje książkę
+    public void availabilityChanged(Long bookId) {
+        if (!bookSubscribers.containsKey(bookId)) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (pendingAvailability.add(bookId)) {
+                boolean queued = dispatch(() -> {
+                    pendingAvailability.remove(bookId);
+                    Set<SseEmitter> emitters = bookSubscribers.get(bookId);
+                    if (emitters != null) {
+                        bookDao.findQuantityAvailable(bookId).ifPresent(quantity ->
+                            broadcast(emitters, "availability", new AvailabilityEvent(bookId, quantity)));
+                    }
+                });
+                // odrzucony odczyt nie może zostawić znacznika, bo kolejne zmiany nic by już nie wysłały
+                if (!queued) {
+                    pendingAvailability.remove(bookId);
+                }
+            }
+        });
+    }
+
+    public void reservationChanged(Long userId, Long reservationId, Long bookId, ReservationStatus status) {
+        if (!userSubscribers.containsKey(userId)) {
+            return;
+        }
+        ReservationStatusEvent event = new ReservationStatusEvent(reservationId, bookId, status);
+        AfterCommit.run(() -> dispatch(() -> {
+            Set<SseEmitter> emitters = userSubscribers.get(userId);
+            if (emitters != null) {
+                broadcast(emitters, "reservation", event);
+            }
+        }));
+    }
+
+    // Pusty komentarz co jakiś czas wykrywa zerwane połączenia, zanim zrobi to limit czasu
+    public void heartbeat() {
+        dispatch(() -> {
+            bookSubscribers.values().forEach(emitters -> ping(emitters));
+            userSubscribers.values().forEach(emitters -> ping(emitters));
+        });
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    public long droppedEvents() {
+        return dropped.get();
+    }
+
+    // Przy pełnej kolejce zdarzenie przepada - klient dostanie stan przy następnej zmianie
+    private boolean dispatch(Runnable task) {
+        try {
+            dispatcher.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+
+    private SseEmitter subscribe(Map<Long, Set<SseEmitter>> registry, Long key, String client) {
+        if (!acquireClientSlot(client)) {
+            throw new RateLimitExceededException(CLIENT_LIMIT_RETRY_AFTER_SECONDS);
+        }
+        if (subscribers.incrementAndGet() > MAX_SUBSCRIBERS) {
+            subscribers.decrementAndGet();
+            releaseClientSlot(client);
+            throw new IllegalStateException("Zbyt wielu subskrybentów powiadomień na żywo");
+        }
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        registry.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+        Runnable unsubscribe = () -> unsubscribe(registry, key, client, emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    private void unsubscribe(Map<Long, Set<SseEmitter>> registry, Long key, String client, SseEmitter emitter) {
+        registry.computeIfPresent(key, (k, emitters) -> {
+            if (emitters.remove(emitter)) {
+                subscribers.decrementAndGet();
+                releaseClientSlot(client);
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private boolean acquireClientSlot(String client) {
+        boolean[] acquired = new boolean[1];
+        clientSubscribers.compute(client, (k, count) -> {
+            int current = count == null ? 0 : count;
+            acquired[0] = current < MAX_SUBSCRIBERS_PER_CLIENT;
+            return acquired[0] ? current + 1 : current;
+        });
+        return acquired[0];
+    }
+
+    private void releaseClientSlot(String client) {
+        clientSubscribers.computeIfPresent(client, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void broadcast(Set<SseEmitter> emitters, String name, Object event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(event));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Zamykam zerwany strumień SSE", e);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void ping(Set<SseEmitter> emitters) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
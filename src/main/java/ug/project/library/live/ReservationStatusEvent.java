@@ -0,0 +1,7 @@
+package ug.project.library.live;
+
+import ug.project.library.model.enumerate.ReservationStatus;
+
+// status == null: rezerwacja zniknęła (anulowana albo wygasła)
+public record ReservationStatusEvent(Long reservationId, Long bookId, ReservationStatus status) {
+}
@@ -0,0 +1,38 @@
+package ug.project.library.model.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// Wypożyczenia wszystkich książek autora, liczone tak jak wcześniej JOIN przez book_author
+@Entity
+@Table(name = "author_loan_stats", indexes = @Index(name = "idx_author_loan_stats_count", columnList = "loan_count DESC, author_id"))
+public class AuthorLoanStats {
+
+    @Id
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Author author;
+
+    @Column(name = "loan_count", nullable = false)
+    private long loanCount;
+
+    public AuthorLoanStats() {
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+}
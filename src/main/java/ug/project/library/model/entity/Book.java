@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import ug.project.library.model.entity.Rating;
 
 
@@ -35,12 +36,42 @@ public class Book {
     )
     private List<Genre> genres;
 
-    @Column(name = "avgRating" )
+    // Średnią przelicza RatingDao razem z licznikami - zapis encji (np. edycja książki) jej nie nadpisuje
+    @Column(name = "avgRating", insertable = false, updatable = false)
     private Double avgRating;
 
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL)
     private List<Rating> ratings = new ArrayList<>();
 
+    // Liczniki ocen utrzymuje RatingDao jednym UPDATE-em, encja tylko je czyta
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long ratingSum;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private int ratingCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_1", nullable = false, insertable = false, updatable = false)
+    private int rating1;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_2", nullable = false, insertable = false, updatable = false)
+    private int rating2;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_3", nullable = false, insertable = false, updatable = false)
+    private int rating3;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_4", nullable = false, insertable = false, updatable = false)
+    private int rating4;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_5", nullable = false, insertable = false, updatable = false)
+    private int rating5;
+
     @Column(length = 4)
     private int yearPublished;
 
@@ -106,6 +137,19 @@ public class Book {
         this.avgRating = avgRating;
     }
 
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    // histogram[i] = liczba ocen i+1
+    public int[] getRatingHistogram() {
+        return new int[]{rating1, rating2, rating3, rating4, rating5};
+    }
+
     public int getYearPublished() {
         return yearPublished;
     }
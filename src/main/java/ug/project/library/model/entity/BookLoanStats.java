@@ -0,0 +1,39 @@
+package ug.project.library.model.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// Zmaterializowana liczba wypożyczeń książki - podbijana w transakcji wypożyczenia,
+// więc ranking w statystykach to odczyt gotowych, posortowanych wierszy z indeksu
+@Entity
+@Table(name = "book_loan_stats", indexes = @Index(name = "idx_book_loan_stats_count", columnList = "loan_count DESC, book_id"))
+public class BookLoanStats {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Book book;
+
+    @Column(name = "loan_count", nullable = false)
+    private long loanCount;
+
+    public BookLoanStats() {
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+}
@@ -7,6 +7,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "comments")
+@NamedEntityGraph(name = "Comment.withUserAndBook", attributeNodes = {
+    @NamedAttributeNode("user"),
+    @NamedAttributeNode("book")
+})
 public class Comment {
 
     @Id
@@ -22,11 +26,11 @@ public class Comment {
     @Column(name = "last_modified_at")
     private LocalDateTime lastModifiedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
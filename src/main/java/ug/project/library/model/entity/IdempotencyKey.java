@@ -0,0 +1,75 @@
+package ug.project.library.model.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Klucz idempotencji rezerwacji razem z zapisaną odpowiedzią (ReservationDto w JSON).
+// Obsługuje go IdempotencyKeyDao; encja opisuje tabelę dla schematu generowanego w testach.
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created", columnList = "created_at"))
+@IdClass(IdempotencyKey.Key.class)
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "idem_key", length = 64)
+    private String idemKey;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(length = 4000)
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey() {
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getIdemKey() {
+        return idemKey;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private String idemKey;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userId, key.userId) && Objects.equals(idemKey, key.idemKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, idemKey);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ug.project.library.model.entity;
+
+import jakarta.persistence.*;
+import ug.project.library.model.enumerate.BucketGranularity;
+import ug.project.library.model.enumerate.LoanSubject;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Wypożyczenia zsumowane w kubełkach godzinowych (ostatnie 48h) i dziennych (starsze) -
+// rankingi 24h/7d/30d sumują kilkadziesiąt kubełków zamiast skanować rezerwacje
+@Entity
+@Table(name = "loan_buckets")
+@IdClass(LoanBucket.Key.class)
+public class LoanBucket {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private LoanSubject subjectType;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private BucketGranularity granularity;
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    @Id
+    private Long subjectId;
+
+    @Column(nullable = false)
+    private long loanCount;
+
+    public LoanBucket() {
+    }
+
+    public LoanSubject getSubjectType() {
+        return subjectType;
+    }
+
+    public BucketGranularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+
+    public static class Key implements Serializable {
+        private LoanSubject subjectType;
+        private BucketGranularity granularity;
+        private LocalDateTime bucketStart;
+        private Long subjectId;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return subjectType == key.subjectType && granularity == key.granularity
+                && Objects.equals(bucketStart, key.bucketStart) && Objects.equals(subjectId, key.subjectId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subjectType, granularity, bucketStart, subjectId);
+        }
+    }
+}
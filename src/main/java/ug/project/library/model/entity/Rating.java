@@ -8,16 +8,20 @@ import jakarta.persistence.*;
 
 @Entity
 @Table(name= "ratings")
+@NamedEntityGraph(name = "Rating.withUserAndBook", attributeNodes = {
+    @NamedAttributeNode("user"),
+    @NamedAttributeNode("book")
+})
 public class Rating {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
@@ -6,7 +6,16 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name="reservations")
+@Table(name="reservations", indexes = {
+    @Index(name = "idx_reservations_created", columnList = "created_at DESC, id DESC"),
+    @Index(name = "idx_reservations_status_created", columnList = "status, created_at DESC, id DESC"),
+    @Index(name = "idx_reservations_user_created", columnList = "user_id, created_at DESC, id DESC"),
+    @Index(name = "idx_reservations_book_created", columnList = "book_id, created_at DESC, id DESC")
+})
+@NamedEntityGraph(name = "Reservation.withUserAndBook", attributeNodes = {
+    @NamedAttributeNode("user"),
+    @NamedAttributeNode("book")
+})
 public class Reservation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,16 +26,23 @@ public class Reservation {
 
     private LocalDateTime createdAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
+    // OCZEKUJĄCA: termin potwierdzenia, WYPOŻYCZONA: termin zwrotu
     private LocalDateTime deadline;
 
+    // chwila wypożyczenia - według niej liczone są kubełki statystyk
+    private LocalDateTime borrowedAt;
+
+    // ustawiane przez OverdueLoanScanner, gdy wypożyczenie przekroczy termin zwrotu
+    private LocalDateTime overdueAt;
+
     public Reservation() {
     }
 
@@ -85,4 +101,20 @@ public class Reservation {
     public void setDeadline(LocalDateTime deadline) {
         this.deadline = deadline;
     }
+
+    public LocalDateTime getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    public void setBorrowedAt(LocalDateTime borrowedAt) {
+        this.borrowedAt = borrowedAt;
+    }
+
+    public LocalDateTime getOverdueAt() {
+        return overdueAt;
+    }
+
+    public void setOverdueAt(LocalDateTime overdueAt) {
+        this.overdueAt = overdueAt;
+    }
 }
@@ -0,0 +1,43 @@
+package ug.project.library.model.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Zrzut liczników "popularne teraz" (TrendingBooks), żeby ranking przetrwał restart
+@Entity
+@Table(name = "trending_snapshot")
+public class TrendingSnapshot {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(nullable = false)
+    private double error;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    public TrendingSnapshot() {
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public double getError() {
+        return error;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+}
@@ -0,0 +1,38 @@
+package ug.project.library.model.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// Liczba wypożyczeń użytkownika do rankingu najaktywniejszych czytelników
+@Entity
+@Table(name = "user_loan_stats", indexes = @Index(name = "idx_user_loan_stats_count", columnList = "loan_count DESC, user_id"))
+public class UserLoanStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @Column(name = "loan_count", nullable = false)
+    private long loanCount;
+
+    public UserLoanStats() {
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public long getLoanCount() {
+        return loanCount;
+    }
+}
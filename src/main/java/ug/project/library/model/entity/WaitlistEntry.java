@@ -0,0 +1,46 @@
+package ug.project.library.model.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Miejsce w kolejce oczekujących na książkę; kolejność wyznacza rosnące ID (FIFO).
+// Obsługuje ją WaitlistDao; encja opisuje tabelę dla schematu generowanego w testach.
+@Entity
+@Table(name = "waitlist_entries",
+    uniqueConstraints = @UniqueConstraint(name = "unique_waitlist_book_user", columnNames = {"book_id", "user_id"}),
+    indexes = @Index(name = "idx_waitlist_book_id", columnList = "book_id, id"))
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public WaitlistEntry() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,6 @@
+package ug.project.library.model.enumerate;
+
+
+public enum BucketGranularity {
+    HOUR, DAY
+}
@@ -0,0 +1,6 @@
+package ug.project.library.model.enumerate;
+
+
+public enum LoanSubject {
+    BOOK, AUTHOR, USER
+}
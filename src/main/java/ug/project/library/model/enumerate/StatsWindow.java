@@ -0,0 +1,37 @@
+package ug.project.library.model.enumerate;
+
+import ug.project.library.exceptions.InvalidStatsWindowException;
+
+import java.time.Duration;
+
+
+public enum StatsWindow {
+    LAST_24H("24h", Duration.ofHours(24)),
+    LAST_7D("7d", Duration.ofDays(7)),
+    LAST_30D("30d", Duration.ofDays(30));
+
+    private final String code;
+    private final Duration length;
+
+    StatsWindow(String code, Duration length) {
+        this.code = code;
+        this.length = length;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Duration getLength() {
+        return length;
+    }
+
+    public static StatsWindow fromCode(String code) {
+        for (StatsWindow window : values()) {
+            if (window.code.equalsIgnoreCase(code)) {
+                return window;
+            }
+        }
+        throw new InvalidStatsWindowException(code);
+    }
+}
@@ -0,0 +1,45 @@
+package ug.project.library.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import ug.project.library.exceptions.InvalidCursorException;
+
+/**
+ * Pozycja w liście książek dla stronicowania keyset: klucz sortowania ostatniego wiersza + jego ID.
+ * Na zewnątrz wychodzi jako nieprzezroczysty token Base64.
+ */
+public record BookCursor(BookSort sort, Long id, String key) {
+
+    public static BookCursor of(BookSort sort, Long id, Object key) {
+        return new BookCursor(sort, id, key == null ? "" : key.toString());
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String token, BookSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            BookCursor cursor = new BookCursor(BookSort.valueOf(parts[0]), Long.parseLong(parts[1]), parts[2]);
+            if (cursor.sort() != expectedSort) {
+                throw new InvalidCursorException(token);
+            }
+            cursor.numericKey();
+            return cursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+
+    public String titleKey() {
+        return key;
+    }
+
+    public double numericKey() {
+        return sort == BookSort.TITLE ? 0 : Double.parseDouble(key);
+    }
+}
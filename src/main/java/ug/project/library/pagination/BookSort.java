@@ -0,0 +1,29 @@
+package ug.project.library.pagination;
+
+import org.springframework.data.domain.Sort;
+
+// Sortowania oferowane na stronie głównej; RELEVANCE ma sens tylko przy wyszukiwaniu
+public enum BookSort {
+    TITLE, RATING, YEAR, RELEVANCE;
+
+    public static BookSort fromParam(String sortBy) {
+        if (sortBy == null) {
+            return TITLE;
+        }
+        return switch (sortBy) {
+            case "rating" -> RATING;
+            case "year" -> YEAR;
+            case "relevance" -> RELEVANCE;
+            default -> TITLE;
+        };
+    }
+
+    public Sort toSort() {
+        return switch (this) {
+            case TITLE -> Sort.by(Sort.Direction.ASC, "title");
+            case RATING -> Sort.by(Sort.Direction.DESC, "avgRating");
+            case YEAR -> Sort.by(Sort.Direction.DESC, "yearPublished");
+            case RELEVANCE -> Sort.unsorted();
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package ug.project.library.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import ug.project.library.exceptions.RateLimitExceededException;
+import ug.project.library.service.LibraryUserPrincipal;
+
+// Sprawdza limit przed wywołaniem kontrolera - odrzucone żądanie nie dociera do serwisu ani do bazy.
+// Użytkownik jest rozpoznawany z principala (ID z logowania lub tokenu), bez zapytania o konto.
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final TokenBucketRateLimiter limiter;
+    private final RateLimitProperties properties;
+
+    public RateLimitInterceptor(TokenBucketRateLimiter limiter, RateLimitProperties properties) {
+        this.limiter = limiter;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!properties.enabled() || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        RateLimited rateLimited = method.getMethodAnnotation(RateLimited.class);
+        if (rateLimited == null) {
+            return true;
+        }
+        RateLimitPolicy policy = properties.policy(rateLimited.value());
+        if (policy == null) {
+            return true;
+        }
+
+        long periodNanos = policy.period().toNanos();
+        long wait = limiter.tryAcquire(rateLimited.value(), "ip:" + request.getRemoteAddr(), policy.ipCapacity(), periodNanos);
+        String user = currentUser();
+        if (wait == 0 && user != null) {
+            wait = limiter.tryAcquire(rateLimited.value(), user, policy.capacity(), periodNanos);
+        }
+        if (wait > 0) {
+            throw new RateLimitExceededException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999)));
+        }
+        return true;
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getPrincipal() instanceof LibraryUserPrincipal principal
+            ? "user:" + principal.getUserId()
+            : "name:" + auth.getName();
+    }
+}
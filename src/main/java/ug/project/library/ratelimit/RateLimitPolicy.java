@@ -0,0 +1,16 @@
+package ug.project.library.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Kubełek o pojemności {@code capacity} żądań, napełniany w całości w czasie {@code period}.
+ * Adres IP ma osobny, zwykle większy kubełek ({@code ipCapacity}) - za jednym NAT-em siedzi wielu użytkowników.
+ */
+public record RateLimitPolicy(int capacity, Duration period, int ipCapacity) {
+
+    public RateLimitPolicy {
+        if (capacity < 1 || ipCapacity < 1 || period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Invalid rate limit policy: " + capacity + "/" + period + ", ip " + ipCapacity);
+        }
+    }
+}
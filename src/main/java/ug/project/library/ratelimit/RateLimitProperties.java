@@ -0,0 +1,21 @@
+package ug.project.library.ratelimit;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Polityki limitów z {@code library.rate-limit}; endpoint bez własnej polityki korzysta z "default", o ile istnieje.
+ */
+@ConfigurationProperties(prefix = "library.rate-limit")
+public record RateLimitProperties(boolean enabled, Map<String, RateLimitPolicy> policies) {
+
+    public RateLimitProperties {
+        policies = policies == null ? Map.of() : Map.copyOf(policies);
+    }
+
+    public RateLimitPolicy policy(String name) {
+        RateLimitPolicy policy = policies.get(name);
+        return policy != null ? policy : policies.get("default");
+    }
+}
@@ -0,0 +1,16 @@
+package ug.project.library.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Endpoint objęty limitem zapytań; wartość to nazwa polityki z {@code library.rate-limit.policies}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    String value();
+}
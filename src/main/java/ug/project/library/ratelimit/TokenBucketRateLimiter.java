@@ -0,0 +1,65 @@
+package ug.project.library.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Kubełki tokenów liczone algorytmem GCRA: stan kubełka to jedna liczba - teoretyczny czas nadejścia (TAT)
+// następnego żądania. Sprawdzenie to odczyt i jeden compareAndSet na AtomicLong danego klucza, bez blokad
+// i bez alokacji stanu; mapa kubełków jest podzielona na segmenty przez ConcurrentHashMap.
+// Zachowuje się jak klasyczny kubełek: `capacity` żądań naraz, potem jedno na `period / capacity`.
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<BucketKey, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+
+    public TokenBucketRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Zwraca 0, gdy żądanie mieści się w limicie, a w przeciwnym razie liczbę nanosekund do zwolnienia tokenu.
+     */
+    public long tryAcquire(String policyName, String subject, int capacity, long periodNanos) {
+        BucketKey key = new BucketKey(policyName, subject);
+        AtomicLong theoreticalArrival = buckets.get(key);
+        if (theoreticalArrival == null) {
+            theoreticalArrival = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+
+        long interval = Math.max(1, periodNanos / capacity);
+        long tolerance = interval * (capacity - 1);
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long stored = theoreticalArrival.get();
+            long arrival = stored == Long.MIN_VALUE || stored - now < 0 ? now : stored;
+            long wait = arrival - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(stored, arrival + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    // Kubełek, którego TAT już minął, jest pełny - tak samo jak brak wpisu, więc można go usunąć.
+    // Wątek, który zdążył pobrać usuwany licznik, w najgorszym razie dostanie o jeden token za dużo.
+    public int purgeIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(arrival -> arrival.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private record BucketKey(String policy, String subject) {
+    }
+}
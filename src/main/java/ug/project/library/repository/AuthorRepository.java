@@ -4,6 +4,7 @@ package ug.project.library.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import ug.project.library.dto.PopularAuthorDto;
 import ug.project.library.model.entity.Author;
 import ug.project.library.model.entity.Book;
 import org.springframework.data.jpa.repository.Query;
@@ -18,16 +19,18 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     
     Optional<Author> findByNameAndSurname(String name, String surname);
 
-    @Query("""
-        SELECT a
-        FROM Author a
-        JOIN a.books b
-        JOIN Reservation r ON r.book = b
-        WHERE r.status IN ('WYPOŻYCZONA', 'ZWRÓCONA')
-        GROUP BY a
-        ORDER BY COUNT(r.id) DESC
-    """)
-    Page<Author> findMostPopularAuthors(Pageable pageable);
+    // Ranking z liczników author_loan_stats - kolejność z indeksu (loan_count DESC, author_id);
+    // liczba książek z podzapytania, żeby szablon nie ładował całej kolekcji Author.books
+    @Query(value = """
+        SELECT new ug.project.library.dto.PopularAuthorDto(
+            a.id, a.fullName,
+            (SELECT COUNT(b) FROM Book b JOIN b.authors ba WHERE ba = a),
+            s.loanCount)
+        FROM AuthorLoanStats s
+        JOIN s.author a
+        ORDER BY s.loanCount DESC, s.authorId
+    """, countQuery = "SELECT COUNT(s) FROM AuthorLoanStats s")
+    Page<PopularAuthorDto> findMostPopularAuthors(Pageable pageable);
 
     
 
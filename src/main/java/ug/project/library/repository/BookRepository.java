@@ -4,7 +4,9 @@ package ug.project.library.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import ug.project.library.dto.PopularBookDto;
 import ug.project.library.model.entity.Book;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -44,15 +46,52 @@ public interface BookRepository extends JpaRepository<Book, Long> {
                                         @Param("authorIds") List<Long> authorIds, 
                                         @Param("authorCount") long authorCount);
 
+       // Ranking z liczników book_loan_stats zamiast GROUP BY po wszystkich rezerwacjach
+       @Query(value = """
+       SELECT new ug.project.library.dto.PopularBookDto(b.id, b.title, b.publisher, b.avgRating, s.loanCount)
+       FROM BookLoanStats s
+       JOIN s.book b
+       ORDER BY s.loanCount DESC, s.bookId
+       """, countQuery = "SELECT COUNT(s) FROM BookLoanStats s")
+       Page<PopularBookDto> findMostPopularBooks(Pageable pageable);
+
+       // Stronicowanie keyset: ORDER BY klucz, id i warunek "za ostatnim wierszem" zamiast OFFSET
+       @Query("SELECT b FROM Book b ORDER BY b.title ASC, b.id ASC")
+       List<Book> findFirstByTitle(Pageable pageable);
+
+       @Query("""
+       SELECT b FROM Book b
+       WHERE b.title > :title OR (b.title = :title AND b.id > :id)
+       ORDER BY b.title ASC, b.id ASC
+       """)
+       List<Book> findAfterByTitle(@Param("title") String title, @Param("id") Long id, Pageable pageable);
+
+       @Query("SELECT b FROM Book b ORDER BY COALESCE(b.avgRating, 0) DESC, b.id ASC")
+       List<Book> findFirstByRating(Pageable pageable);
+
        @Query("""
-       SELECT r.book
-       FROM Reservation r
-       WHERE r.status IN (
-       ug.project.library.model.enumerate.ReservationStatus.WYPOŻYCZONA,
-       ug.project.library.model.enumerate.ReservationStatus.ZWRÓCONA
-       )
-       GROUP BY r.book
-       ORDER BY COUNT(r.id) DESC
+       SELECT b FROM Book b
+       WHERE COALESCE(b.avgRating, 0) < :rating OR (COALESCE(b.avgRating, 0) = :rating AND b.id > :id)
+       ORDER BY COALESCE(b.avgRating, 0) DESC, b.id ASC
        """)
-       Page<Book> findMostPopularBooks(Pageable pageable);
+       List<Book> findAfterByRating(@Param("rating") double rating, @Param("id") Long id, Pageable pageable);
+
+       @Query("SELECT b FROM Book b ORDER BY b.yearPublished DESC, b.id ASC")
+       List<Book> findFirstByYear(Pageable pageable);
+
+       @Query("""
+       SELECT b FROM Book b
+       WHERE b.yearPublished < :year OR (b.yearPublished = :year AND b.id > :id)
+       ORDER BY b.yearPublished DESC, b.id ASC
+       """)
+       List<Book> findAfterByYear(@Param("year") int year, @Param("id") Long id, Pageable pageable);
+
+       // Ścieżka odczytu list: autorzy i gatunki dla całej strony w dwóch zapytaniach.
+       // Dwóch bagów nie da się pobrać jednym JOIN FETCH (MultipleBagFetchException), więc drugie
+       // zapytanie dociąga gatunki do encji, które są już w kontekście utrwalania.
+       @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.authors WHERE b.id IN :ids")
+       List<Book> findWithAuthorsByIdIn(@Param("ids") Collection<Long> ids);
+
+       @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.genres WHERE b.id IN :ids")
+       List<Book> findWithGenresByIdIn(@Param("ids") Collection<Long> ids);
 }
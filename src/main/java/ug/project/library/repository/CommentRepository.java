@@ -3,6 +3,7 @@ package ug.project.library.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ug.project.library.model.entity.Comment;
 import java.util.List;
@@ -10,7 +11,17 @@ import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
+    // Relacje są leniwe - tam, gdzie komentarz trafia do DTO, użytkownik i książka przychodzą w tym samym SELECT
+    @EntityGraph("Comment.withUserAndBook")
     Page<Comment> findByBookId(Long bookId, Pageable pageable);
+
+    @Override
+    @EntityGraph("Comment.withUserAndBook")
+    Page<Comment> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph("Comment.withUserAndBook")
+    Optional<Comment> findById(Long id);
     
 
 }
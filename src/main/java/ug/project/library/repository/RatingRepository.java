@@ -3,6 +3,7 @@ package ug.project.library.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ug.project.library.model.entity.Rating;
 import ug.project.library.model.enumerate.ReservationStatus;
@@ -18,8 +19,18 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
 
     Optional<Rating> findByUserIdAndBookId(Long userId, Long bookId);
 
+    // Relacje są leniwe - tam, gdzie ocena trafia do DTO, użytkownik i książka przychodzą w tym samym SELECT
+    @EntityGraph("Rating.withUserAndBook")
     Page<Rating> findByBookId(Long bookId, Pageable pageable);
 
+    @Override
+    @EntityGraph("Rating.withUserAndBook")
+    Page<Rating> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph("Rating.withUserAndBook")
+    Optional<Rating> findById(Long id);
+
 
     @Query("SELECT AVG(r.score) FROM Rating r WHERE r.book.id = :bookId")
     Double calculateAverageRating(@Param("bookId") Long bookId); 
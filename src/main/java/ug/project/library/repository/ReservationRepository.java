@@ -2,6 +2,7 @@ package ug.project.library.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ug.project.library.model.entity.Reservation;
 import ug.project.library.model.enumerate.ReservationStatus;
@@ -16,12 +17,17 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
 
     List<Reservation> findByStatus(ReservationStatus status); 
 
+    // Potwierdzenie/wypożyczenie/zwrot kończą się mapowaniem na DTO z tytułem i nazwą użytkownika
+    @EntityGraph("Reservation.withUserAndBook")
     Optional<Reservation> findByIdAndUserId(Long reservationId, Long userId);
 
     @Query("SELECT r FROM Reservation r WHERE r.status = 'OCZEKUJĄCA' AND r.deadline < :now")
     List<Reservation> findExpiredReservations(@Param("now") LocalDateTime now);
 
-    @Query("SELECT r FROM Reservation r WHERE r.user.id = :userId AND r.status = 'ZWRÓCONA'")
+    // Książka i użytkownik w tym samym SELECT - widok dostaje gotowe DTO i nie doczytuje niczego przy renderowaniu
+    @Query(value = "SELECT r FROM Reservation r JOIN FETCH r.book JOIN FETCH r.user " +
+            "WHERE r.user.id = :userId AND r.status = 'ZWRÓCONA'",
+            countQuery = "SELECT COUNT(r) FROM Reservation r WHERE r.user.id = :userId AND r.status = 'ZWRÓCONA'")
     Page<Reservation> findPastReservations(@Param("userId") Long userId, Pageable pageable);
 
     @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END " +
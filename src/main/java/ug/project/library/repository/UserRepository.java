@@ -4,6 +4,7 @@ package ug.project.library.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import ug.project.library.dto.ActiveUserDto;
 import ug.project.library.model.entity.User;
 import org.springframework.data.jpa.repository.Query;
 
@@ -19,15 +20,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
 
-    @Query("""
-        SELECT r.user
-        FROM Reservation r
-        WHERE r.status IN ('WYPOŻYCZONA',
-                           'ZWRÓCONA')
-        GROUP BY r.user
-        ORDER BY COUNT(r.id) DESC
-    """)
-    Page<User> getUsersWithMostLoans(Pageable pageable);
+    @Query(value = """
+        SELECT new ug.project.library.dto.ActiveUserDto(u.id, u.username, u.email, s.loanCount)
+        FROM UserLoanStats s
+        JOIN s.user u
+        ORDER BY s.loanCount DESC, s.userId
+    """, countQuery = "SELECT COUNT(s) FROM UserLoanStats s")
+    Page<ActiveUserDto> getUsersWithMostLoans(Pageable pageable);
 
     
     
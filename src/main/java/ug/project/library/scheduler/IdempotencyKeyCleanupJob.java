@@ -0,0 +1,28 @@
+package ug.project.library.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ug.project.library.service.IdempotencyStore;
+
+// Klucze idempotencji są ważne 24h - starsze usuwamy z tabeli i z pamięci
+@Component
+public class IdempotencyKeyCleanupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyCleanupJob.class);
+
+    private final IdempotencyStore idempotencyStore;
+
+    public IdempotencyKeyCleanupJob(IdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @Scheduled(initialDelayString = "PT10M", fixedDelayString = "PT1H")
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyStore.purgeExpired();
+        if (deleted > 0) {
+            log.debug("Usunięto {} wygasłych kluczy idempotencji", deleted);
+        }
+    }
+}
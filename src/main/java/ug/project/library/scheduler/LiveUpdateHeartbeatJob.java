@@ -0,0 +1,21 @@
+package ug.project.library.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ug.project.library.live.LiveUpdateBus;
+
+// Proxy zwykle zamykają bezczynne połączenia po 60 s; ping utrzymuje strumienie i usuwa zerwane
+@Component
+public class LiveUpdateHeartbeatJob {
+
+    private final LiveUpdateBus liveUpdateBus;
+
+    public LiveUpdateHeartbeatJob(LiveUpdateBus liveUpdateBus) {
+        this.liveUpdateBus = liveUpdateBus;
+    }
+
+    @Scheduled(initialDelayString = "PT25S", fixedDelayString = "PT25S")
+    public void heartbeat() {
+        liveUpdateBus.heartbeat();
+    }
+}
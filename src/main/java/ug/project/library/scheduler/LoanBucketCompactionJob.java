@@ -0,0 +1,21 @@
+package ug.project.library.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ug.project.library.service.StatisticsService;
+
+// Co godzinę zwija kubełki godzinowe starsze niż 48h w dzienne i usuwa dzienne spoza retencji
+@Component
+public class LoanBucketCompactionJob {
+
+    private final StatisticsService statisticsService;
+
+    public LoanBucketCompactionJob(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    @Scheduled(initialDelayString = "PT5M", fixedDelayString = "PT1H")
+    public void compactLoanBuckets() {
+        statisticsService.compactLoanBuckets();
+    }
+}
@@ -0,0 +1,23 @@
+package ug.project.library.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ug.project.library.service.OverdueLoanScanner;
+
+import java.time.LocalDateTime;
+
+// Termin zwrotu to 14 dni, więc kilkuminutowe opóźnienie oznaczenia nie ma znaczenia
+@Component
+public class OverdueLoanScanJob {
+
+    private final OverdueLoanScanner overdueLoanScanner;
+
+    public OverdueLoanScanJob(OverdueLoanScanner overdueLoanScanner) {
+        this.overdueLoanScanner = overdueLoanScanner;
+    }
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "PT5M")
+    public void flagOverdueLoans() {
+        overdueLoanScanner.flagOverdue(LocalDateTime.now());
+    }
+}
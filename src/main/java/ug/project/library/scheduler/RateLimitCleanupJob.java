@@ -0,0 +1,21 @@
+package ug.project.library.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ug.project.library.ratelimit.TokenBucketRateLimiter;
+
+// Pełne kubełki niczego nie pamiętają - usuwamy je, żeby mapa rosła tylko z aktywnymi klientami
+@Component
+public class RateLimitCleanupJob {
+
+    private final TokenBucketRateLimiter tokenBucketRateLimiter;
+
+    public RateLimitCleanupJob(TokenBucketRateLimiter tokenBucketRateLimiter) {
+        this.tokenBucketRateLimiter = tokenBucketRateLimiter;
+    }
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "PT1M")
+    public void purgeIdleBuckets() {
+        tokenBucketRateLimiter.purgeIdle();
+    }
+}
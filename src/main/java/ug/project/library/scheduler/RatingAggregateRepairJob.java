@@ -0,0 +1,37 @@
+package ug.project.library.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ug.project.library.dao.RatingDao;
+import ug.project.library.service.RatingService;
+
+import java.util.List;
+
+// Liczniki ocen są przyrostowe, więc raz na dobę porównujemy je z tabelą ocen i poprawiamy rozjazdy
+@Component
+public class RatingAggregateRepairJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingAggregateRepairJob.class);
+
+    private final RatingService ratingService;
+
+    public RatingAggregateRepairJob(RatingService ratingService) {
+        this.ratingService = ratingService;
+    }
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "PT24H")
+    public void repairRatingAggregates() {
+        List<RatingDao.RatingDrift> drift = ratingService.repairRatingAggregates();
+        if (drift.isEmpty()) {
+            log.info("Liczniki ocen zgodne z tabelą ocen");
+            return;
+        }
+        log.warn("Poprawiono liczniki ocen dla {} książek", drift.size());
+        for (RatingDao.RatingDrift d : drift) {
+            log.warn("Książka {}: liczba ocen {} -> {}, suma {} -> {}",
+                d.bookId(), d.storedCount(), d.actualCount(), d.storedSum(), d.actualSum());
+        }
+    }
+}
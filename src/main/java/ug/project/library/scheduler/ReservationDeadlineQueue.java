@@ -0,0 +1,66 @@
+package ug.project.library.scheduler;
+
+import org.springframework.stereotype.Component;
+import ug.project.library.transaction.AfterCommit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Terminy potwierdzenia oczekujących rezerwacji w pamięci - wygasamy je w chwili terminu zamiast
+// co minutę przeszukiwać tabelę. Anulowanie jest leniwe: wpis zostaje w kolejce, ale bez pokrycia
+// w mapie aktualnych terminów jest pomijany przy zdejmowaniu.
+// Zmiany wołane w transakcji działają dopiero po jej commicie - wycofana zmiana statusu nie może
+// zdjąć ani przestawić terminu rezerwacji, która w bazie wciąż czeka.
+@Component
+public class ReservationDeadlineQueue {
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void schedule(Long reservationId, LocalDateTime deadline) {
+        if (reservationId == null || deadline == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            pending.put(reservationId, deadline);
+            long delayNanos = Duration.between(LocalDateTime.now(), deadline).toNanos();
+            queue.put(new Deadline(reservationId, deadline, System.nanoTime() + delayNanos));
+        });
+    }
+
+    public void cancel(Long reservationId) {
+        AfterCommit.run(() -> pending.remove(reservationId));
+    }
+
+    // Blokuje do najbliższego terminu; zwraca ID rezerwacji, której termin właśnie minął
+    public Long takeDue() throws InterruptedException {
+        while (true) {
+            Deadline next = queue.take();
+            if (pending.remove(next.reservationId(), next.deadline())) {
+                return next.reservationId();
+            }
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private record Deadline(Long reservationId, LocalDateTime deadline, long triggerNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(triggerNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(triggerNanos, ((Deadline) other).triggerNanos);
+        }
+    }
+}
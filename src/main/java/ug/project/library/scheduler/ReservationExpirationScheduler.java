@@ -2,25 +2,24 @@ package ug.project.library.scheduler;
 
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import ug.project.library.model.entity.Reservation;
-import ug.project.library.service.ReservationService;
+import ug.project.library.service.ReservationExpiryEngine;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Component
 public class ReservationExpirationScheduler {
 
-    private final ReservationService reservationService;
+    private final ReservationExpiryEngine reservationExpiryEngine;
 
-    public ReservationExpirationScheduler(ReservationService reservationService){
-        this.reservationService = reservationService;
+    public ReservationExpirationScheduler(ReservationExpiryEngine reservationExpiryEngine){
+        this.reservationExpiryEngine = reservationExpiryEngine;
     }
 
-    @Scheduled(fixedRate = 60000) 
+    // Terminy wygasza na bieżąco ReservationExpiryWorker, tu tylko siatka bezpieczeństwa
+    // na wypadek restartu w trakcie wygaszania albo błędu w wątku kolejki
+    @Scheduled(fixedRate = 900000)
     public void expireReservations() {
 
-        reservationService.expireReservations();
+        reservationExpiryEngine.expireDue(LocalDateTime.now());
     }
 }
@@ -0,0 +1,69 @@
+package ug.project.library.scheduler;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ug.project.library.dao.ReservationDao;
+import ug.project.library.service.ReservationService;
+
+// Wątek zdejmujący terminy z ReservationDeadlineQueue; stan rezerwacji i tak sprawdza serwis w bazie
+@Component
+public class ReservationExpiryWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryWorker.class);
+
+    private final ReservationDeadlineQueue deadlineQueue;
+    private final ReservationService reservationService;
+    private final ReservationDao reservationDao;
+    private Thread worker;
+
+    public ReservationExpiryWorker(ReservationDeadlineQueue deadlineQueue, ReservationService reservationService,
+                                   ReservationDao reservationDao) {
+        this.deadlineQueue = deadlineQueue;
+        this.reservationService = reservationService;
+        this.reservationDao = reservationDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        reservationDao.forEachPendingDeadline(rs ->
+            deadlineQueue.schedule(rs.getLong("id"), rs.getTimestamp("deadline").toLocalDateTime()));
+        log.info("Zaplanowano wygaśnięcie {} oczekujących rezerwacji", deadlineQueue.size());
+
+        worker = new Thread(this::run, "reservation-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Long reservationId;
+            try {
+                reservationId = deadlineQueue.takeDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                reservationService.expireReservationIfDue(reservationId);
+            } catch (RuntimeException e) {
+                // nie gubimy wątku; zaległą rezerwację zbierze okresowy przegląd bazy
+                log.warn("Nie udało się wygasić rezerwacji {}", reservationId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ug.project.library.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ug.project.library.trending.TrendingBooks;
+
+// Ranking "popularne teraz" żyje w pamięci - co 5 minut zrzucamy go do bazy na wypadek restartu
+@Component
+public class TrendingSnapshotJob {
+
+    private final TrendingBooks trendingBooks;
+
+    public TrendingSnapshotJob(TrendingBooks trendingBooks) {
+        this.trendingBooks = trendingBooks;
+    }
+
+    @Scheduled(initialDelayString = "PT5M", fixedDelayString = "PT5M")
+    public void snapshotTrendingBooks() {
+        trendingBooks.snapshot();
+    }
+}
@@ -0,0 +1,73 @@
+package ug.project.library.search;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import ug.project.library.dao.BookDao;
+import ug.project.library.transaction.AfterCommit;
+
+// Rozmyte wyszukiwanie autorów po authors.full_name (literówki, brak polskich znaków)
+@Component
+public class AuthorSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthorSearchIndex.class);
+    private static final double THRESHOLD = 0.4;
+
+    private final BookDao bookDao;
+    private final TrigramIndex<Long> names = new TrigramIndex<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public AuthorSearchIndex(BookDao bookDao) {
+        this.bookDao = bookDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            bookDao.forEachAuthorName(rs -> names.add(rs.getLong("id"), rs.getString("full_name")));
+            log.info("Author search index built: {} authors", names.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Long authorId, String fullName) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                names.add(authorId, fullName);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long authorId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                names.remove(authorId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public List<TrigramIndex.Match<Long>> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return names.search(query, THRESHOLD, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package ug.project.library.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import ug.project.library.dao.BookDao;
+import ug.project.library.model.entity.Author;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Genre;
+import ug.project.library.pagination.BookCursor;
+import ug.project.library.pagination.BookSort;
+import ug.project.library.transaction.AfterCommit;
+
+/**
+ * Odwrócony indeks katalogu w pamięci (tytuł, autorzy, gatunki, wydawca).
+ * Termy są bez polskich znaków, a gdy słowo z zapytania nie pasuje do niczego,
+ * szukamy podobnych termów po trigramach.
+ * Zastępuje LIKE '%...%' w wyszukiwarce - zwraca tylko ID książek, ułożone wg trafności
+ * albo wg sortowania z Pageable, a same książki dociąga BookService.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    enum Field {
+        TITLE(3.0), AUTHOR(2.0), GENRE(1.0), PUBLISHER(1.0);
+
+        private final double boost;
+
+        Field(double boost) {
+            this.boost = boost;
+        }
+    }
+
+    private static final double EXACT_TERM_BONUS = 2.0;
+    private static final double FUZZY_THRESHOLD = 0.5;
+    private static final int FUZZY_EXPANSIONS = 10;
+    // Od tego przesunięcia strona bez filtrów czyta z tablicy pozycji zamiast przechodzić drzewo od początku
+    static final int DEEP_PAGE_OFFSET = 1_000;
+
+    private final BookDao bookDao;
+    private final Map<Field, NavigableMap<String, Set<Long>>> postings = new EnumMap<>(Field.class);
+    private final Map<Field, TrigramIndex<String>> vocabulary = new EnumMap<>(Field.class);
+    private final Map<Long, IndexedBook> documents = new HashMap<>();
+    // Cały katalog w porządku każdego sortowania - strona bez filtrów to odczyt od kursora, bez sortowania
+    private final Map<BookSort, NavigableSet<IndexedBook>> sortedDocuments = new EnumMap<>(BookSort.class);
+    // Ten sam porządek jako lista z dostępem po pozycji, budowana leniwie pod blokadą odczytu;
+    // każda zmiana indeksu ją unieważnia, więc płaci za nią dopiero pierwsza głęboka strona po zmianie
+    private final Map<BookSort, List<IndexedBook>> positions = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BookSearchIndex(BookDao bookDao) {
+        this.bookDao = bookDao;
+        for (Field field : Field.values()) {
+            postings.put(field, new TreeMap<>());
+            vocabulary.put(field, new TrigramIndex<>());
+        }
+        for (BookSort sort : BookSort.values()) {
+            sortedDocuments.put(sort, new TreeSet<>(documentComparator(sort.toSort())));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, IndexedBook> loaded = new HashMap<>();
+        bookDao.forEachBookForIndex(rs -> {
+            long id = rs.getLong("id");
+            double avgRating = rs.getDouble("avg_rating");
+            loaded.put(id, new IndexedBook(id, rs.getString("title"), rs.getString("publisher"),
+                rs.wasNull() ? null : avgRating, rs.getInt("year_published")));
+        });
+        bookDao.forEachBookAuthorName(rs -> {
+            IndexedBook doc = loaded.get(rs.getLong("book_id"));
+            if (doc != null) {
+                doc.authorNames.add(rs.getString("full_name"));
+            }
+        });
+        bookDao.forEachBookGenreName(rs -> {
+            IndexedBook doc = loaded.get(rs.getLong("book_id"));
+            if (doc != null) {
+                doc.genreNames.add(rs.getString("name"));
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            sortedDocuments.values().forEach(Set::clear);
+            positions.clear();
+            postings.values().forEach(Map::clear);
+            vocabulary.values().forEach(TrigramIndex::clear);
+            loaded.values().forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book search index built: {} books", loaded.size());
+    }
+
+    public void index(Book book) {
+        IndexedBook doc = toDocument(book);
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(doc.id);
+                addDocument(doc);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long bookId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(bookId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void updateAvgRating(Long bookId, Double avgRating) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                IndexedBook doc = documents.get(bookId);
+                if (doc != null) {
+                    // średnia jest kluczem porządku wg oceny - dokument trzeba przełożyć
+                    sortedDocuments.values().forEach(ordered -> ordered.remove(doc));
+                    positions.clear();
+                    doc.avgRating = avgRating;
+                    sortedDocuments.values().forEach(ordered -> ordered.add(doc));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page<Long> search(String title, String author, String keyword, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = match(title, author, keyword);
+            long total = scores == null ? documents.size() : scores.size();
+            if (pageable.isUnpaged()) {
+                List<Long> ids = topHits(scores, null, (int) total, comparator(pageable.getSort())).stream()
+                    .map(h -> h.doc().id).toList();
+                return new PageImpl<>(ids, pageable, total);
+            }
+            if (pageable.getOffset() >= total) {
+                return new PageImpl<>(List.of(), pageable, total);
+            }
+            int from = (int) pageable.getOffset();
+            int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), total);
+            BookSort presorted = scores == null ? presorted(pageable.getSort()) : null;
+            List<Long> pageIds;
+            if (presorted != null) {
+                pageIds = presortedPage(presorted, from, to);
+            } else {
+                List<Hit> top = topHits(scores, null, to, comparator(pageable.getSort()));
+                pageIds = top.subList(Math.min(from, top.size()), top.size()).stream().map(h -> h.doc().id).toList();
+            }
+            return new PageImpl<>(pageIds, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Keyset po wynikach wyszukiwania: bez filtrów czytamy od kursora gotowy porządek,
+    // z filtrami wybieramy limit + 1 najlepszych trafień za kursorem - bez sortowania całej listy
+    public SearchSlice seek(String title, String author, String keyword, BookSort sort, BookCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = match(title, author, keyword);
+            Hit probe = after == null ? null : probe(after);
+            List<Hit> hits;
+            long total;
+            if (scores == null) {
+                NavigableSet<IndexedBook> ordered = sortedDocuments.get(sort);
+                Iterable<IndexedBook> tail = probe == null ? ordered : ordered.tailSet(probe.doc(), false);
+                hits = new ArrayList<>(limit + 1);
+                for (IndexedBook doc : tail) {
+                    if (hits.size() > limit) {
+                        break;
+                    }
+                    hits.add(new Hit(doc, 0.0));
+                }
+                total = documents.size();
+            } else {
+                hits = topHits(scores, probe, limit + 1, comparator(sort.toSort()));
+                total = scores.size();
+            }
+            boolean more = hits.size() > limit;
+            List<Hit> page = more ? hits.subList(0, limit) : hits;
+            List<Long> ids = page.stream().map(h -> h.doc().id).toList();
+            BookCursor next = more ? cursorAt(sort, page.get(page.size() - 1)) : null;
+            return new SearchSlice(ids, next, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // null = brak kryteriów, pasuje cały katalog
+    private Map<Long, Double> match(String title, String author, String keyword) {
+        Map<Long, Double> scores = null;
+        scores = restrict(scores, title, List.of(Field.TITLE));
+        scores = restrict(scores, author, List.of(Field.AUTHOR));
+        scores = restrict(scores, keyword, List.of(Field.GENRE, Field.PUBLISHER));
+        return scores;
+    }
+
+    // Bez filtrów i sortowania wg trafności wszystkie wyniki mają wynik 0, więc porządek to samo ID
+    private BookSort presorted(Sort sort) {
+        if (sort.isUnsorted()) {
+            return BookSort.RELEVANCE;
+        }
+        for (BookSort candidate : BookSort.values()) {
+            if (candidate.toSort().equals(sort)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Płytkie strony przechodzą drzewo od początku; głębokie czytają wycinek listy pozycji w O(rozmiar strony)
+    private List<Long> presortedPage(BookSort sort, int from, int to) {
+        if (from < DEEP_PAGE_OFFSET) {
+            return sortedDocuments.get(sort).stream().skip(from).limit(to - from).map(doc -> doc.id).toList();
+        }
+        List<IndexedBook> byPosition = positions.computeIfAbsent(sort, s -> List.copyOf(sortedDocuments.get(s)));
+        return byPosition.subList(from, to).stream().map(doc -> doc.id).toList();
+    }
+
+    // Pierwsze k trafień (opcjonalnie tylko za kursorem) kopcem rozmiaru k: O(M log k) zamiast sortowania M wyników
+    private List<Hit> topHits(Map<Long, Double> scores, Hit after, int k, Comparator<Hit> comparator) {
+        if (k <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Hit> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, comparator.reversed());
+        if (scores == null) {
+            for (IndexedBook doc : documents.values()) {
+                offer(heap, new Hit(doc, 0.0), after, k, comparator);
+            }
+        } else {
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                offer(heap, new Hit(documents.get(entry.getKey()), entry.getValue()), after, k, comparator);
+            }
+        }
+        List<Hit> top = new ArrayList<>(heap);
+        top.sort(comparator);
+        return top;
+    }
+
+    private static void offer(PriorityQueue<Hit> heap, Hit hit, Hit after, int k, Comparator<Hit> comparator) {
+        if (after != null && comparator.compare(hit, after) <= 0) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(hit);
+        } else if (comparator.compare(hit, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(hit);
+        }
+    }
+
+    private BookCursor cursorAt(BookSort sort, Hit hit) {
+        IndexedBook doc = hit.doc();
+        return switch (sort) {
+            case TITLE -> BookCursor.of(sort, doc.id, doc.title);
+            case RATING -> BookCursor.of(sort, doc.id, doc.avgRating == null ? 0.0 : doc.avgRating);
+            case YEAR -> BookCursor.of(sort, doc.id, doc.yearPublished);
+            case RELEVANCE -> BookCursor.of(sort, doc.id, hit.score());
+        };
+    }
+
+    private Hit probe(BookCursor cursor) {
+        BookSort sort = cursor.sort();
+        IndexedBook doc = new IndexedBook(cursor.id(),
+            sort == BookSort.TITLE ? cursor.titleKey() : null,
+            null,
+            sort == BookSort.RATING ? cursor.numericKey() : null,
+            sort == BookSort.YEAR ? (int) cursor.numericKey() : 0);
+        return new Hit(doc, sort == BookSort.RELEVANCE ? cursor.numericKey() : 0.0);
+    }
+
+    // Każdy token zapytania musi pasować (prefiksowo) do któregoś z pól - tak jak AND w starym zapytaniu
+    private Map<Long, Double> restrict(Map<Long, Double> current, String text, List<Field> fields) {
+        List<String> terms = TextAnalyzer.tokenize(text);
+        if (terms.isEmpty()) {
+            return current;
+        }
+        Map<Long, Double> result = current;
+        for (String term : terms) {
+            Map<Long, Double> termScores = new HashMap<>();
+            for (Field field : fields) {
+                NavigableMap<String, Set<Long>> fieldPostings = postings.get(field);
+                for (Map.Entry<String, Set<Long>> entry : fieldPostings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                    double weight = field.boost * (entry.getKey().equals(term) ? EXACT_TERM_BONUS : 1.0);
+                    for (Long id : entry.getValue()) {
+                        termScores.merge(id, weight, Math::max);
+                    }
+                }
+            }
+            if (termScores.isEmpty()) {
+                fuzzyMatch(term, fields, termScores);
+            }
+            if (result == null) {
+                result = termScores;
+            } else {
+                Map<Long, Double> intersection = new HashMap<>();
+                for (Map.Entry<Long, Double> entry : result.entrySet()) {
+                    Double termScore = termScores.get(entry.getKey());
+                    if (termScore != null) {
+                        intersection.put(entry.getKey(), entry.getValue() + termScore);
+                    }
+                }
+                result = intersection;
+            }
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    // Literówki: termy ze słownika pola o podobnych trigramach, z wagą obniżoną o podobieństwo
+    private void fuzzyMatch(String term, List<Field> fields, Map<Long, Double> termScores) {
+        for (Field field : fields) {
+            NavigableMap<String, Set<Long>> fieldPostings = postings.get(field);
+            for (TrigramIndex.Match<String> match : vocabulary.get(field).search(term, FUZZY_THRESHOLD, FUZZY_EXPANSIONS)) {
+                double weight = field.boost * match.jaccard();
+                for (Long id : fieldPostings.getOrDefault(match.key(), Set.of())) {
+                    termScores.merge(id, weight, Math::max);
+                }
+            }
+        }
+    }
+
+    private Comparator<Hit> comparator(Sort sort) {
+        if (sort.isUnsorted()) {
+            Comparator<Hit> byScore = Comparator.comparingDouble(Hit::score);
+            return byScore.reversed().thenComparing(h -> h.doc().id);
+        }
+        return Comparator.comparing(Hit::doc, documentComparator(sort));
+    }
+
+    private static Comparator<IndexedBook> documentComparator(Sort sort) {
+        Comparator<IndexedBook> byId = Comparator.comparing(doc -> doc.id);
+        Comparator<IndexedBook> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<IndexedBook> next = switch (order.getProperty()) {
+                case "title" -> Comparator.comparing(doc -> doc.title == null ? "" : doc.title, String.CASE_INSENSITIVE_ORDER);
+                case "avgRating" -> Comparator.comparingDouble(doc -> doc.avgRating == null ? 0.0 : doc.avgRating);
+                case "yearPublished" -> Comparator.comparingInt(doc -> doc.yearPublished);
+                default -> throw new IllegalArgumentException("Nieobsługiwane sortowanie: " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    private void addDocument(IndexedBook doc) {
+        documents.put(doc.id, doc);
+        sortedDocuments.values().forEach(ordered -> ordered.add(doc));
+        positions.clear();
+        addTerms(Field.TITLE, doc.id, single(doc.title));
+        addTerms(Field.AUTHOR, doc.id, doc.authorNames);
+        addTerms(Field.GENRE, doc.id, doc.genreNames);
+        addTerms(Field.PUBLISHER, doc.id, single(doc.publisher));
+    }
+
+    private void addTerms(Field field, Long id, Collection<String> values) {
+        NavigableMap<String, Set<Long>> fieldPostings = postings.get(field);
+        for (String value : values) {
+            for (String term : TextAnalyzer.tokenize(value)) {
+                fieldPostings.computeIfAbsent(term, t -> {
+                    vocabulary.get(field).add(t, t);
+                    return new HashSet<>();
+                }).add(id);
+            }
+        }
+    }
+
+    private void removeDocument(Long id) {
+        IndexedBook doc = documents.remove(id);
+        if (doc == null) {
+            return;
+        }
+        sortedDocuments.values().forEach(ordered -> ordered.remove(doc));
+        positions.clear();
+        removeTerms(Field.TITLE, id, single(doc.title));
+        removeTerms(Field.AUTHOR, id, doc.authorNames);
+        removeTerms(Field.GENRE, id, doc.genreNames);
+        removeTerms(Field.PUBLISHER, id, single(doc.publisher));
+    }
+
+    private void removeTerms(Field field, Long id, Collection<String> values) {
+        NavigableMap<String, Set<Long>> fieldPostings = postings.get(field);
+        for (String value : values) {
+            for (String term : TextAnalyzer.tokenize(value)) {
+                Set<Long> ids = fieldPostings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        fieldPostings.remove(term);
+                        vocabulary.get(field).remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> single(String value) {
+        return value == null ? List.of() : List.of(value);
+    }
+
+    private IndexedBook toDocument(Book book) {
+        IndexedBook doc = new IndexedBook(book.getId(), book.getTitle(), book.getPublisher(),
+            book.getAvgRating(), book.getYearPublished());
+        if (book.getAuthors() != null) {
+            for (Author author : book.getAuthors()) {
+                doc.authorNames.add(author.getFullName());
+            }
+        }
+        if (book.getGenres() != null) {
+            for (Genre genre : book.getGenres()) {
+                doc.genreNames.add(genre.getName());
+            }
+        }
+        return doc;
+    }
+
+    private record Hit(IndexedBook doc, double score) {
+    }
+
+    public record SearchSlice(List<Long> ids, BookCursor next, long total) {
+    }
+
+    static class IndexedBook {
+        final Long id;
+        final String title;
+        final String publisher;
+        Double avgRating;
+        final int yearPublished;
+        final List<String> authorNames = new ArrayList<>();
+        final List<String> genreNames = new ArrayList<>();
+
+        IndexedBook(Long id, String title, String publisher, Double avgRating, int yearPublished) {
+            this.id = id;
+            this.title = title;
+            this.publisher = publisher;
+            this.avgRating = avgRating;
+            this.yearPublished = yearPublished;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ug.project.library.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Wspólna analiza tekstu dla indeksów: małe litery, bez polskich znaków (ą->a, ł->l, ż->z...), trigramy
+public final class TextAnalyzer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextAnalyzer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT)
+            .replace('ł', 'l')
+            .replace('đ', 'd')
+            .replace('ø', 'o');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    // Jak w pg_trgm: każde słowo dopełnione dwiema spacjami z przodu i jedną z tyłu
+    public static Set<String> trigrams(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String token : tokenize(text)) {
+            String padded = "  " + token + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(padded.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package ug.project.library.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indeks trigramów: trigram -> klucze. Podobieństwo liczymy tylko dla kluczy,
+ * które mają choć jeden wspólny trigram z zapytaniem, więc nigdy nie przeglądamy całości.
+ * Klasa nie jest bezpieczna wątkowo - synchronizację zapewnia właściciel.
+ */
+public class TrigramIndex<K> {
+
+    private final Map<String, Set<K>> postings = new HashMap<>();
+    private final Map<K, Set<String>> trigramsByKey = new HashMap<>();
+
+    public void add(K key, String text) {
+        remove(key);
+        Set<String> trigrams = TextAnalyzer.trigrams(text);
+        if (trigrams.isEmpty()) {
+            return;
+        }
+        trigramsByKey.put(key, trigrams);
+        for (String trigram : trigrams) {
+            postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(key);
+        }
+    }
+
+    public void remove(K key) {
+        Set<String> trigrams = trigramsByKey.remove(key);
+        if (trigrams == null) {
+            return;
+        }
+        for (String trigram : trigrams) {
+            Set<K> keys = postings.get(trigram);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        trigramsByKey.clear();
+    }
+
+    public int size() {
+        return trigramsByKey.size();
+    }
+
+    /**
+     * Podobieństwo = część trigramów zapytania obecna w kluczu (jak word_similarity w pg_trgm),
+     * remisy rozstrzyga klasyczny współczynnik Jaccarda.
+     */
+    public List<Match<K>> search(String query, double threshold, int limit) {
+        Set<String> queryTrigrams = TextAnalyzer.trigrams(query);
+        if (queryTrigrams.isEmpty()) {
+            return List.of();
+        }
+        Map<K, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<K> keys = postings.get(trigram);
+            if (keys != null) {
+                for (K key : keys) {
+                    shared.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Match<K>> matches = new ArrayList<>();
+        for (Map.Entry<K, Integer> entry : shared.entrySet()) {
+            int common = entry.getValue();
+            double similarity = (double) common / queryTrigrams.size();
+            if (similarity >= threshold) {
+                int union = queryTrigrams.size() + trigramsByKey.get(entry.getKey()).size() - common;
+                matches.add(new Match<>(entry.getKey(), similarity, (double) common / union));
+            }
+        }
+        matches.sort(Comparator.<Match<K>>comparingDouble(Match::similarity)
+            .thenComparingDouble(Match::jaccard)
+            .reversed());
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    public record Match<K>(K key, double similarity, double jaccard) {
+    }
+}
@@ -0,0 +1,135 @@
+package ug.project.library.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ug.project.library.dto.TokenResponse;
+import ug.project.library.exceptions.InvalidTokenException;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.service.LibraryUserPrincipal;
+
+/**
+ * Tokeny dostępowe API podpisywane HMAC-SHA256: {@code base64url(treść).base64url(podpis)}.
+ * Treść to {@code typ|id|rola|wygaśnięcie|login}, więc weryfikacja to samo liczenie podpisu - bez bazy i sesji.
+ * Wszystkie węzły muszą dzielić ten sam sekret ({@code library.security.token.secret}).
+ */
+@Service
+public class AccessTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String ACCESS = "a";
+    private static final String REFRESH = "r";
+
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+    private final Clock clock;
+    // Mac nie jest bezpieczny wątkowo, a jego tworzenie kosztuje więcej niż samo liczenie podpisu
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @Autowired
+    public AccessTokenService(@Value("${library.security.token.secret:}") String secret,
+                              @Value("${library.security.token.access-ttl:PT15M}") Duration accessTtl,
+                              @Value("${library.security.token.refresh-ttl:P7D}") Duration refreshTtl) {
+        this(secret, accessTtl, refreshTtl, Clock.systemUTC());
+    }
+
+    AccessTokenService(String secret, Duration accessTtl, Duration refreshTtl, Clock clock) {
+        this.key = new SecretKeySpec(resolveSecret(secret), ALGORITHM);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        this.clock = clock;
+        newMac();
+    }
+
+    public TokenResponse issue(LibraryUserPrincipal principal) {
+        long now = clock.instant().getEpochSecond();
+        return new TokenResponse(
+            sign(ACCESS, principal, now + accessTtl.toSeconds()),
+            sign(REFRESH, principal, now + refreshTtl.toSeconds()),
+            accessTtl.toSeconds());
+    }
+
+    public LibraryUserPrincipal verifyAccessToken(String token) {
+        return verify(ACCESS, token);
+    }
+
+    public LibraryUserPrincipal verifyRefreshToken(String token) {
+        return verify(REFRESH, token);
+    }
+
+    private String sign(String type, LibraryUserPrincipal principal, long expiresAt) {
+        String payload = String.join("|", type, principal.getUserId().toString(), principal.getRole().name(),
+            Long.toString(expiresAt), principal.getUsername());
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(mac(payloadBytes));
+    }
+
+    private LibraryUserPrincipal verify(String expectedType, String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot < 0) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        if (!MessageDigest.isEqual(mac(payloadBytes), signature)) {
+            throw new InvalidTokenException("Invalid token signature");
+        }
+
+        String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 5);
+        if (parts.length != 5 || !expectedType.equals(parts[0])) {
+            throw new InvalidTokenException("Unexpected token type");
+        }
+        if (Long.parseLong(parts[3]) <= clock.instant().getEpochSecond()) {
+            throw new InvalidTokenException("Token expired");
+        }
+        return new LibraryUserPrincipal(Long.valueOf(parts[1]), parts[4], "", UserRole.valueOf(parts[2]));
+    }
+
+    private byte[] mac(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC not available", e);
+        }
+    }
+
+    private static byte[] resolveSecret(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        // Bez wspólnego sekretu tokeny działają tylko na tym węźle i tracą ważność po restarcie
+        log.warn("library.security.token.secret is not set - using a random per-process key");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
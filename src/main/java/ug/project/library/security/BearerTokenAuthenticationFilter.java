@@ -0,0 +1,56 @@
+package ug.project.library.security;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import ug.project.library.exceptions.InvalidTokenException;
+import ug.project.library.service.LibraryUserPrincipal;
+
+// Uwierzytelnia żądanie API nagłówkiem "Authorization: Bearer <token>". Brak nagłówka oznacza żądanie anonimowe,
+// a o dostępie decydują reguły łańcucha; zły lub przeterminowany token kończy żądanie odpowiedzią 401.
+public class BearerTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+
+    public BearerTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        LibraryUserPrincipal principal;
+        try {
+            principal = accessTokenService.verifyAccessToken(header.substring(PREFIX.length()).trim());
+        } catch (InvalidTokenException e) {
+            SecurityContextHolder.clearContext();
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
+            return;
+        }
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(
+            UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,112 @@
+package ug.project.library.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import ug.project.library.exceptions.PasswordHashingBusyException;
+
+// BCrypt celowo zjada ~100 ms CPU na każde logowanie i rejestrację. Liczymy go na osobnej, ograniczonej puli:
+// najwyżej `threads` haszowań naraz i `queueCapacity` oczekujących, a nadmiar od razu dostaje odmowę,
+// zamiast zajmować kolejne wątki Tomcata i blokować przeglądanie katalogu.
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration maxWait) {
+        this.delegate = delegate;
+        this.maxWait = maxWait;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public HashingMetrics getMetrics() {
+        long count = completed.get();
+        return new HashingMetrics(count, rejected.get(), timedOut.get(), executor.getQueue().size(),
+            executor.getActiveCount(), count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalHashNanos.get() / count),
+            TimeUnit.NANOSECONDS.toMillis(maxHashNanos.get()));
+    }
+
+    private <T> T hash(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timed(task));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new PasswordHashingBusyException();
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            throw new PasswordHashingBusyException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private <T> T timed(Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        T result = task.call();
+        long elapsed = System.nanoTime() - start;
+        completed.incrementAndGet();
+        totalHashNanos.addAndGet(elapsed);
+        maxHashNanos.accumulateAndGet(elapsed, Math::max);
+        return result;
+    }
+
+    public record HashingMetrics(long completed, long rejected, long timedOut, int queueDepth, int activeThreads,
+                                 long avgHashMillis, long maxHashMillis) {
+    }
+}
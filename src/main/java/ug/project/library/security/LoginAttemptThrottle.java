@@ -0,0 +1,138 @@
+package ug.project.library.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import ug.project.library.exceptions.LoginThrottledException;
+
+// Licznik nieudanych logowań w pamięci, osobno per login i per adres IP, w stałym oknie czasowym.
+// Zablokowana próba jest odrzucana przed sprawdzeniem hasła, więc zgadywanie nie kosztuje nas haszowania BCrypt.
+// Stan jest lokalny dla węzła - przy kilku instancjach limit obowiązuje na każdej z nich osobno.
+// Mapa liczników ma twardy limit: po przekroczeniu wypada najdawniej używany klucz, więc zasypywanie
+// losowymi loginami nie zwiększa pamięci ani kosztu pojedynczej próby. Licznik IP atakującego jest
+// odświeżany każdą jego próbą, więc to nie on wypada z mapy.
+@Component
+public class LoginAttemptThrottle {
+
+    static final int MAX_USER_FAILURES = 5;
+    static final int MAX_IP_FAILURES = 20;
+    static final Duration WINDOW = Duration.ofMinutes(15);
+    static final int MAX_TRACKED_KEYS = 10_000;
+
+    // kolejność dostępu - najstarszy wpis jest pierwszy do usunięcia; dostęp synchronizowany na mapie
+    private final Map<String, Attempts> failures = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Attempts> eldest) {
+            return size() > MAX_TRACKED_KEYS;
+        }
+    };
+    private final AtomicLong blocked = new AtomicLong();
+    private final Clock clock;
+
+    @Autowired
+    public LoginAttemptThrottle() {
+        this(Clock.systemUTC());
+    }
+
+    LoginAttemptThrottle(Clock clock) {
+        this.clock = clock;
+    }
+
+    // Sprawdzenie limitu i zaliczenie próby w jednym bloku synchronized - równoległe żądania z tym samym loginem
+    // nie przejdą wszystkie przed zapisaniem pierwszej porażki. Próba liczy się jako nieudana, dopóki
+    // recordSuccess albo release jej nie zwróci.
+    public void reserveAttempt(String username, String ip) {
+        long now = clock.millis();
+        String userKey = userKey(username);
+        String ipKey = ipKey(ip);
+        synchronized (failures) {
+            long retryAfter = Math.max(retryAfterMillis(userKey, MAX_USER_FAILURES, now),
+                retryAfterMillis(ipKey, MAX_IP_FAILURES, now));
+            if (retryAfter > 0) {
+                blocked.incrementAndGet();
+                throw new LoginThrottledException(Math.max(1, Duration.ofMillis(retryAfter).toSeconds()));
+            }
+            increment(userKey, now);
+            increment(ipKey, now);
+        }
+    }
+
+    // Udane logowanie zeruje licznik loginu, ale nie adresu - inaczej jedno własne konto odblokowywałoby zgadywanie cudzych.
+    // Z licznika adresu zdejmujemy tylko zarezerwowaną próbę.
+    public void recordSuccess(String username, String ip) {
+        long now = clock.millis();
+        String userKey = userKey(username);
+        synchronized (failures) {
+            if (userKey != null) {
+                failures.remove(userKey);
+            }
+            refund(ipKey(ip), now);
+        }
+    }
+
+    // Próba zakończona bez werdyktu o haśle (np. wyłączone konto, przeciążone haszowanie) nie jest porażką
+    public void release(String username, String ip) {
+        long now = clock.millis();
+        synchronized (failures) {
+            refund(userKey(username), now);
+            refund(ipKey(ip), now);
+        }
+    }
+
+    public ThrottleMetrics getMetrics() {
+        synchronized (failures) {
+            return new ThrottleMetrics(failures.size(), blocked.get());
+        }
+    }
+
+    // wywoływane pod blokadą na mapie
+    private long retryAfterMillis(String key, int limit, long now) {
+        if (key == null) {
+            return 0;
+        }
+        Attempts attempts = failures.get(key);
+        if (attempts == null || attempts.expired(now) || attempts.count() < limit) {
+            return 0;
+        }
+        return attempts.windowStart() + WINDOW.toMillis() - now;
+    }
+
+    private void increment(String key, long now) {
+        if (key != null) {
+            failures.compute(key, (k, attempts) -> attempts == null || attempts.expired(now)
+                ? new Attempts(now, 1)
+                : new Attempts(attempts.windowStart(), attempts.count() + 1));
+        }
+    }
+
+    private void refund(String key, long now) {
+        if (key != null) {
+            failures.computeIfPresent(key, (k, attempts) -> attempts.expired(now) || attempts.count() <= 1
+                ? null
+                : new Attempts(attempts.windowStart(), attempts.count() - 1));
+        }
+    }
+
+    private static String userKey(String username) {
+        return username == null || username.isBlank() ? null : "user:" + username.toLowerCase();
+    }
+
+    private static String ipKey(String ip) {
+        return ip == null || ip.isBlank() ? null : "ip:" + ip;
+    }
+
+    private record Attempts(long windowStart, int count) {
+        boolean expired(long now) {
+            return now - windowStart >= WINDOW.toMillis();
+        }
+    }
+
+    public record ThrottleMetrics(int trackedKeys, long blockedAttempts) {
+    }
+}
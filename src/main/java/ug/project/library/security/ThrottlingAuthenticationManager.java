@@ -0,0 +1,36 @@
+package ug.project.library.security;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+// Wspólny punkt wejścia dla logowania formularzem i /api/auth/token - obie ścieżki podlegają tym samym limitom
+public class ThrottlingAuthenticationManager implements AuthenticationManager {
+
+    private final AuthenticationManager delegate;
+    private final LoginAttemptThrottle throttle;
+
+    public ThrottlingAuthenticationManager(AuthenticationManager delegate, LoginAttemptThrottle throttle) {
+        this.delegate = delegate;
+        this.throttle = throttle;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        String username = authentication.getName();
+        String ip = authentication.getDetails() instanceof WebAuthenticationDetails details ? details.getRemoteAddress() : null;
+        throttle.reserveAttempt(username, ip);
+        try {
+            Authentication result = delegate.authenticate(authentication);
+            throttle.recordSuccess(username, ip);
+            return result;
+        } catch (BadCredentialsException e) {
+            // zarezerwowana próba zostaje jako porażka
+            throw e;
+        } catch (RuntimeException e) {
+            throttle.release(username, ip);
+            throw e;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package ug.project.library.service;
 
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import ug.project.library.dto.UserRegistrationDto;
+import ug.project.library.security.AccessTokenService;
+import ug.project.library.security.BoundedPasswordEncoder;
+import ug.project.library.security.LoginAttemptThrottle;
 import ug.project.library.exceptions.EmailAlreadyExistsException;
+import ug.project.library.exceptions.InvalidTokenException;
 import ug.project.library.exceptions.UserNotFoundException;
 import ug.project.library.exceptions.UsernameAlreadyExistsException;
 import ug.project.library.model.entity.User;
@@ -15,13 +24,43 @@ import ug.project.library.dto.*;
 
 @Service
 public class AuthService {
+
+    private static final String CURRENT_USER_ATTRIBUTE = AuthService.class.getName() + ".currentUser";
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AuthenticationManager authenticationManager;
+    private final AccessTokenService accessTokenService;
+    private final LoginAttemptThrottle loginAttemptThrottle;
     
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       AuthenticationManager authenticationManager, AccessTokenService accessTokenService,
+                       LoginAttemptThrottle loginAttemptThrottle) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.authenticationManager = authenticationManager;
+        this.accessTokenService = accessTokenService;
+        this.loginAttemptThrottle = loginAttemptThrottle;
+    }
+
+    // Logowanie klienta API: hasło sprawdzane raz, dalej klient posługuje się podpisanym tokenem.
+    // Adres klienta trafia do szczegółów uwierzytelnienia, żeby limit prób per IP działał jak przy formularzu.
+    public TokenResponse issueTokens(TokenRequest request, String clientAddress) {
+        UsernamePasswordAuthenticationToken attempt =
+            UsernamePasswordAuthenticationToken.unauthenticated(request.getUsername(), request.getPassword());
+        attempt.setDetails(new WebAuthenticationDetails(clientAddress, null));
+        Authentication auth = authenticationManager.authenticate(attempt);
+        return accessTokenService.issue((LibraryUserPrincipal) auth.getPrincipal());
+    }
+
+    // Odświeżenie to jedyny moment, w którym token API trafia do bazy - zmiana roli lub usunięcie konta
+    // zaczyna obowiązywać najpóźniej po wygaśnięciu bieżącego tokenu dostępowego
+    public TokenResponse refreshTokens(String refreshToken) {
+        LibraryUserPrincipal principal = accessTokenService.verifyRefreshToken(refreshToken);
+        User user = userRepository.findById(principal.getUserId())
+            .orElseThrow(() -> new InvalidTokenException("User no longer exists"));
+        return accessTokenService.issue(
+            new LibraryUserPrincipal(user.getId(), user.getUsername(), "", user.getUserRole()));
     }
 
     private String getCurrentUsername(){
@@ -34,22 +73,54 @@ public class AuthService {
         return username;
 
     }
+
+    public AuthMetricsDto getAuthMetrics() {
+        BoundedPasswordEncoder.HashingMetrics hashing =
+            passwordEncoder instanceof BoundedPasswordEncoder bounded ? bounded.getMetrics() : null;
+        return new AuthMetricsDto(hashing, loginAttemptThrottle.getMetrics());
+    }
+
+    // null dla anonimowego żądania
+    public LibraryUserPrincipal getCurrentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof LibraryUserPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
     
+    // ID z principala ustawionego przy logowaniu - bez zapytania do bazy
     public Long getCurrentUserId() {
-        String username = getCurrentUsername();
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new UserNotFoundException(username));
-        
-        return user.getId();
+        LibraryUserPrincipal principal = getCurrentPrincipal();
+        if (principal != null) {
+            return principal.getUserId();
+        }
+        return getCurrentUser().getId();
     }
 
+    // Pełna encja tylko tam, gdzie jest potrzebna; w obrębie jednego żądania HTTP ładowana raz
     public User getCurrentUser() {
-        String username = getCurrentUsername() ;
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new UserNotFoundException(username));
-        
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user) {
+            return user;
+        }
+        User user = loadCurrentUser();
+        if (request != null) {
+            request.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
         return user;
+    }
 
+    private User loadCurrentUser() {
+        LibraryUserPrincipal principal = getCurrentPrincipal();
+        if (principal != null) {
+            return userRepository.findById(principal.getUserId())
+                .orElseThrow(() -> new UserNotFoundException(principal.getUserId()));
+        }
+        String username = getCurrentUsername();
+        return userRepository.findByUsername(username)
+            .orElseThrow(() -> new UserNotFoundException(username));
     }
 
     private void verifyRegistrationData(UserRegistrationDto userRegistrationDto) {
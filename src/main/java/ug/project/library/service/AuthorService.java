@@ -8,8 +8,15 @@ import ug.project.library.exceptions.BookNotFoundException;
 import ug.project.library.model.entity.Author;
 import ug.project.library.model.entity.Author;
 import ug.project.library.repository.AuthorRepository;
+import ug.project.library.search.AuthorSearchIndex;
+import ug.project.library.search.BookSearchIndex;
+import ug.project.library.search.TrigramIndex;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,9 +25,13 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class AuthorService {
     private final AuthorRepository authorRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final AuthorSearchIndex authorSearchIndex;
 
-    public AuthorService(AuthorRepository authorRepository) {
+    public AuthorService(AuthorRepository authorRepository, BookSearchIndex bookSearchIndex, AuthorSearchIndex authorSearchIndex) {
         this.authorRepository = authorRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.authorSearchIndex = authorSearchIndex;
     }
 
 
@@ -62,11 +73,26 @@ public class AuthorService {
                 Author author = new Author();
                 author.setName(name);
                 author.setSurname(surname);
-                return authorRepository.save(author);
+                Author savedAuthor = authorRepository.save(author);
+                authorSearchIndex.index(savedAuthor.getId(), savedAuthor.getFullName());
+                return savedAuthor;
             });
     }
 
 
+    @Transactional(readOnly = true)
+    public List<AuthorDto> searchAuthors(String query, int limit) {
+        List<Long> ids = authorSearchIndex.search(query, limit).stream()
+            .map(TrigramIndex.Match::key)
+            .toList();
+        Map<Long, Author> authorsById = authorRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Author::getId, Function.identity()));
+        return ids.stream()
+            .filter(authorsById::containsKey)
+            .map(id -> mapAuthorToDto(authorsById.get(id)))
+            .toList();
+    }
+
     @Transactional(readOnly = true)
     public AuthorDto getAuthorDtoById(Long id){
         Author author = authorRepository.findById(id).orElseThrow(() -> new AuthorNotFoundException(id));
@@ -77,6 +103,7 @@ public class AuthorService {
     public AuthorDto addAuthor(AuthorDto authorDto){
         Author author  = mapDtoToAuthor(authorDto);
         Author savedAuthor = authorRepository.save(author);
+        authorSearchIndex.index(savedAuthor.getId(), savedAuthor.getFullName());
         return mapAuthorToDto(savedAuthor);
     }
 
@@ -86,6 +113,10 @@ public class AuthorService {
 
         author.setName(authorDto.getName());
         author.setSurname(authorDto.getSurname());
+        authorSearchIndex.index(author.getId(), author.getFullName());
+        if (author.getBooks() != null) {
+            author.getBooks().forEach(bookSearchIndex::index);
+        }
         return mapAuthorToDto(author);
     }
 
@@ -95,7 +126,7 @@ public class AuthorService {
             throw new AuthorNotFoundException(id);
         }
         authorRepository.deleteById(id);
-        
+        authorSearchIndex.remove(id);
     }
 
 
@@ -0,0 +1,103 @@
+package ug.project.library.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ug.project.library.dao.ReservationDao;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.transaction.AfterCommit;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Spodziewany zwrot" niedostępnej książki - najwcześniejszy termin, w którym może wrócić egzemplarz:
+ * termin zwrotu wypożyczenia albo termin potwierdzenia oczekującej rezerwacji.
+ * Terminy każdej książki trzymamy posortowane w pamięci i poprawiamy przy zmianach statusu (po commicie),
+ * więc strona książki czyta prognozę bez agregacji rezerwacji. Przy starcie stan wczytujemy z bazy.
+ */
+@Service
+public class AvailabilityForecast {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityForecast.class);
+
+    private final ReservationDao reservationDao;
+    private final Map<Long, BookDeadlines> books = new ConcurrentHashMap<>();
+
+    public AvailabilityForecast(ReservationDao reservationDao) {
+        this.reservationDao = reservationDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, BookDeadlines> loaded = new HashMap<>();
+        reservationDao.forEachForecastDeadline(rs -> loaded
+            .computeIfAbsent(rs.getLong("book_id"), id -> new BookDeadlines())
+            .put(rs.getLong("id"), rs.getTimestamp("deadline").toLocalDateTime()));
+        books.clear();
+        books.putAll(loaded);
+        log.info("Availability forecast built: {} books", loaded.size());
+    }
+
+    // Woła się przy każdej zmianie rezerwacji; status null oznacza usuniętą rezerwację.
+    // Potwierdzona rezerwacja nie ma terminu, po którym egzemplarz wraca, więc wypada z prognozy.
+    public void reservationChanged(Long bookId, Long reservationId, ReservationStatus status, LocalDateTime deadline) {
+        boolean tracked = deadline != null
+            && (status == ReservationStatus.OCZEKUJĄCA || status == ReservationStatus.WYPOŻYCZONA);
+        AfterCommit.run(() -> {
+            if (tracked) {
+                books.compute(bookId, (id, deadlines) -> {
+                    BookDeadlines updated = deadlines != null ? deadlines : new BookDeadlines();
+                    updated.put(reservationId, deadline);
+                    return updated;
+                });
+            } else {
+                books.computeIfPresent(bookId, (id, deadlines) -> deadlines.remove(reservationId) ? null : deadlines);
+            }
+        });
+    }
+
+    public Optional<LocalDateTime> expectedBack(Long bookId) {
+        BookDeadlines deadlines = books.get(bookId);
+        return deadlines == null ? Optional.empty() : deadlines.earliest();
+    }
+
+    // Zmiany jednej książki serializuje ConcurrentHashMap.compute, odczyt synchronizuje się na obiekcie
+    private static final class BookDeadlines {
+
+        private final Map<Long, LocalDateTime> byReservation = new HashMap<>();
+        private final TreeSet<Entry> ordered = new TreeSet<>(
+            Comparator.comparing(Entry::deadline).thenComparing(Entry::reservationId));
+
+        synchronized void put(Long reservationId, LocalDateTime deadline) {
+            LocalDateTime previous = byReservation.put(reservationId, deadline);
+            if (previous != null) {
+                ordered.remove(new Entry(previous, reservationId));
+            }
+            ordered.add(new Entry(deadline, reservationId));
+        }
+
+        // zwraca true, gdy książka nie ma już żadnego terminu
+        synchronized boolean remove(Long reservationId) {
+            LocalDateTime previous = byReservation.remove(reservationId);
+            if (previous != null) {
+                ordered.remove(new Entry(previous, reservationId));
+            }
+            return ordered.isEmpty();
+        }
+
+        synchronized Optional<LocalDateTime> earliest() {
+            return ordered.isEmpty() ? Optional.empty() : Optional.of(ordered.first().deadline());
+        }
+    }
+
+    private record Entry(LocalDateTime deadline, Long reservationId) {
+    }
+}
@@ -3,8 +3,12 @@ package ug.project.library.service;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -13,13 +17,19 @@ import org.springframework.transaction.annotation.Transactional;
 import ug.project.library.dto.AuthorDto;
 import ug.project.library.dto.GenreDto;
 import ug.project.library.dto.BookDto;
+import ug.project.library.dto.CursorPage;
 import ug.project.library.exceptions.*;
+import ug.project.library.live.LiveUpdateBus;
 import ug.project.library.model.entity.Author;
 import ug.project.library.model.entity.Book;
 import ug.project.library.model.entity.Genre;
+import ug.project.library.pagination.BookCursor;
+import ug.project.library.pagination.BookSort;
 import ug.project.library.repository.AuthorRepository;
 import ug.project.library.repository.BookRepository;
 import ug.project.library.repository.GenreRepository;
+import ug.project.library.search.BookSearchIndex;
+import ug.project.library.trending.TrendingBooks;
 
 import java.util.stream.Collectors;
 import ug.project.library.dao.*;
@@ -29,16 +39,24 @@ import ug.project.library.dao.*;
 
 public class BookService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final BookRepository bookRepository;
     private final BookDao bookDao;
     private final AuthorService authorService;
     private final GenreService genreService;
+    private final BookSearchIndex bookSearchIndex;
+    private final TrendingBooks trendingBooks;
+    private final LiveUpdateBus liveUpdateBus;
 
-    public BookService(BookRepository bookRepository, BookDao bookDao, AuthorService authorService, GenreService genreService) {
+    public BookService(BookRepository bookRepository, BookDao bookDao, AuthorService authorService, GenreService genreService, BookSearchIndex bookSearchIndex, TrendingBooks trendingBooks, LiveUpdateBus liveUpdateBus) {
         this.bookRepository = bookRepository;
         this.bookDao = bookDao;
         this.authorService = authorService;
         this.genreService = genreService;
+        this.bookSearchIndex = bookSearchIndex;
+        this.trendingBooks = trendingBooks;
+        this.liveUpdateBus = liveUpdateBus;
     }
 
     @Transactional(readOnly = true)
@@ -50,13 +68,17 @@ public class BookService {
 
     @Transactional(readOnly = true)
     public BookDto getBookDtoById(Long id){
-        Book book = getBookById(id);
-        return mapBookToDto(book);
+        List<Book> books = fetchWithAssociations(List.of(id));
+        if (books.isEmpty()) {
+            throw new BookNotFoundException(id);
+        }
+        return mapBookToDto(books.get(0));
     }
 
     @Transactional(readOnly = true)
     public Page<BookDto> getAllBooksDto(Pageable pageable){
         Page<Book> books = bookRepository.findAll(pageable);
+        fetchAssociations(books.getContent());
         Page<BookDto> booksDto = books.map(this::mapBookToDto);
         return booksDto;
 
@@ -65,6 +87,7 @@ public class BookService {
     @Transactional(readOnly = true)
     public List<BookDto> getTopRatedBooks(int limit){
         List<Book> books = bookRepository.findTopRatedBooks(PageRequest.of(0, limit));
+        fetchAssociations(books);
         return books.stream().map(book -> mapBookToDto(book)).collect(Collectors.toList());
     }
 
@@ -89,6 +112,7 @@ public class BookService {
         Book book = mapDtoToBook(bookDto);
         
         Book savedBook = bookRepository.save(book);
+        bookSearchIndex.index(savedBook);
         BookDto convertedBook = mapBookToDto(savedBook);
         return convertedBook;
     }
@@ -112,15 +136,14 @@ public class BookService {
         book.setTitle(bookDto.getTitle());
         book.setAuthors(authors);
         book.setGenres(genres);
-        if (bookDto.getAvgRating() != null) {
-            book.setAvgRating(bookDto.getAvgRating());
-        }
         book.setYearPublished(bookDto.getYearPublished());
         book.setPublisher(bookDto.getPublisher());
         book.setCoverImageUrl(bookDto.getCoverImageUrl());
         book.setQuantityAvailable(bookDto.getQuantityAvailable());
         
         Book updatedBook = bookRepository.save(book);
+        bookSearchIndex.index(updatedBook);
+        liveUpdateBus.availabilityChanged(updatedBook.getId());
         return mapBookToDto(updatedBook);
     }
 
@@ -130,6 +153,8 @@ public class BookService {
             throw new BookNotFoundException(id);
         }
         bookRepository.deleteById(id);
+        bookSearchIndex.remove(id);
+        trendingBooks.remove(id);
     }
 
 
@@ -146,9 +171,6 @@ public class BookService {
         book.setTitle(bookDto.getTitle());
         book.setAuthors(authors);
         book.setGenres(genres);
-        if (bookDto.getAvgRating() != null) {
-            book.setAvgRating(bookDto.getAvgRating()); 
-        }
         book.setYearPublished(bookDto.getYearPublished());
         book.setPublisher(bookDto.getPublisher());
         book.setCoverImageUrl(bookDto.getCoverImageUrl());
@@ -174,33 +196,114 @@ public class BookService {
         );
     }
 
-    private void validateBookAvailable(Book book ){
-        if (book.getQuantityAvailable() <= 0) {
-            throw new BookNotAvailableException(book.getTitle(), book.getId());
-        }
-    }
-    
-
+    // O dostępności decyduje wynik warunkowego UPDATE, nie stan encji, który mógł się już zestarzeć
     @Transactional
     public void deincrementQuantityAvailable(Book book){
-        validateBookAvailable(book);
-        bookDao.deincrementQuantityAvailable(book.getId());
+        if (bookDao.deincrementQuantityAvailable(book.getId()) == 0) {
+            throw new BookNotAvailableException(book.getTitle(), book.getId());
+        }
+        liveUpdateBus.availabilityChanged(book.getId());
     }
 
     @Transactional
     public void incrementQuantityAvailable(Book book){
         bookDao.incrementBookQuantity(book.getId());
+        liveUpdateBus.availabilityChanged(book.getId());
+    }
+
+    // Ranking z liczników w pamięci - baza tylko dociąga same książki po ID
+    @Transactional(readOnly = true)
+    public List<BookDto> getTrendingBooks(int limit) {
+        return findBooksInOrder(trendingBooks.topBookIds(limit)).stream()
+            .map(this::mapBookToDto)
+            .toList();
     }
 
     @Transactional(readOnly = true)
     public Page<BookDto> searchBooks(String title, String author, String keyword, Pageable pageable) {
-        Page<Book> books = bookRepository.searchBooks(
-            title != null && !title.isBlank() ? title : null,
-            author != null && !author.isBlank() ? author : null,
-            keyword != null && !keyword.isBlank() ? keyword : null,
-            pageable
-        );
-        return books.map(this::mapBookToDto);
+        Page<Long> hits = bookSearchIndex.search(title, author, keyword, pageable);
+        List<BookDto> books = findBooksInOrder(hits.getContent()).stream()
+            .map(this::mapBookToDto)
+            .toList();
+        return new PageImpl<>(books, pageable, hits.getTotalElements());
+    }
+
+    // Stronicowanie keyset: koszt kolejnej strony nie zależy od jej numeru, count(*) tylko na życzenie
+    @Transactional(readOnly = true)
+    public CursorPage<BookDto> getBooksAfter(BookSort sort, String cursor, int size, boolean withTotal) {
+        BookSort keySort = sort == BookSort.RELEVANCE ? BookSort.TITLE : sort;
+        BookCursor after = cursor == null || cursor.isBlank() ? null : BookCursor.decode(cursor, keySort);
+        int pageSize = clampPageSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Book> books = switch (keySort) {
+            case RATING -> after == null
+                ? bookRepository.findFirstByRating(limit)
+                : bookRepository.findAfterByRating(after.numericKey(), after.id(), limit);
+            case YEAR -> after == null
+                ? bookRepository.findFirstByYear(limit)
+                : bookRepository.findAfterByYear((int) after.numericKey(), after.id(), limit);
+            default -> after == null
+                ? bookRepository.findFirstByTitle(limit)
+                : bookRepository.findAfterByTitle(after.titleKey(), after.id(), limit);
+        };
+
+        boolean hasNext = books.size() > pageSize;
+        List<Book> content = hasNext ? books.subList(0, pageSize) : books;
+        fetchAssociations(content);
+        String nextCursor = hasNext ? cursorFor(keySort, content.get(pageSize - 1)).encode() : null;
+        Long total = withTotal ? bookRepository.count() : null;
+        return new CursorPage<>(content.stream().map(this::mapBookToDto).toList(), nextCursor, hasNext, total);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookDto> searchBooksAfter(String title, String author, String keyword,
+                                                BookSort sort, String cursor, int size, boolean withTotal) {
+        BookCursor after = cursor == null || cursor.isBlank() ? null : BookCursor.decode(cursor, sort);
+        BookSearchIndex.SearchSlice slice = bookSearchIndex.seek(title, author, keyword, sort, after, clampPageSize(size));
+        List<BookDto> books = findBooksInOrder(slice.ids()).stream()
+            .map(this::mapBookToDto)
+            .toList();
+        String nextCursor = slice.next() != null ? slice.next().encode() : null;
+        return new CursorPage<>(books, nextCursor, nextCursor != null, withTotal ? slice.total() : null);
+    }
+
+    // Rozmiar strony prosto z parametru żądania: 0 lub liczba ujemna dałyby błąd, a ogromna wczytałaby cały katalog
+    public static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private BookCursor cursorFor(BookSort sort, Book book) {
+        return switch (sort) {
+            case RATING -> BookCursor.of(sort, book.getId(), book.getAvgRating() != null ? book.getAvgRating() : 0.0);
+            case YEAR -> BookCursor.of(sort, book.getId(), book.getYearPublished());
+            default -> BookCursor.of(BookSort.TITLE, book.getId(), book.getTitle());
+        };
+    }
+
+    // mapBookToDto sięga do leniwych kolekcji - bez tego strona 20 książek to 1 + 40 zapytań
+    private void fetchAssociations(List<Book> books) {
+        if (!books.isEmpty()) {
+            fetchWithAssociations(books.stream().map(Book::getId).toList());
+        }
+    }
+
+    private List<Book> fetchWithAssociations(Collection<Long> ids) {
+        List<Book> books = bookRepository.findWithAuthorsByIdIn(ids);
+        bookRepository.findWithGenresByIdIn(ids);
+        return books;
+    }
+
+    private List<Book> findBooksInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Book> booksById = fetchWithAssociations(ids).stream()
+            .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+            .map(booksById::get)
+            .filter(Objects::nonNull)
+            .toList();
     }
 
 
@@ -3,13 +3,10 @@ package ug.project.library.service;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 import ug.project.library.model.entity.User;
 import ug.project.library.repository.UserRepository;
 
-import java.util.Collections;
-
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -24,10 +21,11 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return new org.springframework.security.core.userdetails.User(
+        return new LibraryUserPrincipal(
+            user.getId(),
             user.getUsername(),
-            user.getEncryptedPassword(), 
-            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getUserRole().name()))
+            user.getEncryptedPassword(),
+            user.getUserRole()
         );
     }
 }
\ No newline at end of file
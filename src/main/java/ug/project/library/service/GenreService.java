@@ -8,13 +8,16 @@ import ug.project.library.dto.GenreDto;
 import ug.project.library.exceptions.GenreNotFoundException;
 import ug.project.library.model.entity.Genre;
 import ug.project.library.repository.GenreRepository;
+import ug.project.library.search.BookSearchIndex;
 
 @Service
 public class GenreService {
     private final GenreRepository genreRepository;
+    private final BookSearchIndex bookSearchIndex;
 
-    public GenreService(GenreRepository genreRepository){
+    public GenreService(GenreRepository genreRepository, BookSearchIndex bookSearchIndex){
         this.genreRepository = genreRepository;
+        this.bookSearchIndex = bookSearchIndex;
     }
 
     @Transactional(readOnly = true)
@@ -42,7 +45,11 @@ public class GenreService {
         Genre genre = genreRepository.findById(id)
                 .orElseThrow(() -> new GenreNotFoundException(id));
         genre.setName(genreDto.getName());
-        return mapToDto(genreRepository.save(genre));
+        Genre savedGenre = genreRepository.save(genre);
+        if (savedGenre.getBooks() != null) {
+            savedGenre.getBooks().forEach(bookSearchIndex::index);
+        }
+        return mapToDto(savedGenre);
     }
 
     @Transactional
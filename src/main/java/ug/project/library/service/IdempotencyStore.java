@@ -0,0 +1,134 @@
+package ug.project.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ug.project.library.dao.IdempotencyKeyDao;
+import ug.project.library.dto.ReservationDto;
+import ug.project.library.exceptions.IdempotencyKeyConflictException;
+import ug.project.library.exceptions.InvalidIdempotencyKeyException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Klucze idempotencji rezerwacji: pamięć podręczna z TTL przed tabelą idempotency_keys.
+// Tabela jest źródłem prawdy (wspólna dla węzłów, przeżywa restart), pamięć oszczędza zapytanie przy ponowieniach.
+// Klucz jest zawsze w zakresie użytkownika - dwóch klientów może niezależnie wylosować ten sam.
+@Service
+public class IdempotencyStore {
+
+    static final Duration TTL = Duration.ofHours(24);
+    static final int MAX_KEY_LENGTH = 64;
+    private static final int MAX_CACHED_KEYS = 10_000;
+
+    private final IdempotencyKeyDao idempotencyKeyDao;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<CacheKey, StoredResponse> cache = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyKeyDao idempotencyKeyDao, ObjectMapper objectMapper) {
+        this.idempotencyKeyDao = idempotencyKeyDao;
+        this.objectMapper = objectMapper;
+    }
+
+    public Optional<ReservationDto> findReplay(Long userId, String key, Long bookId) {
+        validate(key);
+        LocalDateTime now = LocalDateTime.now();
+        CacheKey cacheKey = new CacheKey(userId, key);
+        StoredResponse stored = cache.get(cacheKey);
+        if (stored == null || stored.expired(now)) {
+            stored = idempotencyKeyDao.find(userId, key, now.minus(TTL))
+                .filter(row -> row.response() != null)
+                .map(row -> new StoredResponse(row.bookId(), read(row.response()), row.createdAt()))
+                .orElse(null);
+            if (stored == null) {
+                cache.remove(cacheKey);
+                return Optional.empty();
+            }
+            remember(cacheKey, stored, now);
+        }
+        if (!stored.bookId().equals(bookId)) {
+            throw new IdempotencyKeyConflictException("Klucz idempotencji został już użyty dla innej książki");
+        }
+        return Optional.of(stored.response());
+    }
+
+    // Wywoływane w transakcji tworzenia rezerwacji, zanim zmieni się stan książki
+    public void claim(Long userId, String key, Long bookId) {
+        validate(key);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            idempotencyKeyDao.claim(userId, key, bookId, now, now.minus(TTL));
+        } catch (DuplicateKeyException e) {
+            throw new IdempotencyKeyConflictException("Żądanie z tym kluczem idempotencji jest już przetwarzane");
+        }
+    }
+
+    public void complete(Long userId, String key, Long bookId, ReservationDto response) {
+        idempotencyKeyDao.complete(userId, key, write(response));
+        StoredResponse stored = new StoredResponse(bookId, response, LocalDateTime.now());
+        CacheKey cacheKey = new CacheKey(userId, key);
+        // Do pamięci trafia dopiero zatwierdzona odpowiedź - wycofana rezerwacja nie może być "odtworzona"
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(cacheKey, stored, LocalDateTime.now());
+                }
+            });
+        } else {
+            remember(cacheKey, stored, LocalDateTime.now());
+        }
+    }
+
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        cache.values().removeIf(stored -> stored.expired(now));
+        return idempotencyKeyDao.deleteCreatedBefore(now.minus(TTL));
+    }
+
+    private void remember(CacheKey cacheKey, StoredResponse stored, LocalDateTime now) {
+        if (cache.size() >= MAX_CACHED_KEYS) {
+            cache.values().removeIf(entry -> entry.expired(now));
+        }
+        // Pełna pamięć niczego nie psuje - ponowienie trafi wtedy po prostu do bazy
+        if (cache.size() < MAX_CACHED_KEYS) {
+            cache.put(cacheKey, stored);
+        }
+    }
+
+    private static void validate(String key) {
+        if (key.length() > MAX_KEY_LENGTH || !key.chars().allMatch(c -> c > 0x20 && c < 0x7f)) {
+            throw new InvalidIdempotencyKeyException(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) + "..." : key);
+        }
+    }
+
+    private String write(ReservationDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store idempotent response", e);
+        }
+    }
+
+    private ReservationDto read(String json) {
+        try {
+            return objectMapper.readValue(json, ReservationDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read idempotent response", e);
+        }
+    }
+
+    private record CacheKey(Long userId, String key) {
+    }
+
+    private record StoredResponse(Long bookId, ReservationDto response, LocalDateTime createdAt) {
+        boolean expired(LocalDateTime now) {
+            return createdAt.plus(TTL).isBefore(now);
+        }
+    }
+}
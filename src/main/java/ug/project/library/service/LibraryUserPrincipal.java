@@ -0,0 +1,31 @@
+package ug.project.library.service;
+
+import java.util.List;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import ug.project.library.model.enumerate.UserRole;
+
+// Zalogowany użytkownik razem z ID i rolą - ustalane raz przy logowaniu i trzymane w sesji,
+// więc ustalenie "kto wysłał żądanie" nie wymaga zapytania do bazy.
+// Zmiana roli albo usunięcie konta zaczyna obowiązywać od następnego logowania.
+public class LibraryUserPrincipal extends User {
+
+    private final Long userId;
+    private final UserRole role;
+
+    public LibraryUserPrincipal(Long userId, String username, String encryptedPassword, UserRole role) {
+        super(username, encryptedPassword, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+}
@@ -0,0 +1,90 @@
+package ug.project.library.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ug.project.library.dao.ReservationDao;
+import ug.project.library.live.LiveUpdateBus;
+import ug.project.library.model.enumerate.ReservationStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Oznacza wypożyczenia po terminie zwrotu. Każdy przebieg czyta tylko wiersze, które przekroczyły termin
+// od poprzedniego (częściowy indeks po deadline dla nieoznaczonych wypożyczeń), więc koszt zależy
+// od liczby nowych zaległości, a nie od liczby wszystkich wypożyczeń.
+@Service
+public class OverdueLoanScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanScanner.class);
+    static final int CHUNK_SIZE = 500;
+
+    private final ReservationDao reservationDao;
+    private final LiveUpdateBus liveUpdateBus;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong flagged = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public OverdueLoanScanner(ReservationDao reservationDao, LiveUpdateBus liveUpdateBus, PlatformTransactionManager transactionManager) {
+        this.reservationDao = reservationDao;
+        this.liveUpdateBus = liveUpdateBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public int flagOverdue(LocalDateTime now) {
+        return flagOverdue(now, CHUNK_SIZE);
+    }
+
+    int flagOverdue(LocalDateTime now, int chunkSize) {
+        long start = System.nanoTime();
+        int total = 0;
+        while (true) {
+            ChunkResult chunk = transactionTemplate.execute(status -> flagChunk(now, chunkSize));
+            total += chunk.flagged();
+            if (chunk.fetched() < chunkSize) {
+                break;
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        runs.incrementAndGet();
+        flagged.addAndGet(total);
+        lastRunMillis.set(elapsed.toMillis());
+        if (total > 0) {
+            log.info("Oznaczono {} wypożyczeń po terminie zwrotu w {} ms", total, elapsed.toMillis());
+        }
+        return total;
+    }
+
+    public OverdueMetrics getMetrics() {
+        return new OverdueMetrics(runs.get(), flagged.get(), lastRunMillis.get());
+    }
+
+    private ChunkResult flagChunk(LocalDateTime now, int chunkSize) {
+        List<ReservationDao.OverdueLoan> loans = reservationDao.findNewlyOverdue(now, chunkSize);
+        if (loans.isEmpty()) {
+            return new ChunkResult(0, 0);
+        }
+        int[] marked = reservationDao.markOverdueEach(loans.stream().map(ReservationDao.OverdueLoan::id).toList(), now);
+        int count = 0;
+        for (int i = 0; i < loans.size(); i++) {
+            if (marked[i] == 1) {
+                ReservationDao.OverdueLoan loan = loans.get(i);
+                liveUpdateBus.reservationChanged(loan.userId(), loan.id(), loan.bookId(), ReservationStatus.WYPOŻYCZONA);
+                count++;
+            }
+        }
+        return new ChunkResult(loans.size(), count);
+    }
+
+    private record ChunkResult(int fetched, int flagged) {
+    }
+
+    public record OverdueMetrics(long runs, long flaggedLoans, long lastRunMillis) {
+    }
+}
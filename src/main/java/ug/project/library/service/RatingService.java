@@ -5,15 +5,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import ug.project.library.dao.RatingDao;
 import ug.project.library.dto.RatingDto;
 import ug.project.library.exceptions.RatingNotFoundException;
 import ug.project.library.model.entity.Book;
 import ug.project.library.model.entity.Rating;
 import ug.project.library.model.entity.User;
-import ug.project.library.repository.BookRepository;
 import ug.project.library.repository.RatingRepository;
 import ug.project.library.repository.ReservationRepository;
 import ug.project.library.repository.UserRepository;
+import ug.project.library.search.BookSearchIndex;
+import ug.project.library.trending.TrendingBooks;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -26,19 +28,24 @@ public class RatingService {
     private final RatingRepository ratingRepository;
     private final AuthService authService;
     private final BookService bookService;
-    private final BookRepository bookRepository;
+    private final RatingDao ratingDao;
     private final ReservationRepository reservationRepository;
     private final UserRepository userRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final TrendingBooks trendingBooks;
 
     public RatingService(RatingRepository ratingRepository, AuthService authService, BookService bookService, 
-                         BookRepository bookRepository, ReservationRepository reservationRepository,
-                         UserRepository userRepository) {
+                         RatingDao ratingDao, ReservationRepository reservationRepository,
+                         UserRepository userRepository, BookSearchIndex bookSearchIndex,
+                         TrendingBooks trendingBooks) {
         this.ratingRepository = ratingRepository;
         this.authService = authService;
         this.bookService = bookService;
-        this.bookRepository = bookRepository;
+        this.ratingDao = ratingDao;
         this.reservationRepository = reservationRepository;
         this.userRepository = userRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.trendingBooks = trendingBooks;
     }
 
     @Transactional(readOnly = true)
@@ -59,7 +66,7 @@ public class RatingService {
     }
 
     public Double getAverageRating(Long bookId) {
-        return ratingRepository.calculateAverageRating(bookId);
+        return ratingDao.findAverageRating(bookId);
     }
 
     private void checkRatingCooldown(Long userId) {
@@ -95,16 +102,27 @@ public class RatingService {
 
         Rating rating = new Rating(user, book, ratingDto.getScore());
         Rating savedRating = ratingRepository.save(rating);
-        updateBookAverageRating(book.getId());
+        applyScoreChange(book.getId(), null, savedRating.getScore());
+        trendingBooks.recordRating(book.getId());
 
         return mapToDto(savedRating);
     }
 
-    private void updateBookAverageRating(Long bookId){
-        Double avgRating = ratingRepository.calculateAverageRating(bookId);
-        Book book = bookService.getBookById(bookId);
-        book.setAvgRating(avgRating != null ? avgRating : 0.0);
-        bookRepository.save(book);
+    // Zamiast AVG po wszystkich ocenach książki - przyrostowa zmiana sumy, licznika i histogramu
+    private void applyScoreChange(Long bookId, Integer removedScore, Integer addedScore) {
+        bookSearchIndex.updateAvgRating(bookId, ratingDao.applyScoreChange(bookId, removedScore, addedScore));
+    }
+
+    // Odczyt rozjazdu i przeliczenie w jednej transakcji
+    @Transactional
+    public List<RatingDao.RatingDrift> repairRatingAggregates() {
+        List<RatingDao.RatingDrift> drift = ratingDao.findDrift();
+        if (!drift.isEmpty()) {
+            List<Long> bookIds = drift.stream().map(RatingDao.RatingDrift::bookId).toList();
+            ratingDao.recomputeAggregates(bookIds);
+            bookIds.forEach(id -> bookSearchIndex.updateAvgRating(id, ratingDao.findAverageRating(id)));
+        }
+        return drift;
     }
 
     private void checkEditCooldown(Rating rating) {
@@ -122,18 +140,19 @@ public class RatingService {
         Rating rating = ratingRepository.findById(ratingId)
                 .orElseThrow(() -> new RatingNotFoundException(ratingId));
         
-        User currentUser = authService.getCurrentUser();
-        if (!rating.getUser().getId().equals(currentUser.getId())) {
+        Long currentUserId = authService.getCurrentUserId();
+        if (!rating.getUser().getId().equals(currentUserId)) {
             throw new IllegalStateException("Nie możesz edytować cudzej oceny");
         }
 
         checkEditCooldown(rating);
 
+        Integer previousScore = rating.getScore();
         rating.setScore(ratingDto.getScore());
         rating.setLastModifiedAt(LocalDateTime.now());
 
         Rating savedRating = ratingRepository.save(rating);
-        updateBookAverageRating(savedRating.getBook().getId());
+        applyScoreChange(savedRating.getBook().getId(), previousScore, savedRating.getScore());
 
         return mapToDto(savedRating);
     }
@@ -143,14 +162,14 @@ public class RatingService {
         Rating rating = ratingRepository.findById(id)
                 .orElseThrow(() -> new RatingNotFoundException(id));
         
-        User currentUser = authService.getCurrentUser();
-        if (!rating.getUser().getId().equals(currentUser.getId())) {
+        Long currentUserId = authService.getCurrentUserId();
+        if (!rating.getUser().getId().equals(currentUserId)) {
             throw new IllegalStateException("Nie możesz usunąć cudzej oceny");
         }
 
         Long bookId = rating.getBook().getId();
         ratingRepository.deleteById(id);
-        updateBookAverageRating(bookId);
+        applyScoreChange(bookId, rating.getScore(), null);
     }
 
     private RatingDto mapToDto(Rating rating) {
@@ -0,0 +1,159 @@
+package ug.project.library.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ug.project.library.dao.BookDao;
+import ug.project.library.dao.ReservationDao;
+import ug.project.library.dao.WorkClaimSupport;
+import ug.project.library.live.LiveUpdateBus;
+import ug.project.library.scheduler.ReservationDeadlineQueue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Hurtowe wygaszanie rezerwacji: każda paczka to osobna, krótka transakcja z jednym DELETE
+// i jednym zbiorczym UPDATE stanów książek, niezależnie od liczby rezerwacji w paczce.
+// Kilka instancji może wygaszać równolegle - paczki przejmujemy przez SKIP LOCKED (WorkClaimSupport).
+@Service
+public class ReservationExpiryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryEngine.class);
+    static final int CHUNK_SIZE = 500;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final ReservationDao reservationDao;
+    private final BookDao bookDao;
+    private final ReservationDeadlineQueue deadlineQueue;
+    private final WorkClaimSupport workClaimSupport;
+    private final WaitlistService waitlistService;
+    private final LiveUpdateBus liveUpdateBus;
+    private final AvailabilityForecast availabilityForecast;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public ReservationExpiryEngine(ReservationDao reservationDao, BookDao bookDao, ReservationDeadlineQueue deadlineQueue,
+                                   WorkClaimSupport workClaimSupport, WaitlistService waitlistService,
+                                   LiveUpdateBus liveUpdateBus, AvailabilityForecast availabilityForecast,
+                                   PlatformTransactionManager transactionManager) {
+        this.reservationDao = reservationDao;
+        this.bookDao = bookDao;
+        this.deadlineQueue = deadlineQueue;
+        this.workClaimSupport = workClaimSupport;
+        this.waitlistService = waitlistService;
+        this.liveUpdateBus = liveUpdateBus;
+        this.availabilityForecast = availabilityForecast;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ExpiryReport expireDue(LocalDateTime now) {
+        return expireDue(now, CHUNK_SIZE);
+    }
+
+    ExpiryReport expireDue(LocalDateTime now, int chunkSize) {
+        long start = System.nanoTime();
+        int chunkCount = 0;
+        int reservationCount = 0;
+        int bookCount = 0;
+
+        while (true) {
+            ChunkResult chunk = expireChunkWithRetry(now, chunkSize);
+            if (chunk == null || chunk.fetched() == 0) {
+                break;
+            }
+            chunkCount++;
+            reservationCount += chunk.reservations();
+            bookCount += chunk.books();
+            chunks.incrementAndGet();
+            expired.addAndGet(chunk.reservations());
+            log.debug("Wygaszono paczkę {} rezerwacji ({} książek), łącznie {}", chunk.reservations(), chunk.books(), reservationCount);
+            if (chunk.fetched() < chunkSize) {
+                break;
+            }
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        runs.incrementAndGet();
+        lastRunMillis.set(elapsed.toMillis());
+        if (reservationCount > 0) {
+            log.info("Wygaszono {} rezerwacji w {} paczkach, zwrócono egzemplarze {} książek w {} ms",
+                reservationCount, chunkCount, bookCount, elapsed.toMillis());
+        }
+        return new ExpiryReport(chunkCount, reservationCount, bookCount, elapsed);
+    }
+
+    public ExpiryMetrics getMetrics() {
+        return new ExpiryMetrics(runs.get(), chunks.get(), expired.get(), lastRunMillis.get());
+    }
+
+    // Przy równoległych instancjach baza może wybrać naszą transakcję jako ofiarę zakleszczenia;
+    // paczka została wtedy wycofana w całości, więc wystarczy ją powtórzyć
+    private ChunkResult expireChunkWithRetry(LocalDateTime now, int chunkSize) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> expireChunk(now, chunkSize));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Konflikt blokad przy wygaszaniu paczki, próba {}", attempt, e);
+            }
+        }
+    }
+
+    private ChunkResult expireChunk(LocalDateTime now, int chunkSize) {
+        List<ReservationDao.ExpiredReservation> rows;
+        List<ReservationDao.ExpiredReservation> claimed;
+        if (workClaimSupport.skipLockedSupported()) {
+            rows = reservationDao.claimExpiredChunk(now, chunkSize);
+            claimed = rows;
+            reservationDao.deleteByIds(rows.stream().map(ReservationDao.ExpiredReservation::id).toList());
+        } else {
+            rows = reservationDao.findExpiredChunk(now, chunkSize);
+            int[] deleted = reservationDao.deletePendingEach(rows.stream().map(ReservationDao.ExpiredReservation::id).toList());
+            claimed = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                if (deleted[i] == 1) {
+                    claimed.add(rows.get(i));
+                }
+            }
+        }
+        if (claimed.isEmpty()) {
+            return new ChunkResult(rows.size(), 0, 0);
+        }
+
+        Map<Long, Integer> copiesByBook = claimed.stream()
+            .collect(Collectors.groupingBy(ReservationDao.ExpiredReservation::bookId, Collectors.summingInt(r -> 1)));
+        claimed.forEach(r -> {
+            deadlineQueue.cancel(r.id());
+            liveUpdateBus.reservationChanged(r.userId(), r.id(), r.bookId(), null);
+            availabilityForecast.reservationChanged(r.bookId(), r.id(), null, null);
+        });
+        // egzemplarze książek z niepustą kolejką idą najpierw do oczekujących; na półkę wraca tylko reszta
+        Map<Long, Integer> restored = waitlistService.handOver(copiesByBook);
+        bookDao.restoreQuantities(restored);
+        restored.keySet().forEach(liveUpdateBus::availabilityChanged);
+        return new ChunkResult(rows.size(), claimed.size(), copiesByBook.size());
+    }
+
+    private record ChunkResult(int fetched, int reservations, int books) {
+    }
+
+    public record ExpiryReport(int chunks, int reservations, int books, Duration elapsed) {
+    }
+
+    public record ExpiryMetrics(long runs, long chunks, long expiredReservations, long lastRunMillis) {
+    }
+}
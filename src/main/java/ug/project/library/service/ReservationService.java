@@ -5,7 +5,11 @@ import ug.project.library.service.AuthService;
 import ug.project.library.service.BookService;
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Page;
@@ -15,12 +19,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import ug.project.library.dao.LoanStatsDao;
 import ug.project.library.dao.ReservationDao;
 import ug.project.library.dto.ReservationDto;
 import ug.project.library.exceptions.BookNotFoundException;
+import ug.project.library.live.LiveUpdateBus;
 import ug.project.library.model.entity.*;
 import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.pagination.ReservationCursor;
 import ug.project.library.repository.BookRepository;
+import ug.project.library.scheduler.ReservationDeadlineQueue;
+import ug.project.library.trending.TrendingBooks;
 import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 import java.time.Duration;
@@ -32,7 +41,7 @@ import ug.project.library.dto.*;
 @Transactional
 public class ReservationService {
     //to gdzies przeniesc w logiczniejsze miejsce(ale nie enum!!)
-    private static final Duration CONFIRMATION_TIME = Duration.ofHours(2);
+    static final Duration CONFIRMATION_TIME = Duration.ofHours(2);
     private static final Duration LOAN_TIME = Duration.ofHours(336);
 
     private final ReservationRepository reservationRepository;
@@ -40,21 +49,82 @@ public class ReservationService {
     private final UserService userService;
     private final AuthService authService;
     private final ReservationDao reservationDao;
-
-    public ReservationService(ReservationRepository reservationRepository,BookService bookService, UserService userService, AuthService authService, ReservationDao reservationDao){
+    private final ReservationDeadlineQueue deadlineQueue;
+    private final LoanStatsDao loanStatsDao;
+    private final TrendingBooks trendingBooks;
+    private final IdempotencyStore idempotencyStore;
+    private final WaitlistService waitlistService;
+    private final LiveUpdateBus liveUpdateBus;
+    private final AvailabilityForecast availabilityForecast;
+
+    public ReservationService(ReservationRepository reservationRepository,BookService bookService, UserService userService, AuthService authService, ReservationDao reservationDao, ReservationDeadlineQueue deadlineQueue, LoanStatsDao loanStatsDao, TrendingBooks trendingBooks, IdempotencyStore idempotencyStore, WaitlistService waitlistService, LiveUpdateBus liveUpdateBus, AvailabilityForecast availabilityForecast){
         this.reservationRepository = reservationRepository;
         this.bookService = bookService;
         this.userService = userService;
         this.authService = authService;
         this.reservationDao = reservationDao;
+        this.deadlineQueue = deadlineQueue;
+        this.loanStatsDao = loanStatsDao;
+        this.trendingBooks = trendingBooks;
+        this.idempotencyStore = idempotencyStore;
+        this.waitlistService = waitlistService;
+        this.liveUpdateBus = liveUpdateBus;
+        this.availabilityForecast = availabilityForecast;
     }
 
 
     @Transactional(readOnly = true)
-    public List<ReservationDto> getAllReservations() {
-        return reservationRepository.findAll().stream()
-                .map(this::mapReservationToDto)
-                .collect(java.util.stream.Collectors.toList());
+    public CursorPage<ReservationDto> findReservations(ReservationFilter filter, String cursor, int size) {
+        ReservationCursor after = cursor == null || cursor.isBlank() ? null : ReservationCursor.decode(cursor);
+        List<ReservationDto> rows = reservationDao.findConsolePage(filter, after, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ReservationDto> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ReservationDto last = content.get(size - 1);
+            nextCursor = new ReservationCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(content, nextCursor, hasNext, null);
+    }
+
+    // Transakcja trzyma kursor bazy otwarty, aż ostatni wiersz trafi do odpowiedzi
+    @Transactional(readOnly = true)
+    public void exportReservations(ReservationFilter filter, Writer writer) throws IOException {
+        writer.write("id,status,created_at,deadline,user_id,username,book_id,book_title,overdue\n");
+        try {
+            reservationDao.forEachForExport(filter, reservation -> {
+                try {
+                    writer.write(toCsvLine(reservation));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String toCsvLine(ReservationDto reservation) {
+        return String.join(",",
+            String.valueOf(reservation.getId()),
+            reservation.getStatus().name(),
+            String.valueOf(reservation.getCreatedAt()),
+            reservation.getDeadline() != null ? reservation.getDeadline().toString() : "",
+            String.valueOf(reservation.getUserId()),
+            csvField(reservation.getUserName()),
+            String.valueOf(reservation.getBookId()),
+            csvField(reservation.getBookTitle()),
+            String.valueOf(reservation.isOverdue())) + "\n";
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
     }
 
     @Transactional
@@ -65,7 +135,7 @@ public class ReservationService {
 
 
     private ReservationDto mapReservationToDto(Reservation reservation) {
-        return new ReservationDto(
+        ReservationDto dto = new ReservationDto(
             reservation.getId(),
             reservation.getStatus(),
             reservation.getCreatedAt(),
@@ -75,6 +145,10 @@ public class ReservationService {
             reservation.getBook().getId(),
             reservation.getBook().getTitle()            
         );
+        dto.setBookPublisher(reservation.getBook().getPublisher());
+        dto.setBookCoverImageUrl(reservation.getBook().getCoverImageUrl());
+        dto.setOverdue(reservation.getStatus() == ReservationStatus.WYPOŻYCZONA && reservation.getOverdueAt() != null);
+        return dto;
     }
 
     // private Reservation mapDtoToReservation(ReservationDto reservationDto) {
@@ -90,18 +164,37 @@ public class ReservationService {
 
 
     // }
-    @Transactional
-    public Page<Reservation> getUserReservationHistory(Long userId, Pageable pageable){
-        return reservationRepository.findPastReservations(userId, pageable);
+    @Transactional(readOnly = true)
+    public Page<ReservationDto> getUserReservationHistory(Long userId, Pageable pageable){
+        return reservationRepository.findPastReservations(userId, pageable).map(this::mapReservationToDto);
     }
 
-    @Transactional
-    public List<Reservation> getUserActiveReservations(Long userId){
-        return reservationDao.findActiveReservationsByUserId(userId);
+    @Transactional(readOnly = true)
+    public List<ReservationDto> getUserActiveReservations(Long userId){
+        return reservationDao.findActiveReservationsByUserId(userId).stream()
+                .map(this::mapReservationToDto)
+                .toList();
     }
 
     @Transactional
     public ReservationDto createNewReservation(Long bookId){
+        return createNewReservation(bookId, null);
+    }
+
+    // Z kluczem idempotencji ponowione żądanie dostaje pierwotną odpowiedź i nie zmniejsza drugi raz stanu książki
+    @Transactional
+    public ReservationDto createNewReservation(Long bookId, String idempotencyKey){
+        boolean idempotent = idempotencyKey != null && !idempotencyKey.isBlank();
+        Long userId = null;
+        if (idempotent) {
+            userId = authService.getCurrentUserId();
+            Optional<ReservationDto> replay = idempotencyStore.findReplay(userId, idempotencyKey, bookId);
+            if (replay.isPresent()) {
+                return replay.get();
+            }
+            idempotencyStore.claim(userId, idempotencyKey, bookId);
+        }
+
         User user = authService.getCurrentUser();
         if (user == null) {
             throw new IllegalStateException("User must be logged in to make a reservation");
@@ -114,7 +207,14 @@ public class ReservationService {
         Reservation reservation = new Reservation(ReservationStatus.OCZEKUJĄCA, LocalDateTime.now(), user, book, confirmationDeadline);
         
         Reservation savedReservation = reservationRepository.save(reservation);
-        return mapReservationToDto(savedReservation);
+        deadlineQueue.schedule(savedReservation.getId(), savedReservation.getDeadline());
+        trendingBooks.recordReservation(bookId);
+        publishStatus(savedReservation, savedReservation.getStatus());
+        ReservationDto reservationDto = mapReservationToDto(savedReservation);
+        if (idempotent) {
+            idempotencyStore.complete(userId, idempotencyKey, bookId, reservationDto);
+        }
+        return reservationDto;
     }
 
 
@@ -135,8 +235,10 @@ public class ReservationService {
         }
 
         reservation.setStatus(ReservationStatus.POTWIERDZONA);
+        deadlineQueue.cancel(reservation.getId());
 
         Reservation savedReservation = reservationRepository.save(reservation);
+        publishStatus(savedReservation, savedReservation.getStatus());
         return mapReservationToDto(savedReservation);
 
     }
@@ -144,21 +246,36 @@ public class ReservationService {
     @Transactional
     public void expireReservation(Reservation reservation){
         Book book = reservation.getBook();
-        bookService.incrementQuantityAvailable(book);
         reservationRepository.delete(reservation);
+        releaseCopy(book);
+        deadlineQueue.cancel(reservation.getId());
+        publishStatus(reservation, null);
     }
 
+    // Wywoływane przez ReservationExpiryWorker w chwili terminu; kolejka może mieć nieaktualny wpis,
+    // więc o wygaśnięciu decyduje stan w bazie
     @Transactional
-    public void expireReservations(){
-        List<Reservation> expired =
-                reservationRepository.findExpiredReservations(LocalDateTime.now());
-
-        for (Reservation reservation : expired) {
-            expireReservation(reservation);
+    public boolean expireReservationIfDue(Long reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+        if (reservation == null || reservation.getStatus() != ReservationStatus.OCZEKUJĄCA || reservation.getDeadline() == null) {
+            return false;
         }
-
+        if (reservation.getDeadline().isAfter(LocalDateTime.now())) {
+            // zegar kolejki i zegar ścienny mogą się minimalnie rozjechać - wracamy do kolejki
+            deadlineQueue.schedule(reservationId, reservation.getDeadline());
+            return false;
+        }
+        // ten sam termin może obsłużyć inna instancja - stan zwracamy tylko, jeśli to my usunęliśmy wiersz
+        if (reservationDao.deletePendingEach(List.of(reservationId))[0] == 0) {
+            return false;
+        }
+        releaseCopy(reservation.getBook());
+        deadlineQueue.cancel(reservationId);
+        publishStatus(reservation, null);
+        return true;
     }
 
+
     @Transactional
     public ReservationDto borrowReservation(Long reservationId) {
         Long userId = authService.getCurrentUserId();
@@ -167,8 +284,14 @@ public class ReservationService {
             throw new IllegalStateException("Można wypożyczyć tylko potwierdzoną rezerwację");
         }
 
+        LocalDateTime borrowedAt = LocalDateTime.now();
         reservation.setStatus(ReservationStatus.WYPOŻYCZONA);
+        reservation.setBorrowedAt(borrowedAt);
+        // od teraz deadline to termin zwrotu - pilnuje go OverdueLoanScanner
+        reservation.setDeadline(borrowedAt.plus(LOAN_TIME));
         Reservation savedReservation = reservationRepository.save(reservation);
+        publishStatus(savedReservation, savedReservation.getStatus());
+        loanStatsDao.recordLoan(reservation.getBook().getId(), userId, borrowedAt);
         return mapReservationToDto(savedReservation);
     }
 
@@ -182,8 +305,9 @@ public class ReservationService {
         }
         
         reservation.setStatus(ReservationStatus.ZWRÓCONA);
-        bookService.incrementQuantityAvailable(reservation.getBook());
         Reservation savedReservation = reservationRepository.save(reservation);
+        releaseCopy(reservation.getBook());
+        publishStatus(savedReservation, savedReservation.getStatus());
         return mapReservationToDto(savedReservation);
 
     }
@@ -200,11 +324,25 @@ public class ReservationService {
         }
 
 
-        bookService.incrementQuantityAvailable(reservation.getBook());
         reservationRepository.delete(reservation);
+        deadlineQueue.cancel(reservation.getId());
+        releaseCopy(reservation.getBook());
+        publishStatus(reservation, null);
 
     }
 
+    private void publishStatus(Reservation reservation, ReservationStatus status) {
+        liveUpdateBus.reservationChanged(reservation.getUser().getId(), reservation.getId(), reservation.getBook().getId(), status);
+        availabilityForecast.reservationChanged(reservation.getBook().getId(), reservation.getId(), status, reservation.getDeadline());
+    }
+
+    // Zwolniony egzemplarz dostaje najpierw pierwsza osoba z kolejki, na półkę wraca dopiero przy pustej kolejce
+    private void releaseCopy(Book book) {
+        if (waitlistService.handOver(book.getId(), 1) == 0) {
+            bookService.incrementQuantityAvailable(book);
+        }
+    }
+
     
 
 
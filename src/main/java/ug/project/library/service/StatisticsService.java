@@ -1,47 +1,169 @@
 package ug.project.library.service;
 
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import ug.project.library.model.entity.Author;
-import ug.project.library.model.entity.Book;
-import ug.project.library.model.entity.User;
+import org.springframework.transaction.support.TransactionTemplate;
+import ug.project.library.dao.LoanStatsDao;
+import ug.project.library.dto.ActiveUserDto;
+import ug.project.library.dto.LoanRankingDto;
+import ug.project.library.dto.PopularAuthorDto;
+import ug.project.library.dto.PopularBookDto;
+import ug.project.library.dto.StatsDashboardDto;
+import ug.project.library.dto.TrendingStatsDto;
+import ug.project.library.model.enumerate.LoanSubject;
+import ug.project.library.model.enumerate.StatsWindow;
 import ug.project.library.repository.AuthorRepository;
 import ug.project.library.repository.BookRepository;
 import ug.project.library.repository.UserRepository;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 @Service
 public class StatisticsService {
 
+    private static final Logger log = LoggerFactory.getLogger(StatisticsService.class);
+
+    // Najdłuższe okno ma 24h w kubełkach godzinowych, więc 48h zapasu; dzienne trzymamy z nadmiarem ponad 30 dni
+    private static final Duration HOURLY_RETENTION = Duration.ofHours(48);
+    private static final Duration DAILY_RETENTION = Duration.ofDays(90);
+    private static final int MAX_TRENDING_LIMIT = 50;
+    private static final int PANEL_THREADS = 6;
+    private static final int PANEL_QUEUE_CAPACITY = 60;
+
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
     private final AuthorRepository authorRepository;
+    private final LoanStatsDao loanStatsDao;
+    // Panele statystyk są od siebie niezależne - każdy idzie osobnym wątkiem i połączeniem
+    private final ExecutorService panelExecutor;
+    // @Transactional nie działa przy wywołaniu na `this` z wątku panelu, więc transakcję otwieramy jawnie
+    private final TransactionTemplate readOnlyTransaction;
 
-    public StatisticsService(BookRepository bookRepository, UserRepository userRepository, AuthorRepository authorRepository) {
+    public StatisticsService(BookRepository bookRepository, UserRepository userRepository, AuthorRepository authorRepository,
+                             LoanStatsDao loanStatsDao, PlatformTransactionManager transactionManager) {
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
         this.authorRepository = authorRepository;
+        this.loanStatsDao = loanStatsDao;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Przy pełnej kolejce panel liczy wątek żądania - strona zwalnia do ładowania po kolei, ale nie pada
+        this.panelExecutor = new ThreadPoolExecutor(PANEL_THREADS, PANEL_THREADS, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PANEL_QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "stats-panel-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        panelExecutor.shutdownNow();
     }
 
 
     @Transactional(readOnly = true)
-    public Page<Book> getMostPopularBooks(Pageable pageable){
+    public Page<PopularBookDto> getMostPopularBooks(Pageable pageable){
         return bookRepository.findMostPopularBooks(pageable);
 
     }
 
     @Transactional(readOnly = true)
-    public Page<User> getUsersWithMostLoans(Pageable pageable) {
+    public Page<ActiveUserDto> getUsersWithMostLoans(Pageable pageable) {
         return userRepository.getUsersWithMostLoans(pageable);
     }
 
 
     @Transactional(readOnly = true) 
-    public Page<Author> getMostPopularAuthors(Pageable pageable) {
+    public Page<PopularAuthorDto> getMostPopularAuthors(Pageable pageable) {
         return authorRepository.findMostPopularAuthors(pageable);
     }
 
+    // Trzy panele /admin/stats równolegle - czas strony to najwolniejsze zapytanie, a nie suma trzech
+    public StatsDashboardDto getDashboard(Pageable booksPageable, Pageable authorsPageable, Pageable usersPageable) {
+        CompletableFuture<Page<PopularBookDto>> books = onPanelThread(() -> getMostPopularBooks(booksPageable));
+        CompletableFuture<Page<PopularAuthorDto>> authors = onPanelThread(() -> getMostPopularAuthors(authorsPageable));
+        CompletableFuture<Page<ActiveUserDto>> users = onPanelThread(() -> getUsersWithMostLoans(usersPageable));
+        return new StatsDashboardDto(await(books), await(authors), await(users));
+    }
+
+    @Transactional(readOnly = true)
+    public List<LoanRankingDto> getTrending(LoanSubject subject, StatsWindow window, int limit) {
+        return loanStatsDao.findTopSince(subject, windowStart(window), clampLimit(limit));
+    }
+
+    public TrendingStatsDto getTrendingStats(StatsWindow window, int limit) {
+        LocalDateTime since = windowStart(window);
+        int top = clampLimit(limit);
+        CompletableFuture<List<LoanRankingDto>> books = onPanelThread(() -> loanStatsDao.findTopSince(LoanSubject.BOOK, since, top));
+        CompletableFuture<List<LoanRankingDto>> authors = onPanelThread(() -> loanStatsDao.findTopSince(LoanSubject.AUTHOR, since, top));
+        CompletableFuture<List<LoanRankingDto>> users = onPanelThread(() -> loanStatsDao.findTopSince(LoanSubject.USER, since, top));
+        return new TrendingStatsDto(window.getCode(), since, await(books), await(authors), await(users));
+    }
+
+    @Transactional
+    public void compactLoanBuckets() {
+        LocalDateTime now = LocalDateTime.now();
+        int compacted = loanStatsDao.compactHourlyBuckets(now.minus(HOURLY_RETENTION).truncatedTo(ChronoUnit.HOURS));
+        int dropped = loanStatsDao.deleteDailyBucketsBefore(now.minus(DAILY_RETENTION).truncatedTo(ChronoUnit.DAYS));
+        log.info("Kubełki wypożyczeń: zwinięto {} godzinowych, usunięto {} dziennych", compacted, dropped);
+    }
+
+    @Transactional
+    public void rebuildLoanCounters() {
+        LocalDateTime now = LocalDateTime.now();
+        loanStatsDao.rebuild(now.minus(HOURLY_RETENTION).truncatedTo(ChronoUnit.HOURS),
+            now.minus(DAILY_RETENTION).truncatedTo(ChronoUnit.DAYS));
+    }
+
+    // Faktyczny początek okna: krótkie okna sięgają kubełków godzinowych, dłuższe zaczynają się
+    // od pierwszej pełnej doby (zob. LoanStatsDao.findTopSince) - `from` w odpowiedzi mówi, co policzono
+    private static LocalDateTime windowStart(StatsWindow window) {
+        LocalDateTime since = LocalDateTime.now().minus(window.getLength());
+        return window.getLength().compareTo(HOURLY_RETENTION) < 0
+            ? since.truncatedTo(ChronoUnit.HOURS)
+            : LoanStatsDao.firstWholeDay(since);
+    }
+
+    private <T> CompletableFuture<T> onPanelThread(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), panelExecutor);
+    }
+
+    private static <T> T await(CompletableFuture<T> panel) {
+        try {
+            return panel.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_TRENDING_LIMIT));
+    }
+
     
     
 }
@@ -0,0 +1,142 @@
+package ug.project.library.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ug.project.library.dao.BookDao;
+import ug.project.library.dao.ReservationDao;
+import ug.project.library.dao.WaitlistDao;
+import ug.project.library.dao.WorkClaimSupport;
+import ug.project.library.dto.WaitlistPositionDto;
+import ug.project.library.exceptions.BookNotFoundException;
+import ug.project.library.live.LiveUpdateBus;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.scheduler.ReservationDeadlineQueue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Kolejka FIFO na niedostępne książki. Zwolniony egzemplarz (zwrot, anulowanie, wygaśnięcie) trafia od razu
+// do pierwszej osoby z kolejki jako nowa OCZEKUJĄCA rezerwacja - w tej samej transakcji co zwolnienie,
+// więc stan książki nie rośnie i nikt z zewnątrz nie "przechwyci" egzemplarza odświeżając stronę.
+@Service
+@Transactional
+public class WaitlistService {
+
+    private final WaitlistDao waitlistDao;
+    private final ReservationDao reservationDao;
+    private final BookDao bookDao;
+    private final AuthService authService;
+    private final ReservationDeadlineQueue deadlineQueue;
+    private final WorkClaimSupport workClaimSupport;
+    private final LiveUpdateBus liveUpdateBus;
+    private final AvailabilityForecast availabilityForecast;
+
+    public WaitlistService(WaitlistDao waitlistDao, ReservationDao reservationDao, BookDao bookDao, AuthService authService,
+                           ReservationDeadlineQueue deadlineQueue, WorkClaimSupport workClaimSupport, LiveUpdateBus liveUpdateBus,
+                           AvailabilityForecast availabilityForecast) {
+        this.waitlistDao = waitlistDao;
+        this.reservationDao = reservationDao;
+        this.bookDao = bookDao;
+        this.authService = authService;
+        this.deadlineQueue = deadlineQueue;
+        this.workClaimSupport = workClaimSupport;
+        this.liveUpdateBus = liveUpdateBus;
+        this.availabilityForecast = availabilityForecast;
+    }
+
+    // Ponowny zapis nie zmienia miejsca w kolejce - zwraca aktualną pozycję
+    public WaitlistPositionDto join(Long bookId) {
+        Long userId = authService.getCurrentUserId();
+        // stan czytamy pod blokadą wiersza książki - równoległy zwrot albo już odłożył egzemplarz
+        // (odmawiamy), albo poczeka na nasz commit i przydzieli egzemplarz z kolejki
+        int quantityAvailable = bookDao.lockQuantityAvailable(bookId).orElseThrow(() -> new BookNotFoundException(bookId));
+        if (quantityAvailable > 0) {
+            throw new IllegalStateException("Książka jest dostępna - można ją zarezerwować od razu");
+        }
+        // pod tą samą blokadą ponowny zapis widzi poprzedni - bez łapania błędu unikalności,
+        // który na Postgresie przerwałby całą transakcję
+        int position = waitlistDao.position(bookId, userId);
+        if (position == 0) {
+            waitlistDao.join(bookId, userId, LocalDateTime.now());
+            position = waitlistDao.position(bookId, userId);
+        }
+        return new WaitlistPositionDto(bookId, position, waitlistDao.countWaiting(bookId));
+    }
+
+    public void leave(Long bookId) {
+        waitlistDao.leave(bookId, authService.getCurrentUserId());
+    }
+
+    @Transactional(readOnly = true)
+    public WaitlistPositionDto getPosition(Long bookId) {
+        return position(bookId, authService.getCurrentUserId());
+    }
+
+    // Przydziela do `copies` zwolnionych egzemplarzy kolejnym oczekującym; zwraca, ilu przydzielono.
+    // Pozostałe egzemplarze wywołujący odkłada na półkę. Musi działać w transakcji zwolnienia egzemplarza -
+    // blokada wiersza książki trzyma do commitu, więc równoległy zapis do kolejki nie "zgubi" egzemplarza.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int handOver(Long bookId, int copies) {
+        bookDao.lockQuantityAvailable(bookId);
+        List<WaitlistDao.Waiter> waiters = claimWaiters(bookId, copies);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime deadline = now.plus(ReservationService.CONFIRMATION_TIME);
+        for (WaitlistDao.Waiter waiter : waiters) {
+            Long reservationId = reservationDao.insertPending(waiter.userId(), bookId, now, deadline);
+            deadlineQueue.schedule(reservationId, deadline);
+            liveUpdateBus.reservationChanged(waiter.userId(), reservationId, bookId, ReservationStatus.OCZEKUJĄCA);
+            availabilityForecast.reservationChanged(bookId, reservationId, ReservationStatus.OCZEKUJĄCA, deadline);
+        }
+        return waiters.size();
+    }
+
+    // Wariant dla całej paczki zwolnionych egzemplarzy (książka -> liczba); zwraca egzemplarze do odłożenia na półkę.
+    // Kolejki wszystkich książek z paczki sprawdzamy jednym zapytaniem.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> handOver(Map<Long, Integer> copiesByBook) {
+        bookDao.lockBooks(copiesByBook.keySet());
+        Set<Long> withWaiters = waitlistDao.findBooksWithWaiters(copiesByBook.keySet());
+        if (withWaiters.isEmpty()) {
+            return copiesByBook;
+        }
+        Map<Long, Integer> remaining = new HashMap<>();
+        copiesByBook.forEach((bookId, copies) -> {
+            int left = withWaiters.contains(bookId) ? copies - handOver(bookId, copies) : copies;
+            if (left > 0) {
+                remaining.put(bookId, left);
+            }
+        });
+        return remaining;
+    }
+
+    private List<WaitlistDao.Waiter> claimWaiters(Long bookId, int copies) {
+        if (workClaimSupport.skipLockedSupported()) {
+            List<WaitlistDao.Waiter> waiters = waitlistDao.claimHead(bookId, copies);
+            waitlistDao.deleteEach(waiters.stream().map(WaitlistDao.Waiter::id).toList());
+            return waiters;
+        }
+        List<WaitlistDao.Waiter> claimed = new ArrayList<>();
+        while (claimed.size() < copies) {
+            List<WaitlistDao.Waiter> head = waitlistDao.findHead(bookId, copies - claimed.size());
+            if (head.isEmpty()) {
+                break;
+            }
+            int[] deleted = waitlistDao.deleteEach(head.stream().map(WaitlistDao.Waiter::id).toList());
+            for (int i = 0; i < head.size(); i++) {
+                if (deleted[i] == 1) {
+                    claimed.add(head.get(i));
+                }
+            }
+        }
+        return claimed;
+    }
+
+    private WaitlistPositionDto position(Long bookId, Long userId) {
+        return new WaitlistPositionDto(bookId, waitlistDao.position(bookId, userId), waitlistDao.countWaiting(bookId));
+    }
+}
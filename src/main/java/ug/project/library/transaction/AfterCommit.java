@@ -0,0 +1,25 @@
+package ug.project.library.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Stan w pamięci (indeksy, kolejki, zdarzenia) zmieniamy dopiero po commicie, żeby wycofana transakcja
+// nie zostawiła w nim śladu. Poza transakcją akcja wykonuje się od razu.
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
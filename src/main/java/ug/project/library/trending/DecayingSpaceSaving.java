@@ -0,0 +1,125 @@
+package ug.project.library.trending;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Space-Saving (Metwally i in.): najwyżej `capacity` liczników, więc pamięć nie rośnie z liczbą książek.
+// Nowy element przy pełnej tablicy przejmuje najmniejszy licznik, a jego dotychczasowa wartość
+// staje się górną granicą błędu. Każdy element z wagą większą niż suma/capacity na pewno jest w tablicy.
+// Wygaszanie wykładnicze przez "forward decay": zamiast co chwilę mnożyć wszystkie liczniki,
+// nowe zdarzenia dostają wagę rosnącą z czasem, a odczyt dzieli przez ten sam czynnik.
+final class DecayingSpaceSaving<K extends Comparable<K>> {
+
+    // exp(50) ~ 5e21 - wciąż daleko od granicy double, ale czas już przeskalować liczniki
+    private static final double MAX_EXPONENT = 50.0;
+
+    private final int capacity;
+    private final double decayPerMilli;
+    private final Map<K, Counter<K>> counters = new HashMap<>();
+    private final TreeSet<Counter<K>> byCount = new TreeSet<>(
+        Comparator.<Counter<K>>comparingDouble(c -> c.count).thenComparing(c -> c.key));
+    private long landmark;
+
+    DecayingSpaceSaving(int capacity, long halfLifeMillis, long nowMillis) {
+        this.capacity = capacity;
+        this.decayPerMilli = Math.log(2) / halfLifeMillis;
+        this.landmark = nowMillis;
+    }
+
+    synchronized void add(K key, double weight, long nowMillis) {
+        if (decayPerMilli * (nowMillis - landmark) > MAX_EXPONENT) {
+            rescale(nowMillis);
+        }
+        double scaled = weight * Math.exp(decayPerMilli * (nowMillis - landmark));
+
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += scaled;
+            byCount.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter<>(key, scaled, 0.0);
+        } else {
+            Counter<K> evicted = byCount.pollFirst();
+            counters.remove(evicted.key);
+            counter = new Counter<>(key, evicted.count + scaled, evicted.count);
+        }
+        counters.put(key, counter);
+        byCount.add(counter);
+    }
+
+    synchronized void remove(K key) {
+        Counter<K> counter = counters.remove(key);
+        if (counter != null) {
+            byCount.remove(counter);
+        }
+    }
+
+    // Kolejność liczników nie zależy od chwili odczytu, więc top-K to po prostu początek posortowanego zbioru
+    synchronized List<Entry<K>> top(int k, long nowMillis) {
+        double factor = Math.exp(-decayPerMilli * (nowMillis - landmark));
+        List<Entry<K>> result = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter<K>> it = byCount.descendingIterator();
+        while (it.hasNext() && result.size() < k) {
+            Counter<K> counter = it.next();
+            result.add(new Entry<>(counter.key, counter.count * factor, counter.error * factor));
+        }
+        return result;
+    }
+
+    synchronized List<Entry<K>> entries(long nowMillis) {
+        return top(counters.size(), nowMillis);
+    }
+
+    // Wartości muszą już być wygaszone do chwili nowMillis
+    synchronized void restore(List<Entry<K>> entries, long nowMillis) {
+        counters.clear();
+        byCount.clear();
+        landmark = nowMillis;
+        entries.stream()
+            .sorted(Comparator.comparingDouble((Entry<K> e) -> e.score()).reversed())
+            .limit(capacity)
+            .forEach(e -> {
+                Counter<K> counter = new Counter<>(e.key(), e.score(), e.error());
+                counters.put(e.key(), counter);
+                byCount.add(counter);
+            });
+    }
+
+    synchronized int size() {
+        return counters.size();
+    }
+
+    private void rescale(long nowMillis) {
+        double factor = Math.exp(-decayPerMilli * (nowMillis - landmark));
+        byCount.clear();
+        for (Counter<K> counter : counters.values()) {
+            counter.count *= factor;
+            counter.error *= factor;
+            byCount.add(counter);
+        }
+        landmark = nowMillis;
+    }
+
+    record Entry<K>(K key, double score, double error) {
+    }
+
+    private static final class Counter<K> {
+        private final K key;
+        private double count;
+        private double error;
+
+        private Counter(K key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ug.project.library.trending;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ug.project.library.dao.TrendingSnapshotDao;
+import ug.project.library.dao.TrendingSnapshotDao.SnapshotRow;
+import ug.project.library.transaction.AfterCommit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * "Popularne teraz" - ranking książek z wyświetleń, ocen i rezerwacji, liczony w pamięci.
+ * Liczniki Space-Saving mają stały rozmiar, a zdarzenia wygasają z połówkowym czasem {@link #HALF_LIFE},
+ * więc odczyt top-K nie dotyka bazy. Co kilka minut stan trafia do trending_snapshot i jest
+ * wczytywany przy starcie, z wygaszeniem za czas, który upłynął od zrzutu.
+ */
+@Component
+public class TrendingBooks {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingBooks.class);
+
+    static final int CAPACITY = 500;
+    static final Duration HALF_LIFE = Duration.ofHours(6);
+
+    private static final double VIEW_WEIGHT = 1.0;
+    private static final double RATING_WEIGHT = 3.0;
+    private static final double RESERVATION_WEIGHT = 5.0;
+
+    private final TrendingSnapshotDao snapshotDao;
+    private final LongSupplier clock;
+    private final DecayingSpaceSaving<Long> counters;
+
+    @Autowired
+    public TrendingBooks(TrendingSnapshotDao snapshotDao) {
+        this(snapshotDao, System::currentTimeMillis);
+    }
+
+    TrendingBooks(TrendingSnapshotDao snapshotDao, LongSupplier clock) {
+        this.snapshotDao = snapshotDao;
+        this.clock = clock;
+        this.counters = new DecayingSpaceSaving<>(CAPACITY, HALF_LIFE.toMillis(), clock.getAsLong());
+    }
+
+    public void recordView(Long bookId) {
+        counters.add(bookId, VIEW_WEIGHT, clock.getAsLong());
+    }
+
+    public void recordRating(Long bookId) {
+        AfterCommit.run(() -> counters.add(bookId, RATING_WEIGHT, clock.getAsLong()));
+    }
+
+    public void recordReservation(Long bookId) {
+        AfterCommit.run(() -> counters.add(bookId, RESERVATION_WEIGHT, clock.getAsLong()));
+    }
+
+    public void remove(Long bookId) {
+        AfterCommit.run(() -> counters.remove(bookId));
+    }
+
+    public List<Long> topBookIds(int limit) {
+        return counters.top(limit, clock.getAsLong()).stream()
+            .map(DecayingSpaceSaving.Entry::key)
+            .toList();
+    }
+
+    @Transactional
+    public void snapshot() {
+        long now = clock.getAsLong();
+        LocalDateTime takenAt = toLocalDateTime(now);
+        List<SnapshotRow> rows = counters.entries(now).stream()
+            .map(e -> new SnapshotRow(e.key(), e.score(), e.error(), takenAt))
+            .toList();
+        snapshotDao.replaceSnapshot(rows);
+        log.debug("Trending snapshot saved: {} books", rows.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long now = clock.getAsLong();
+        List<DecayingSpaceSaving.Entry<Long>> entries = snapshotDao.findSnapshot().stream()
+            .map(row -> {
+                long age = Math.max(0, now - toEpochMillis(row.takenAt()));
+                double factor = Math.pow(0.5, (double) age / HALF_LIFE.toMillis());
+                return new DecayingSpaceSaving.Entry<>(row.bookId(), row.score() * factor, row.error() * factor);
+            })
+            .toList();
+        counters.restore(entries, now);
+        log.info("Trending books restored from snapshot: {} books", entries.size());
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import ug.project.library.dto.UserRegistrationDto;
+import ug.project.library.exceptions.PasswordHashingBusyException;
 import ug.project.library.service.AuthService;
 
 @Controller
@@ -36,7 +37,8 @@ public class AuthController {
     @PostMapping("/register")
     public String registerUser(@Valid @ModelAttribute("user") UserRegistrationDto userDto, 
                               BindingResult bindingResult,
-                              RedirectAttributes redirectAttributes) {
+                              RedirectAttributes redirectAttributes,
+                              Model model) {
         if (bindingResult.hasErrors()) {
             return "register";
         }
@@ -48,6 +50,9 @@ public class AuthController {
         } catch (IllegalArgumentException e) {
             bindingResult.rejectValue("username", "error.user", e.getMessage());
             return "register";
+        } catch (PasswordHashingBusyException e) {
+            model.addAttribute("error", e.getMessage());
+            return "register";
         }
     }
 
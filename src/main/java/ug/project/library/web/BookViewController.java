@@ -8,18 +8,27 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import ug.project.library.service.BookService;
 import ug.project.library.dto.BookDto;
+import ug.project.library.service.AvailabilityForecast;
+import ug.project.library.trending.TrendingBooks;
 import ug.project.library.service.RatingService;
 
+import java.time.LocalDateTime;
+
 @Controller
 @RequestMapping("/books")
 public class BookViewController {
     
     private final BookService bookService;
     private final RatingService ratingService;
+    private final TrendingBooks trendingBooks;
+    private final AvailabilityForecast availabilityForecast;
 
-    public BookViewController(BookService bookService, RatingService ratingService) {
+    public BookViewController(BookService bookService, RatingService ratingService, TrendingBooks trendingBooks,
+                              AvailabilityForecast availabilityForecast) {
         this.bookService = bookService;
         this.ratingService = ratingService;
+        this.trendingBooks = trendingBooks;
+        this.availabilityForecast = availabilityForecast;
     }
 
     @GetMapping("/{id}")
@@ -28,6 +37,14 @@ public class BookViewController {
         long numRatings = ratingService.getAllRatingsForBook(id, pageable).getTotalElements();
         model.addAttribute("book", book);
         model.addAttribute("numRatings", numRatings);
+        if (book.getQuantityAvailable() == 0) {
+            // termin z przeszłości to wypożyczenie po terminie - zwrot możliwy w każdej chwili
+            availabilityForecast.expectedBack(id).ifPresent(expectedBack -> {
+                model.addAttribute("expectedBack", expectedBack);
+                model.addAttribute("expectedBackOverdue", expectedBack.isBefore(LocalDateTime.now()));
+            });
+        }
+        trendingBooks.recordView(id);
         return "book-details";
     }
 }
\ No newline at end of file
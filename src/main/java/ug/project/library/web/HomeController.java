@@ -4,7 +4,6 @@ package ug.project.library.web;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -13,11 +12,15 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import ug.project.library.dto.BookDto;
+import ug.project.library.dto.CursorPage;
+import ug.project.library.pagination.BookSort;
 import ug.project.library.service.BookService;
 
 @Controller
 public class HomeController {
 
+    private static final int TRENDING_RAIL_SIZE = 8;
+
     private final BookService bookService;
 
     public HomeController(BookService bookService) {
@@ -32,29 +35,41 @@ public class HomeController {
                       @RequestParam(required = false) String tab,
                       @RequestParam(required = false, defaultValue = "0") int page,
                       @RequestParam(required = false, defaultValue = "20") int size,
+                      @RequestParam(required = false) String cursor,
                       Model model) {
 
 
-        Page<BookDto> books;
+        List<BookDto> books;
+        String nextCursor = null;
+        int pageSize = BookService.clampPageSize(size);
         
         if ("popular".equals(tab)) {
-            List<BookDto> popularBooks = bookService.getTopRatedBooks(20);
-            books = new PageImpl<>(popularBooks, PageRequest.of(0, popularBooks.size()), popularBooks.size());
+            books = bookService.getTopRatedBooks(20);
         } else {
-            Pageable pageable = createPageableWithSort(sortBy, page, size);
-            
             boolean hasSearchParams = (title != null && !title.isBlank()) || 
                                      (author != null && !author.isBlank()) || 
                                      (keyword != null && !keyword.isBlank());
-            
-            if (hasSearchParams) {
-                books = bookService.searchBooks(title, author, keyword, pageable);
+
+            // stare linki ?page=N nadal działają, domyślnie przewijamy kursorem
+            if (page > 0) {
+                Pageable pageable = createPageableWithSort(sortBy, page, pageSize);
+                Page<BookDto> result = hasSearchParams
+                    ? bookService.searchBooks(title, author, keyword, pageable)
+                    : bookService.getAllBooksDto(pageable);
+                books = result.getContent();
             } else {
-                books = bookService.getAllBooksDto(pageable);
+                BookSort sort = BookSort.fromParam(sortBy);
+                CursorPage<BookDto> result = hasSearchParams
+                    ? bookService.searchBooksAfter(title, author, keyword, sort, cursor, pageSize, false)
+                    : bookService.getBooksAfter(sort, cursor, pageSize, false);
+                books = result.getContent();
+                nextCursor = result.getNextCursor();
             }
         }
         
         model.addAttribute("books", books);
+        model.addAttribute("nextCursor", nextCursor);
+        model.addAttribute("trendingBooks", bookService.getTrendingBooks(TRENDING_RAIL_SIZE));
         model.addAttribute("currentSort", sortBy);
         return "index";
     }
@@ -70,6 +85,9 @@ public class HomeController {
             case "year":
                 sort = Sort.by(Sort.Direction.DESC, "yearPublished");
                 break;
+            case "relevance":
+                sort = Sort.unsorted();
+                break;
             case "title":
             default:
                 sort = Sort.by(Sort.Direction.ASC, "title");
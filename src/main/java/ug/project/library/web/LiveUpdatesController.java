@@ -0,0 +1,40 @@
+package ug.project.library.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ug.project.library.live.LiveUpdateBus;
+import ug.project.library.service.AuthService;
+import ug.project.library.service.LibraryUserPrincipal;
+
+// Strumienie SSE dla otwartych stron: zamiast przeładowań strona dostaje zmianę, gdy ta faktycznie nastąpi.
+// Ścieżki leżą obok widoków, żeby przeglądarka uwierzytelniała się tą samą sesją co strona.
+@Controller
+public class LiveUpdatesController {
+
+    private final LiveUpdateBus liveUpdateBus;
+    private final AuthService authService;
+
+    public LiveUpdatesController(LiveUpdateBus liveUpdateBus, AuthService authService) {
+        this.liveUpdateBus = liveUpdateBus;
+        this.authService = authService;
+    }
+
+    @GetMapping(path = "/books/{bookId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter bookAvailability(@PathVariable Long bookId, HttpServletRequest request) {
+        LibraryUserPrincipal principal = authService.getCurrentPrincipal();
+        String client = principal != null ? "user:" + principal.getUserId() : "ip:" + request.getRemoteAddr();
+        return liveUpdateBus.subscribeToBook(bookId, client);
+    }
+
+    @GetMapping(path = "/user/my-reservations/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter myReservations() {
+        return liveUpdateBus.subscribeToUser(authService.getCurrentUserId());
+    }
+}
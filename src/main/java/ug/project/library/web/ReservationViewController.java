@@ -1,37 +1,82 @@
 package ug.project.library.web;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import ug.project.library.service.BookService;
 import ug.project.library.service.ReservationService;
+import ug.project.library.service.WaitlistService;
 import ug.project.library.dto.*;
+import ug.project.library.exceptions.IdempotencyKeyConflictException;
+import ug.project.library.model.enumerate.ReservationStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
 public class ReservationViewController {
     
+    private static final int CONSOLE_PAGE_SIZE = 25;
+
     private final BookService bookService;
     private final ReservationService reservationService;
+    private final WaitlistService waitlistService;
 
-    public ReservationViewController(BookService bookService, ReservationService reservationService) {
+    public ReservationViewController(BookService bookService, ReservationService reservationService, WaitlistService waitlistService) {
         this.bookService = bookService;
         this.reservationService = reservationService;
+        this.waitlistService = waitlistService;
     }
 
     @GetMapping("/reservation/{bookId}")
     public String reservationPage(@PathVariable Long bookId, Model model) {
         BookDto book = bookService.getBookDtoById(bookId);
         model.addAttribute("book", book);
+        // Jednorazowy token formularza - ponowne wysłanie tej samej strony nie tworzy drugiej rezerwacji
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
+        if (book.getQuantityAvailable() == 0) {
+            model.addAttribute("waitlist", waitlistService.getPosition(bookId));
+        }
         return "reservation";
     }
 
+    @PostMapping("/reservation/{bookId}/waitlist")
+    public String joinWaitlist(@PathVariable Long bookId, RedirectAttributes redirectAttributes) {
+        try {
+            WaitlistPositionDto position = waitlistService.join(bookId);
+            redirectAttributes.addFlashAttribute("success",
+                "Jesteś w kolejce na pozycji " + position.getPosition() + ". Zwolniony egzemplarz zarezerwujemy dla Ciebie automatycznie.");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/reservation/" + bookId;
+    }
+
+    @PostMapping("/reservation/{bookId}/waitlist/leave")
+    public String leaveWaitlist(@PathVariable Long bookId, RedirectAttributes redirectAttributes) {
+        waitlistService.leave(bookId);
+        redirectAttributes.addFlashAttribute("success", "Wypisano z kolejki");
+        return "redirect:/reservation/" + bookId;
+    }
+
     @PostMapping("/reservation/{bookId}")
-    public String makeReservation(@PathVariable Long bookId, RedirectAttributes redirectAttributes) {
+    public String makeReservation(@PathVariable Long bookId, @RequestParam(required = false) String idempotencyKey,
+                                  RedirectAttributes redirectAttributes) {
         try {
-            ReservationDto reservation = reservationService.createNewReservation(bookId);
+            ReservationDto reservation = reservationService.createNewReservation(bookId, idempotencyKey);
             redirectAttributes.addFlashAttribute("success", "Rezerwacja została utworzona pomyślnie!");
             return "redirect:/user/my-reservations";
+        } catch (IdempotencyKeyConflictException e) {
+            // Podwójne kliknięcie: pierwsze wysłanie wciąż tworzy rezerwację
+            redirectAttributes.addFlashAttribute("success", "Rezerwacja jest już przetwarzana");
+            return "redirect:/user/my-reservations";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
             return "redirect:/reservation/" + bookId;
@@ -39,11 +84,30 @@ public class ReservationViewController {
     }
 
     @GetMapping("/admin/manage-reservations")
-    public String manageReservationsPage(Model model) {
-        model.addAttribute("reservations", reservationService.getAllReservations());
+    public String manageReservationsPage(@ModelAttribute("filter") ReservationFilter filter,
+                                         @RequestParam(required = false) String cursor,
+                                         Model model) {
+        CursorPage<ReservationDto> page = reservationService.findReservations(filter, cursor, CONSOLE_PAGE_SIZE);
+        model.addAttribute("reservations", page.getContent());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("statuses", ReservationStatus.values());
         return "admin/manage-reservations";
     }
 
+    // Eksport dla konsoli w przeglądarce (sesja); klienci API korzystają z /api/reservations/export z tokenem
+    @GetMapping("/admin/manage-reservations/export")
+    public ResponseEntity<StreamingResponseBody> exportReservations(@ModelAttribute ReservationFilter filter) {
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            reservationService.exportReservations(filter, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservations.csv\"")
+            .body(body);
+    }
+
     @PostMapping("/reservation/{id}/cancel")
     public String cancelReservation(@PathVariable Long id, @RequestParam(defaultValue = "user") String source, RedirectAttributes redirectAttributes) {
         try {
@@ -1,17 +1,16 @@
 package ug.project.library.web;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import ug.project.library.model.entity.Author;
-import ug.project.library.model.entity.Book;
-import ug.project.library.model.entity.User;
+import ug.project.library.dto.StatsDashboardDto;
+import ug.project.library.model.enumerate.StatsWindow;
 import ug.project.library.service.StatisticsService;
 
 @Controller
@@ -29,27 +28,36 @@ public class StatisticsViewController {
             @RequestParam(defaultValue = "0") int booksPage,
             @RequestParam(defaultValue = "0") int authorsPage,
             @RequestParam(defaultValue = "0") int usersPage,
+            @RequestParam(required = false) String window,
             Model model) {
+
+        model.addAttribute("windows", StatsWindow.values());
+        if (window != null) {
+            // Zakładki 24h/7d/30d - rankingi z kubełków czasowych, bez stronicowania
+            StatsWindow statsWindow = StatsWindow.fromCode(window);
+            model.addAttribute("window", statsWindow.getCode());
+            model.addAttribute("trending", statisticsService.getTrendingStats(statsWindow, 10));
+            return "admin/stats";
+        }
+
+        // Najpopularniejsze książki, autorzy i najaktywniejsi użytkownicy - ładowane równolegle
+        StatsDashboardDto dashboard = statisticsService.getDashboard(
+            PageRequest.of(booksPage, 10), PageRequest.of(authorsPage, 10), PageRequest.of(usersPage, 10));
         
-        // Najpopularniejsze książki
-        Pageable booksPageable = PageRequest.of(booksPage, 10);
-        Page<Book> books = statisticsService.getMostPopularBooks(booksPageable);
-        
-        // Najpopularniejsi autorzy
-        Pageable authorsPageable = PageRequest.of(authorsPage, 10);
-        Page<Author> authors = statisticsService.getMostPopularAuthors(authorsPageable);
-        
-        // Najaktywniejsi użytkownicy
-        Pageable usersPageable = PageRequest.of(usersPage, 10);
-        Page<User> users = statisticsService.getUsersWithMostLoans(usersPageable);
-        
-        model.addAttribute("books", books);
-        model.addAttribute("authors", authors);
-        model.addAttribute("users", users);
+        model.addAttribute("books", dashboard.getBooks());
+        model.addAttribute("authors", dashboard.getAuthors());
+        model.addAttribute("users", dashboard.getUsers());
         model.addAttribute("booksPage", booksPage);
         model.addAttribute("authorsPage", authorsPage);
         model.addAttribute("usersPage", usersPage);
         
         return "admin/stats";
     }
-}
\ No newline at end of file
+
+    @PostMapping("/stats/rebuild")
+    public String rebuildStatistics(RedirectAttributes redirectAttributes) {
+        statisticsService.rebuildLoanCounters();
+        redirectAttributes.addFlashAttribute("success", "Liczniki wypożyczeń zostały przeliczone z historii rezerwacji.");
+        return "redirect:/admin/stats";
+    }
+}
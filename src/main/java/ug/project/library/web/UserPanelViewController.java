@@ -14,9 +14,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import ug.project.library.service.AuthService;
 import ug.project.library.service.ReservationService;
-import ug.project.library.service.BookService;
-import ug.project.library.dto.BookDto;
-import ug.project.library.model.entity.Reservation;
+import ug.project.library.dto.ReservationDto;
 
 @Controller
 @RequestMapping("/user")
@@ -34,7 +32,7 @@ public class UserPanelViewController {
     @GetMapping("/my-reservations")
     public String myReservations(Model model) {
         Long userId = authService.getCurrentUserId();
-        List<Reservation> activeReservations = reservationService.getUserActiveReservations(userId);
+        List<ReservationDto> activeReservations = reservationService.getUserActiveReservations(userId);
         
         model.addAttribute("reservations", activeReservations);
         return "user/my-reservations";
@@ -44,7 +42,7 @@ public class UserPanelViewController {
     public String reservationHistory(Model model, @RequestParam(defaultValue = "0") int page) {
         Long userId = authService.getCurrentUserId();
         Pageable pageable = PageRequest.of(page, 10);
-        Page<Reservation> historyPage = reservationService.getUserReservationHistory(userId, pageable);
+        Page<ReservationDto> historyPage = reservationService.getUserReservationHistory(userId, pageable);
         
         model.addAttribute("historyPage", historyPage);
         model.addAttribute("currentPage", page);
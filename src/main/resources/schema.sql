@@ -18,9 +18,30 @@ CREATE TABLE IF NOT EXISTS books (
     year_published INT,
     publisher VARCHAR(255) NOT NULL,
     cover_image_url VARCHAR(512),
-    quantity_available INT
+    quantity_available INT,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    rating_count INT NOT NULL DEFAULT 0,
+    rating_1 INT NOT NULL DEFAULT 0,
+    rating_2 INT NOT NULL DEFAULT 0,
+    rating_3 INT NOT NULL DEFAULT 0,
+    rating_4 INT NOT NULL DEFAULT 0,
+    rating_5 INT NOT NULL DEFAULT 0
 );
 
+-- istniejące bazy: kolumny dochodzą z zerami, RatingAggregateRepairJob uzupełnia je przy pierwszym przebiegu
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_count INT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_1 INT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_2 INT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_3 INT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_4 INT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_5 INT NOT NULL DEFAULT 0;
+
+-- indeksy pod stronicowanie keyset (klucz sortowania + id)
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books (title, id);
+CREATE INDEX IF NOT EXISTS idx_books_rating_id ON books ((COALESCE(avg_rating, 0)) DESC, id);
+CREATE INDEX IF NOT EXISTS idx_books_year_id ON books (year_published DESC, id);
+
 CREATE TABLE IF NOT EXISTS book_author (
     book_id BIGINT REFERENCES books(id),
     author_id BIGINT REFERENCES authors(id),
@@ -47,10 +68,36 @@ CREATE TABLE IF NOT EXISTS reservations (
     status VARCHAR(50) NOT NULL,
     created_at TIMESTAMP NOT NULL,
     deadline TIMESTAMP,
+    overdue_at TIMESTAMP,
     user_id BIGINT NOT NULL REFERENCES users(id),
     book_id BIGINT NOT NULL REFERENCES books(id)
 );
 
+-- przegląd przeterminowanych rezerwacji czyta tylko oczekujące, po terminie
+CREATE INDEX IF NOT EXISTS idx_reservations_pending_deadline ON reservations (deadline) WHERE status = 'OCZEKUJĄCA';
+
+-- wypożyczenia po terminie zwrotu (deadline wypożyczonej rezerwacji); overdue_at ustawia OverdueLoanScanner
+ALTER TABLE reservations ADD COLUMN IF NOT EXISTS overdue_at TIMESTAMP;
+
+-- istniejące wypożyczenia miały w deadline jeszcze termin potwierdzenia - termin zwrotu liczymy od utworzenia
+UPDATE reservations SET deadline = created_at + INTERVAL '14 days'
+WHERE status = 'WYPOŻYCZONA' AND (deadline IS NULL OR deadline < created_at + INTERVAL '1 day');
+
+-- chwila wypożyczenia dla kubełków statystyk; wcześniejsze wypożyczenia jej nie znają, więc przyjmujemy
+-- utworzenie rezerwacji (tak liczyło dawne przeliczenie)
+ALTER TABLE reservations ADD COLUMN IF NOT EXISTS borrowed_at TIMESTAMP;
+UPDATE reservations SET borrowed_at = created_at
+WHERE borrowed_at IS NULL AND status IN ('WYPOŻYCZONA', 'ZWRÓCONA');
+
+-- przegląd zaległości widzi tylko jeszcze nieoznaczone wypożyczenia, uporządkowane po terminie zwrotu
+CREATE INDEX IF NOT EXISTS idx_reservations_loan_due ON reservations (deadline) WHERE status = 'WYPOŻYCZONA' AND overdue_at IS NULL;
+
+-- konsola rezerwacji: keyset po (created_at, id) malejąco, bez filtra albo po jednym z filtrów
+CREATE INDEX IF NOT EXISTS idx_reservations_created ON reservations (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_reservations_status_created ON reservations (status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_reservations_user_created ON reservations (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_reservations_book_created ON reservations (book_id, created_at DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS ratings (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL REFERENCES users(id),
@@ -68,4 +115,81 @@ CREATE TABLE IF NOT EXISTS comments (
     last_modified_at TIMESTAMP,
     user_id BIGINT NOT NULL REFERENCES users(id),
     book_id BIGINT NOT NULL REFERENCES books(id)
-);
\ No newline at end of file
+);
+-- liczniki wypożyczeń do statystyk, podbijane przy wypożyczeniu zamiast GROUP BY po reservations
+CREATE TABLE IF NOT EXISTS book_loan_stats (
+    book_id BIGINT PRIMARY KEY REFERENCES books(id) ON DELETE CASCADE,
+    loan_count BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS author_loan_stats (
+    author_id BIGINT PRIMARY KEY REFERENCES authors(id) ON DELETE CASCADE,
+    loan_count BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS user_loan_stats (
+    user_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    loan_count BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_book_loan_stats_count ON book_loan_stats (loan_count DESC, book_id);
+CREATE INDEX IF NOT EXISTS idx_author_loan_stats_count ON author_loan_stats (loan_count DESC, author_id);
+CREATE INDEX IF NOT EXISTS idx_user_loan_stats_count ON user_loan_stats (loan_count DESC, user_id);
+
+-- jednorazowe wypełnienie z historii przy pierwszym starcie z nowymi tabelami
+INSERT INTO book_loan_stats (book_id, loan_count)
+SELECT book_id, COUNT(*) FROM reservations
+WHERE status IN ('WYPOŻYCZONA', 'ZWRÓCONA') AND NOT EXISTS (SELECT 1 FROM book_loan_stats)
+GROUP BY book_id;
+
+INSERT INTO author_loan_stats (author_id, loan_count)
+SELECT ba.author_id, COUNT(*) FROM reservations r
+JOIN book_author ba ON ba.book_id = r.book_id
+WHERE r.status IN ('WYPOŻYCZONA', 'ZWRÓCONA') AND NOT EXISTS (SELECT 1 FROM author_loan_stats)
+GROUP BY ba.author_id;
+
+INSERT INTO user_loan_stats (user_id, loan_count)
+SELECT user_id, COUNT(*) FROM reservations
+WHERE status IN ('WYPOŻYCZONA', 'ZWRÓCONA') AND NOT EXISTS (SELECT 1 FROM user_loan_stats)
+GROUP BY user_id;
+
+-- kubełki wypożyczeń: godzinowe z ostatnich 48h, starsze zwinięte w dzienne (LoanBucketCompactionJob)
+CREATE TABLE IF NOT EXISTS loan_buckets (
+    subject_type VARCHAR(10) NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    subject_id BIGINT NOT NULL,
+    loan_count BIGINT NOT NULL,
+    PRIMARY KEY (subject_type, granularity, bucket_start, subject_id)
+);
+
+-- zrzut rankingu "popularne teraz" z pamięci (TrendingBooks)
+CREATE TABLE IF NOT EXISTS trending_snapshot (
+    book_id BIGINT PRIMARY KEY,
+    score DOUBLE PRECISION NOT NULL,
+    error DOUBLE PRECISION NOT NULL,
+    taken_at TIMESTAMP NOT NULL
+);
+
+-- klucze idempotencji rezerwacji: powtórzone żądanie dostaje zapisaną odpowiedź zamiast drugiej rezerwacji
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    user_id BIGINT NOT NULL,
+    idem_key VARCHAR(64) NOT NULL,
+    book_id BIGINT NOT NULL,
+    response VARCHAR(4000),
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, idem_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created ON idempotency_keys (created_at);
+
+-- kolejka oczekujących na niedostępne książki (FIFO po id); zwolniony egzemplarz trafia do pierwszej osoby
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id BIGSERIAL PRIMARY KEY,
+    book_id BIGINT NOT NULL REFERENCES books(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT unique_waitlist_book_user UNIQUE (book_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_book_id ON waitlist_entries (book_id, id);
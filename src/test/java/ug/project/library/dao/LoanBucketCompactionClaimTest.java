@@ -0,0 +1,130 @@
+package ug.project.library.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dwie "instancje" zwijają te same kubełki godzinowe: druga rusza, gdy pierwsza usunęła już wiersze,
+// ale jeszcze nie zatwierdziła transakcji - suma w kubełkach dziennych nie może się podwoić
+@SpringBootTest
+@ActiveProfiles("test")
+class LoanBucketCompactionClaimTest {
+
+    private static final LocalDateTime BEFORE = LocalDateTime.of(2024, 5, 20, 0, 0);
+    private static final int SUBJECTS = 400;
+    private static final int HOURS = 3;
+
+    @Autowired
+    private LoanStatsDao loanStatsDao;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Autowired
+    private WorkClaimSupport workClaimSupport;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int subject = 1; subject <= SUBJECTS; subject++) {
+            for (int hour = 0; hour < HOURS; hour++) {
+                rows.add(new Object[]{Timestamp.valueOf(BEFORE.minusDays(3).plusHours(hour)), subject, 1 + subject % 4});
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO loan_buckets (subject_type, granularity, bucket_start, subject_id, loan_count)
+            VALUES ('BOOK', 'HOUR', ?, ?, ?)
+            """, rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM loan_buckets");
+    }
+
+    @Test
+    @DisplayName("Równoległe zwijanie z SKIP LOCKED nie powinno liczyć kubełków dwa razy")
+    void compactHourlyBuckets_ShouldNotDoubleCount_WithSkipLocked() throws Exception {
+        assertThat(workClaimSupport.skipLockedSupported()).isTrue();
+
+        compactConcurrently(loanStatsDao);
+    }
+
+    @Test
+    @DisplayName("Wariant zastępczy bez SKIP LOCKED też nie powinien liczyć kubełków dwa razy")
+    void compactHourlyBuckets_ShouldNotDoubleCount_WithFallbackClaiming() throws Exception {
+        WorkClaimSupport withoutSkipLocked = new WorkClaimSupport(databaseDialect) {
+            @Override
+            public boolean skipLockedSupported() {
+                return false;
+            }
+        };
+
+        compactConcurrently(new LoanStatsDao(jdbcTemplate, databaseDialect, withoutSkipLocked));
+    }
+
+    private void compactConcurrently(LoanStatsDao dao) throws Exception {
+        long hourlyTotal = sum("HOUR");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstCompacted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                int compacted = dao.compactHourlyBuckets(BEFORE);
+                firstCompacted.countDown();
+                sleep(300);
+                return compacted;
+            }));
+            assertThat(firstCompacted.await(30, TimeUnit.SECONDS)).isTrue();
+            Future<Integer> second = executor.submit(() ->
+                transactionTemplate.execute(status -> dao.compactHourlyBuckets(BEFORE)));
+
+            assertThat(first.get(30, TimeUnit.SECONDS) + second.get(30, TimeUnit.SECONDS)).isEqualTo(SUBJECTS * HOURS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sum("HOUR")).isZero();
+        assertThat(sum("DAY")).isEqualTo(hourlyTotal);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM loan_buckets WHERE granularity = 'DAY'", Integer.class)).isEqualTo(SUBJECTS);
+    }
+
+    private long sum(String granularity) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(loan_count), 0) FROM loan_buckets WHERE granularity = ?", Long.class, granularity);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package ug.project.library.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.dto.ActiveUserDto;
+import ug.project.library.dto.LoanRankingDto;
+import ug.project.library.dto.PopularAuthorDto;
+import ug.project.library.dto.PopularBookDto;
+import ug.project.library.model.entity.Author;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Reservation;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.LoanSubject;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.AuthorRepository;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({LoanStatsDao.class, DatabaseDialect.class, WorkClaimSupport.class})
+class LoanStatsDaoTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 20, 14, 30);
+
+    @Autowired
+    private LoanStatsDao loanStatsDao;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Author orwell;
+    private Book farm;
+    private Book nineteen;
+    private User anna;
+    private User piotr;
+
+    @BeforeEach
+    void setUp() {
+        orwell = authorRepository.save(new Author("George", "Orwell", new ArrayList<>()));
+        farm = bookRepository.save(new Book("Folwark zwierzęcy", List.of(orwell), new ArrayList<>(), 0.0, 1945, "Muza", null, 3));
+        nineteen = bookRepository.save(new Book("Rok 1984", List.of(orwell), new ArrayList<>(), 0.0, 1949, "Muza", null, 3));
+        anna = userRepository.save(new User("anna", "pass", "anna@test.com", UserRole.USER));
+        piotr = userRepository.save(new User("piotr", "pass", "piotr@test.com", UserRole.USER));
+        bookRepository.flush();
+    }
+
+    @Test
+    @DisplayName("Wypożyczenie powinno podbić liczniki książki, autora i użytkownika")
+    void recordLoan_ShouldIncrementAllCounters() {
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW);
+        loanStatsDao.recordLoan(farm.getId(), piotr.getId(), NOW);
+        loanStatsDao.recordLoan(nineteen.getId(), anna.getId(), NOW);
+
+        assertThat(count("book_loan_stats", "book_id", farm.getId())).isEqualTo(2);
+        assertThat(count("book_loan_stats", "book_id", nineteen.getId())).isEqualTo(1);
+        assertThat(count("author_loan_stats", "author_id", orwell.getId())).isEqualTo(3);
+        assertThat(count("user_loan_stats", "user_id", anna.getId())).isEqualTo(2);
+        assertThat(count("user_loan_stats", "user_id", piotr.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Rankingi powinny czytać liczniki w kolejności malejącej")
+    void rankings_ShouldFollowCounters() {
+        loanStatsDao.recordLoan(nineteen.getId(), piotr.getId(), NOW);
+        loanStatsDao.recordLoan(nineteen.getId(), piotr.getId(), NOW);
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW);
+
+        assertThat(bookRepository.findMostPopularBooks(PageRequest.of(0, 10)).getContent())
+            .extracting(PopularBookDto::getId, PopularBookDto::getLoanCount)
+            .containsExactly(tuple(nineteen.getId(), 2L), tuple(farm.getId(), 1L));
+        assertThat(userRepository.getUsersWithMostLoans(PageRequest.of(0, 10)).getContent())
+            .extracting(ActiveUserDto::getUsername).containsExactly("piotr", "anna");
+        assertThat(authorRepository.findMostPopularAuthors(PageRequest.of(0, 10)).getContent())
+            .extracting(PopularAuthorDto::getFullName, PopularAuthorDto::getBookCount, PopularAuthorDto::getLoanCount)
+            .containsExactly(tuple("George Orwell", 2L, 3L));
+    }
+
+    @Test
+    @DisplayName("Przeliczenie powinno odtworzyć liczniki z historii rezerwacji")
+    void rebuild_ShouldRecomputeFromReservations() {
+        reservation(farm, anna, ReservationStatus.WYPOŻYCZONA);
+        reservation(farm, piotr, ReservationStatus.ZWRÓCONA);
+        reservation(nineteen, anna, ReservationStatus.ZWRÓCONA);
+        reservation(nineteen, piotr, ReservationStatus.OCZEKUJĄCA);
+        reservationRepository.flush();
+        loanStatsDao.recordLoan(nineteen.getId(), piotr.getId(), NOW);
+
+        loanStatsDao.rebuild(NOW.minusHours(48), NOW.minusDays(90));
+
+        assertThat(count("book_loan_stats", "book_id", farm.getId())).isEqualTo(2);
+        assertThat(count("book_loan_stats", "book_id", nineteen.getId())).isEqualTo(1);
+        assertThat(count("author_loan_stats", "author_id", orwell.getId())).isEqualTo(3);
+        assertThat(count("user_loan_stats", "user_id", anna.getId())).isEqualTo(2);
+        assertThat(count("user_loan_stats", "user_id", piotr.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ranking okienkowy powinien sumować tylko kubełki z okna")
+    void findTopSince_ShouldSumBucketsInsideWindow() {
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW);
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW.minusHours(3));
+        loanStatsDao.recordLoan(nineteen.getId(), piotr.getId(), NOW.minusHours(2));
+        loanStatsDao.recordLoan(nineteen.getId(), piotr.getId(), NOW.minusDays(3));
+        loanStatsDao.recordLoan(nineteen.getId(), piotr.getId(), NOW.minusDays(4));
+
+        List<LoanRankingDto> day = loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusHours(24), 10);
+        assertThat(day).extracting(LoanRankingDto::getId).containsExactly(farm.getId(), nineteen.getId());
+        assertThat(day).extracting(LoanRankingDto::getLoanCount).containsExactly(2L, 1L);
+        assertThat(day.get(0).getName()).isEqualTo("Folwark zwierzęcy");
+
+        List<LoanRankingDto> week = loanStatsDao.findTopSince(LoanSubject.USER, NOW.minusDays(7), 1);
+        assertThat(week).extracting(LoanRankingDto::getName).containsExactly("piotr");
+        assertThat(loanStatsDao.findTopSince(LoanSubject.AUTHOR, NOW.minusDays(7), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Zwijanie kubełków godzinowych w dzienne nie powinno zmieniać wyników okien")
+    void compactHourlyBuckets_ShouldPreserveWindowTotals() {
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW.minusDays(3).withHour(9));
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW.minusDays(3).withHour(17));
+        loanStatsDao.recordLoan(farm.getId(), piotr.getId(), NOW.minusHours(1));
+
+        int compacted = loanStatsDao.compactHourlyBuckets(NOW.minusHours(48));
+
+        assertThat(compacted).isEqualTo(6);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM loan_buckets WHERE granularity = 'DAY' AND subject_type = 'BOOK'", Long.class))
+            .isEqualTo(1);
+        assertThat(loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusDays(7), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(3L);
+        assertThat(loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusHours(24), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(1L);
+
+        loanStatsDao.deleteDailyBucketsBefore(NOW.minusDays(2));
+        assertThat(loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusDays(7), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Okno dzienne nie powinno doliczać wypożyczeń z początku pierwszej doby sprzed okna")
+    void findTopSince_ShouldSkipPartialStartDay() {
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW.minusDays(7).withHour(9));
+        loanStatsDao.recordLoan(farm.getId(), anna.getId(), NOW.minusDays(6).withHour(9));
+        loanStatsDao.compactHourlyBuckets(NOW.minusHours(48));
+
+        assertThat(loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusDays(7), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(1L);
+        assertThat(loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusDays(7).truncatedTo(ChronoUnit.DAYS), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Przeliczenie powinno odtworzyć kubełki z chwili wypożyczenia, nie utworzenia rezerwacji")
+    void rebuild_ShouldRecreateBuckets() {
+        reservation(farm, anna, ReservationStatus.ZWRÓCONA, NOW.minusDays(4), NOW.minusHours(5));
+        reservation(farm, piotr, ReservationStatus.ZWRÓCONA, NOW.minusDays(10));
+        reservation(nineteen, piotr, ReservationStatus.OCZEKUJĄCA, NOW.minusHours(1));
+        reservationRepository.flush();
+
+        loanStatsDao.rebuild(NOW.minusHours(48), NOW.minusDays(90));
+
+        assertThat(loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusHours(24), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(1L);
+        assertThat(loanStatsDao.findTopSince(LoanSubject.BOOK, NOW.minusDays(30), 10))
+            .extracting(LoanRankingDto::getLoanCount).containsExactly(2L);
+    }
+
+    private void reservation(Book book, User user, ReservationStatus status) {
+        reservation(book, user, status, NOW);
+    }
+
+    private void reservation(Book book, User user, ReservationStatus status, LocalDateTime createdAt) {
+        reservation(book, user, status, createdAt, createdAt);
+    }
+
+    private void reservation(Book book, User user, ReservationStatus status, LocalDateTime createdAt, LocalDateTime borrowedAt) {
+        Reservation reservation = new Reservation(status, createdAt, user, book, null);
+        if (status == ReservationStatus.WYPOŻYCZONA || status == ReservationStatus.ZWRÓCONA) {
+            reservation.setBorrowedAt(borrowedAt);
+        }
+        reservationRepository.save(reservation);
+    }
+
+    private long count(String table, String keyColumn, Long id) {
+        return jdbcTemplate.queryForObject(
+            "SELECT loan_count FROM " + table + " WHERE " + keyColumn + " = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,120 @@
+package ug.project.library.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Rating;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.RatingRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({RatingDao.class, DatabaseDialect.class})
+class RatingDaoTest {
+
+    @Autowired
+    private RatingDao ratingDao;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Book testBook;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = userRepository.save(new User("user", "pass", "user@test.com", UserRole.USER));
+
+        testBook = new Book();
+        testBook.setTitle("Title");
+        testBook.setPublisher("Publisher");
+        testBook = bookRepository.saveAndFlush(testBook);
+    }
+
+    @Test
+    @DisplayName("Nowa książka powinna mieć wyzerowane liczniki ocen")
+    void newBook_ShouldStartWithZeroAggregates() {
+        Map<String, Object> row = aggregates();
+
+        assertThat(((Number) row.get("rating_count")).intValue()).isZero();
+        assertThat(((Number) row.get("rating_sum")).longValue()).isZero();
+    }
+
+    @Test
+    @DisplayName("Powinno przyrostowo aktualizować sumę, licznik, histogram i średnią")
+    void applyScoreChange_ShouldMaintainAggregates() {
+        ratingDao.applyScoreChange(testBook.getId(), null, 5);
+        ratingDao.applyScoreChange(testBook.getId(), null, 3);
+        assertThat(ratingDao.applyScoreChange(testBook.getId(), 3, 4)).isEqualTo(4.5);
+
+        Map<String, Object> row = aggregates();
+        assertThat(((Number) row.get("rating_count")).intValue()).isEqualTo(2);
+        assertThat(((Number) row.get("rating_sum")).longValue()).isEqualTo(9);
+        assertThat(((Number) row.get("rating_3")).intValue()).isZero();
+        assertThat(((Number) row.get("rating_4")).intValue()).isEqualTo(1);
+        assertThat(((Number) row.get("rating_5")).intValue()).isEqualTo(1);
+        assertThat(ratingDao.findAverageRating(testBook.getId())).isEqualTo(4.5);
+
+        ratingDao.applyScoreChange(testBook.getId(), 5, null);
+        ratingDao.applyScoreChange(testBook.getId(), 4, null);
+        assertThat(ratingDao.findAverageRating(testBook.getId())).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("Powinno wykryć i naprawić rozjazd liczników z tabelą ocen")
+    void findDriftAndRecompute_ShouldRepairAggregates() {
+        ratingRepository.save(new Rating(testUser, testBook, 2));
+        ratingRepository.saveAndFlush(new Rating(testUser, testBook, 4));
+
+        List<RatingDao.RatingDrift> drift = ratingDao.findDrift();
+        assertThat(drift).containsExactly(new RatingDao.RatingDrift(testBook.getId(), 0, 2, 0, 6));
+
+        ratingDao.recomputeAggregates(List.of(testBook.getId()));
+
+        assertThat(ratingDao.findDrift()).isEmpty();
+        assertThat(ratingDao.findAverageRating(testBook.getId())).isEqualTo(3.0);
+        assertThat(((Number) aggregates().get("rating_2")).intValue()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Powinno wykryć i naprawić samą rozjechaną średnią")
+    void findDrift_ShouldDetectStaleAverage() {
+        ratingDao.applyScoreChange(testBook.getId(), null, 4);
+        jdbcTemplate.update("UPDATE books SET avg_rating = ? WHERE id = ?", 1.0, testBook.getId());
+        ratingRepository.saveAndFlush(new Rating(testUser, testBook, 4));
+
+        assertThat(ratingDao.findDrift()).extracting(RatingDao.RatingDrift::bookId).containsExactly(testBook.getId());
+
+        ratingDao.recomputeAggregates(List.of(testBook.getId()));
+
+        assertThat(ratingDao.findDrift()).isEmpty();
+        assertThat(ratingDao.findAverageRating(testBook.getId())).isEqualTo(4.0);
+    }
+
+    private Map<String, Object> aggregates() {
+        return jdbcTemplate.queryForMap("SELECT * FROM books WHERE id = ?", testBook.getId());
+    }
+}
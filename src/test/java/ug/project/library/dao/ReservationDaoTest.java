@@ -0,0 +1,146 @@
+package ug.project.library.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.dto.ReservationDto;
+import ug.project.library.dto.ReservationFilter;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Reservation;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.pagination.ReservationCursor;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ReservationDao.class)
+class ReservationDaoTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 10, 12, 0);
+
+    @Autowired
+    private ReservationDao reservationDao;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User anna;
+    private User piotr;
+    private Book farm;
+    private Book nineteen;
+
+    @BeforeEach
+    void setUp() {
+        anna = userRepository.save(new User("anna", "pass", "anna@test.com", UserRole.USER));
+        piotr = userRepository.save(new User("piotr", "pass", "piotr@test.com", UserRole.USER));
+        farm = bookRepository.save(new Book("Folwark zwierzęcy", new ArrayList<>(), new ArrayList<>(), 0.0, 1945, "Muza", null, 3));
+        nineteen = bookRepository.save(new Book("Rok 1984", new ArrayList<>(), new ArrayList<>(), 0.0, 1949, "Muza", null, 3));
+
+        // dwie rezerwacje z tą samą datą - kolejność między nimi rozstrzyga ID
+        save(anna, farm, ReservationStatus.ZWRÓCONA, DAY.minusDays(5));
+        save(piotr, farm, ReservationStatus.WYPOŻYCZONA, DAY.minusDays(2));
+        save(anna, nineteen, ReservationStatus.WYPOŻYCZONA, DAY.minusDays(2));
+        save(piotr, nineteen, ReservationStatus.OCZEKUJĄCA, DAY);
+        save(anna, farm, ReservationStatus.POTWIERDZONA, DAY.plusDays(1));
+        reservationRepository.flush();
+    }
+
+    @Test
+    @DisplayName("Kolejne strony keyset powinny pokryć wszystkie rezerwacje bez powtórzeń")
+    void findConsolePage_ShouldWalkAllPagesInOrder() {
+        ReservationFilter filter = new ReservationFilter();
+        List<ReservationDto> seen = new ArrayList<>();
+        ReservationCursor after = null;
+        List<ReservationDto> page;
+        do {
+            page = reservationDao.findConsolePage(filter, after, 2);
+            seen.addAll(page);
+            if (!page.isEmpty()) {
+                ReservationDto last = page.get(page.size() - 1);
+                after = new ReservationCursor(last.getCreatedAt(), last.getId());
+            }
+        } while (page.size() == 2);
+
+        assertThat(seen).hasSize(5);
+        assertThat(seen).extracting(ReservationDto::getId).doesNotHaveDuplicates();
+        assertThat(seen).extracting(ReservationDto::getCreatedAt).isSortedAccordingTo((a, b) -> b.compareTo(a));
+        assertThat(seen.get(0).getUserName()).isEqualTo("anna");
+        assertThat(seen.get(0).getBookTitle()).isEqualTo("Folwark zwierzęcy");
+    }
+
+    @Test
+    @DisplayName("Filtry powinny się łączyć, a zakres dat obejmować oba dni graniczne")
+    void findConsolePage_ShouldCombineFilters() {
+        assertThat(reservationDao.findConsolePage(
+                new ReservationFilter(ReservationStatus.WYPOŻYCZONA, null, null, null, null), null, 10))
+            .extracting(ReservationDto::getBookTitle)
+            .containsExactlyInAnyOrder("Folwark zwierzęcy", "Rok 1984");
+        assertThat(reservationDao.findConsolePage(
+                new ReservationFilter(null, anna.getId(), farm.getId(), null, null), null, 10))
+            .extracting(ReservationDto::getStatus)
+            .containsExactly(ReservationStatus.POTWIERDZONA, ReservationStatus.ZWRÓCONA);
+        assertThat(reservationDao.findConsolePage(
+                new ReservationFilter(null, null, null, LocalDate.of(2024, 3, 8), LocalDate.of(2024, 3, 10)), null, 10))
+            .extracting(ReservationDto::getStatus)
+            .containsExactly(ReservationStatus.OCZEKUJĄCA, ReservationStatus.WYPOŻYCZONA, ReservationStatus.WYPOŻYCZONA);
+    }
+
+    @Test
+    @DisplayName("Eksport powinien przekazać wszystkie pasujące wiersze w kolejności konsoli")
+    void forEachForExport_ShouldStreamFilteredRows() {
+        List<ReservationDto> exported = new ArrayList<>();
+
+        reservationDao.forEachForExport(new ReservationFilter(null, piotr.getId(), null, null, null), exported::add);
+
+        assertThat(exported).extracting(ReservationDto::getStatus)
+            .containsExactly(ReservationStatus.OCZEKUJĄCA, ReservationStatus.WYPOŻYCZONA);
+    }
+
+    @Test
+    @DisplayName("Zaległe wypożyczenie powinno zostać oznaczone tylko raz i trafić do filtra konsoli")
+    void markOverdueEach_ShouldFlagLoanOnce() {
+        Reservation loan = reservationRepository.save(
+            new Reservation(ReservationStatus.WYPOŻYCZONA, DAY.minusDays(20), piotr, nineteen, DAY.minusDays(6)));
+        reservationRepository.save(new Reservation(ReservationStatus.WYPOŻYCZONA, DAY, anna, farm, DAY.plusDays(14)));
+        reservationRepository.flush();
+
+        List<ReservationDao.OverdueLoan> overdue = reservationDao.findNewlyOverdue(DAY, 10);
+        assertThat(overdue).containsExactly(new ReservationDao.OverdueLoan(loan.getId(), piotr.getId(), nineteen.getId()));
+
+        assertThat(reservationDao.markOverdueEach(List.of(loan.getId()), DAY)).containsExactly(1);
+        assertThat(reservationDao.markOverdueEach(List.of(loan.getId()), DAY)).containsExactly(0);
+        assertThat(reservationDao.findNewlyOverdue(DAY, 10)).isEmpty();
+
+        ReservationFilter filter = new ReservationFilter();
+        filter.setOverdue(true);
+        assertThat(reservationDao.findConsolePage(filter, null, 10))
+            .extracting(ReservationDto::getId, ReservationDto::isOverdue)
+            .containsExactly(tuple(loan.getId(), true));
+    }
+
+    private void save(User user, Book book, ReservationStatus status, LocalDateTime createdAt) {
+        reservationRepository.save(new Reservation(status, createdAt, user, book, null));
+    }
+}
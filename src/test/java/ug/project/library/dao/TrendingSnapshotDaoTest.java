@@ -0,0 +1,46 @@
+package ug.project.library.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.dao.TrendingSnapshotDao.SnapshotRow;
+import ug.project.library.model.entity.Book;
+import ug.project.library.repository.BookRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(TrendingSnapshotDao.class)
+class TrendingSnapshotDaoTest {
+
+    @Autowired
+    private TrendingSnapshotDao snapshotDao;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    @DisplayName("Nowy zrzut powinien zastąpić poprzedni i pominąć usunięte książki")
+    void replaceSnapshot_ShouldOverwritePreviousAndSkipMissingBooks() {
+        Book book = new Book();
+        book.setTitle("Solaris");
+        book.setPublisher("Wydawnictwo Literackie");
+        book = bookRepository.saveAndFlush(book);
+        LocalDateTime takenAt = LocalDateTime.of(2024, 5, 20, 12, 0);
+
+        snapshotDao.replaceSnapshot(List.of(new SnapshotRow(book.getId(), 1.0, 0.0, takenAt.minusHours(1))));
+        snapshotDao.replaceSnapshot(List.of(
+            new SnapshotRow(book.getId(), 4.5, 0.5, takenAt),
+            new SnapshotRow(book.getId() + 1000, 9.0, 0.0, takenAt)));
+
+        assertThat(snapshotDao.findSnapshot())
+            .containsExactly(new SnapshotRow(book.getId(), 4.5, 0.5, takenAt));
+    }
+}
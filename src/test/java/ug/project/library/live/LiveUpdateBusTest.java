@@ -0,0 +1,128 @@
+package ug.project.library.live;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ug.project.library.dao.BookDao;
+import ug.project.library.exceptions.RateLimitExceededException;
+import ug.project.library.model.enumerate.ReservationStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LiveUpdateBusTest {
+
+    @Mock
+    private BookDao bookDao;
+
+    private final List<Runnable> dispatched = new ArrayList<>();
+
+    @Test
+    @DisplayName("Bez subskrybentów publikacja nie powinna niczego planować ani czytać z bazy")
+    void publish_ShouldBeFree_WithoutSubscribers() {
+        LiveUpdateBus bus = new LiveUpdateBus(bookDao, dispatched::add);
+
+        bus.availabilityChanged(1L);
+        bus.reservationChanged(7L, 10L, 1L, ReservationStatus.OCZEKUJĄCA);
+
+        assertThat(dispatched).isEmpty();
+        verifyNoInteractions(bookDao);
+    }
+
+    @Test
+    @DisplayName("Kilka zmian jednej książki przed wysyłką powinno dać jeden odczyt stanu")
+    void availabilityChanged_ShouldCoalescePendingReads() {
+        LiveUpdateBus bus = new LiveUpdateBus(bookDao, dispatched::add);
+        bus.subscribeToBook(1L, "ip:127.0.0.1");
+        when(bookDao.findQuantityAvailable(1L)).thenReturn(Optional.of(2));
+
+        bus.availabilityChanged(1L);
+        bus.availabilityChanged(1L);
+        bus.availabilityChanged(1L);
+        bus.availabilityChanged(2L);
+
+        assertThat(dispatched).hasSize(1);
+        dispatched.remove(0).run();
+        verify(bookDao, times(1)).findQuantityAvailable(1L);
+
+        bus.availabilityChanged(1L);
+        assertThat(dispatched).as("po wysyłce kolejna zmiana planuje nowy odczyt").hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Zdarzenia rezerwacji powinny trafiać tylko do subskrybentów danego użytkownika")
+    void reservationChanged_ShouldTargetSubscribedUser() {
+        LiveUpdateBus bus = new LiveUpdateBus(bookDao, dispatched::add);
+        bus.subscribeToUser(7L);
+        bus.subscribeToUser(7L);
+
+        bus.reservationChanged(8L, 10L, 1L, ReservationStatus.OCZEKUJĄCA);
+        bus.reservationChanged(7L, 11L, 1L, null);
+
+        assertThat(dispatched).hasSize(1);
+        assertThat(bus.subscriberCount()).isEqualTo(2);
+        verifyNoInteractions(bookDao);
+    }
+
+    @Test
+    @DisplayName("Odrzucony przy pełnej kolejce odczyt nie powinien blokować kolejnych zdarzeń książki")
+    void availabilityChanged_ShouldRecoverAfterQueueOverflow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+        LiveUpdateBus bus = new LiveUpdateBus(bookDao, executor);
+        bus.subscribeToBook(1L, "ip:127.0.0.1");
+        when(bookDao.findQuantityAvailable(1L)).thenReturn(Optional.of(1));
+
+        bus.availabilityChanged(1L);
+        assertThat(bus.droppedEvents()).isEqualTo(1);
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!executor.getQueue().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        bus.availabilityChanged(1L);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(bus.droppedEvents()).isEqualTo(1);
+        verify(bookDao, times(1)).findQuantityAvailable(1L);
+    }
+
+    @Test
+    @DisplayName("Jeden klient nie powinien otworzyć więcej strumieni niż jego limit")
+    void subscribe_ShouldLimitStreamsPerClient() {
+        LiveUpdateBus bus = new LiveUpdateBus(bookDao, dispatched::add);
+        for (int i = 0; i < LiveUpdateBus.MAX_SUBSCRIBERS_PER_CLIENT; i++) {
+            bus.subscribeToBook((long) i, "ip:10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> bus.subscribeToBook(1L, "ip:10.0.0.1"))
+            .isInstanceOf(RateLimitExceededException.class);
+        bus.subscribeToBook(1L, "ip:10.0.0.2");
+        assertThat(bus.subscriberCount()).isEqualTo(LiveUpdateBus.MAX_SUBSCRIBERS_PER_CLIENT + 1);
+    }
+}
@@ -0,0 +1,111 @@
+package ug.project.library.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000L);
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(now::get);
+
+    @Test
+    @DisplayName("Pełny kubełek powinien przepuścić serię równą pojemności, a potem podać czas oczekiwania")
+    void tryAcquire_ShouldAllowBurstUpToCapacity() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("reservations", "user:1", 5, MINUTE)).isZero();
+        }
+
+        long wait = limiter.tryAcquire("reservations", "user:1", 5, MINUTE);
+
+        assertThat(wait).isEqualTo(MINUTE / 5);
+    }
+
+    @Test
+    @DisplayName("Token powinien wrócić po okresie napełniania jednego tokenu")
+    void tryAcquire_ShouldRefillOverTime() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("reservations", "user:1", 5, MINUTE);
+        }
+
+        now.addAndGet(MINUTE / 5 - 1);
+        assertThat(limiter.tryAcquire("reservations", "user:1", 5, MINUTE)).isEqualTo(1);
+        now.addAndGet(1);
+        assertThat(limiter.tryAcquire("reservations", "user:1", 5, MINUTE)).isZero();
+        assertThat(limiter.tryAcquire("reservations", "user:1", 5, MINUTE)).isPositive();
+
+        now.addAndGet(MINUTE * 10);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("reservations", "user:1", 5, MINUTE)).as("po przerwie kubełek jest pełny").isZero();
+        }
+        assertThat(limiter.tryAcquire("reservations", "user:1", 5, MINUTE)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Kubełki różnych użytkowników i polityk powinny być niezależne")
+    void tryAcquire_ShouldKeepBucketsIndependent() {
+        assertThat(limiter.tryAcquire("reservations", "user:1", 1, MINUTE)).isZero();
+        assertThat(limiter.tryAcquire("reservations", "user:1", 1, MINUTE)).isPositive();
+
+        assertThat(limiter.tryAcquire("reservations", "user:2", 1, MINUTE)).isZero();
+        assertThat(limiter.tryAcquire("ratings", "user:1", 1, MINUTE)).isZero();
+    }
+
+    @Test
+    @DisplayName("Pełne kubełki powinny znikać przy sprzątaniu")
+    void purgeIdle_ShouldDropRefilledBuckets() {
+        limiter.tryAcquire("reservations", "user:1", 5, MINUTE);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("reservations", "user:2", 5, MINUTE);
+        }
+        now.addAndGet(MINUTE / 2);
+
+        assertThat(limiter.purgeIdle()).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Równoległe sprawdzenia jednego klucza nie powinny wydać więcej tokenów niż pojemność")
+    void tryAcquire_ShouldNotOverAdmitUnderContention() throws Exception {
+        int threads = 16;
+        int attemptsPerThread = 20_000;
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (limiter.tryAcquire("reservations", "user:1", 100, MINUTE) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(allowed.get()).isEqualTo(100);
+    }
+}
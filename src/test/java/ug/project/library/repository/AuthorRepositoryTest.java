@@ -9,6 +9,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import ug.project.library.dto.PopularAuthorDto;
 import ug.project.library.model.entity.Author;
 import ug.project.library.model.entity.Book;
 import ug.project.library.model.entity.Reservation;
@@ -230,11 +231,14 @@ class AuthorRepositoryTest {
         reservation.setStatus(ReservationStatus.WYPOŻYCZONA);
         reservation.setCreatedAt(LocalDateTime.now());
         reservation.setDeadline(LocalDateTime.now().plusDays(7));
-        reservationRepository.save(reservation);
+        reservationRepository.saveAndFlush(reservation);
+        // ranking czyta liczniki wypożyczeń, które w aplikacji podbija ReservationService przy wypożyczeniu
+        jdbcTemplate.update("INSERT INTO author_loan_stats (author_id, loan_count) VALUES (?, 1)", author.getId());
 
-        Page<Author> page = authorRepository.findMostPopularAuthors(PageRequest.of(0, 10));
+        Page<PopularAuthorDto> page = authorRepository.findMostPopularAuthors(PageRequest.of(0, 10));
         assertThat(page).isNotNull();
         assertThat(page.getContent()).isNotEmpty();
-        assertThat(page.getContent().get(0).getName()).isEqualTo("Test");
+        assertThat(page.getContent().get(0).getFullName()).isEqualTo("Test Autor");
+        assertThat(page.getContent().get(0).getBookCount()).isEqualTo(1);
     }
 }
\ No newline at end of file
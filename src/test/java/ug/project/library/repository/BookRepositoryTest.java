@@ -58,7 +58,6 @@ class BookRepositoryTest {
         book1.setTitle("Harry Potter");
         book1.setAuthors(new ArrayList<>(List.of(testAuthor)));
         book1.setGenres(new ArrayList<>(List.of(testGenre)));
-        book1.setAvgRating(9.5);
         book1.setYearPublished(1997);
         book1.setPublisher("Bloomsbury");
         book1.setQuantityAvailable(5);
@@ -67,12 +66,16 @@ class BookRepositoryTest {
         book2.setTitle("Fantastic Beasts");
         book2.setAuthors(new ArrayList<>(List.of(testAuthor)));
         book2.setGenres(new ArrayList<>(List.of(testGenre)));
-        book2.setAvgRating(8.0);
         book2.setYearPublished(2001);
         book2.setPublisher("Bloomsbury");
         book2.setQuantityAvailable(3);
 
-        bookRepository.saveAll(List.of(book1, book2));
+        bookRepository.saveAllAndFlush(List.of(book1, book2));
+        // średnia jest tylko do odczytu w encji - ustawiamy ją tak jak RatingDao
+        jdbcTemplate.update("UPDATE books SET avg_rating = ? WHERE id = ?", 9.5, book1.getId());
+        jdbcTemplate.update("UPDATE books SET avg_rating = ? WHERE id = ?", 8.0, book2.getId());
+        book1.setAvgRating(9.5);
+        book2.setAvgRating(8.0);
     }
 
 
@@ -263,9 +266,35 @@ class BookRepositoryTest {
         assertThat(result.getContent().get(0).getTitle()).isEqualTo("Harry Potter");
     }
 
+    @Test
+    @DisplayName("Powinno stronicować po ocenie kursorem, traktując brak oceny jak 0")
+    void findAfterByRating_ShouldContinueAfterCursor() {
+        Book unrated = new Book();
+        unrated.setTitle("Quidditch Through the Ages");
+        unrated.setPublisher("Bloomsbury");
+        unrated.setYearPublished(2001);
+        unrated.setQuantityAvailable(1);
+        bookRepository.save(unrated);
+
+        List<Book> first = bookRepository.findFirstByRating(PageRequest.of(0, 1));
+        assertThat(first).extracting(Book::getTitle).containsExactly("Harry Potter");
+
+        Book last = first.get(0);
+        List<Book> rest = bookRepository.findAfterByRating(last.getAvgRating(), last.getId(), PageRequest.of(0, 10));
+        assertThat(rest).extracting(Book::getTitle).containsExactly("Fantastic Beasts", "Quidditch Through the Ages");
+    }
 
-
-
-
-
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Powinno stronicować po tytule i roku kursorem")
+    void findAfterByTitleAndYear_ShouldContinueAfterCursor() {
+        Book fantastic = bookRepository.findFirstByTitle(PageRequest.of(0, 1)).get(0);
+        assertThat(fantastic.getTitle()).isEqualTo("Fantastic Beasts");
+        assertThat(bookRepository.findAfterByTitle(fantastic.getTitle(), fantastic.getId(), PageRequest.of(0, 10)))
+            .extracting(Book::getTitle).containsExactly("Harry Potter");
+
+        Book newest = bookRepository.findFirstByYear(PageRequest.of(0, 1)).get(0);
+        assertThat(newest.getYearPublished()).isEqualTo(2001);
+        assertThat(bookRepository.findAfterByYear(newest.getYearPublished(), newest.getId(), PageRequest.of(0, 10)))
+            .extracting(Book::getYearPublished).containsExactly(1997);
+    }
+}
@@ -13,7 +13,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import ug.project.library.controller.BookController;
 import ug.project.library.dto.AuthorDto;
 import ug.project.library.dto.BookDto;
+import ug.project.library.dto.CursorPage;
 import ug.project.library.dto.GenreDto;
+import ug.project.library.exceptions.InvalidCursorException;
+import ug.project.library.pagination.BookSort;
 import ug.project.library.service.BookService;
 
 import java.util.Collections;
@@ -50,6 +53,30 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.content[0].title").value("Sample Book"));
     }
 
+    @Test
+    @WithMockUser
+    public void shouldScrollBooksWithCursor() throws Exception {
+        BookDto book = createSampleBookDto(1L, "Sample Book");
+        when(bookService.getBooksAfter(eq(BookSort.RATING), eq("abc"), eq(20), eq(false)))
+                .thenReturn(new CursorPage<>(List.of(book), "next", true, null));
+
+        mockMvc.perform(get("/api/books/scroll").param("sortBy", "rating").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Sample Book"))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectInvalidCursor() throws Exception {
+        when(bookService.getBooksAfter(any(), eq("zly"), eq(20), eq(false)))
+                .thenThrow(new InvalidCursorException("zly"));
+
+        mockMvc.perform(get("/api/books/scroll").param("cursor", "zly"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser
     public void shouldReturnBookById() throws Exception {
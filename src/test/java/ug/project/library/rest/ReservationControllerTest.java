@@ -2,19 +2,33 @@ package ug.project.library.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ug.project.library.controller.ReservationController;
+import ug.project.library.dto.CursorPage;
 import ug.project.library.dto.ReservationDto;
+import ug.project.library.dto.ReservationFilter;
+import ug.project.library.dto.WaitlistPositionDto;
 import ug.project.library.model.enumerate.ReservationStatus;
 import ug.project.library.service.ReservationService;
+import ug.project.library.service.WaitlistService;
 
+import java.io.Writer;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -29,6 +43,9 @@ public class ReservationControllerTest {
     @MockBean
     private ReservationService reservationService;
 
+    @MockBean
+    private WaitlistService waitlistService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -36,7 +53,7 @@ public class ReservationControllerTest {
     @WithMockUser
     public void shouldMakeReservation() throws Exception {
         ReservationDto reservation = createSampleReservationDto(1L, ReservationStatus.OCZEKUJĄCA);
-        when(reservationService.createNewReservation(1L)).thenReturn(reservation);
+        when(reservationService.createNewReservation(1L, null)).thenReturn(reservation);
 
         mockMvc.perform(post("/api/reservations/1")
                         .with(csrf()))
@@ -44,6 +61,30 @@ public class ReservationControllerTest {
                 .andExpect(jsonPath("$.status").value("OCZEKUJĄCA"));
     }
 
+    @Test
+    @WithMockUser
+    public void shouldPassIdempotencyKeyToService() throws Exception {
+        ReservationDto reservation = createSampleReservationDto(1L, ReservationStatus.OCZEKUJĄCA);
+        when(reservationService.createNewReservation(1L, "retry-1")).thenReturn(reservation);
+
+        mockMvc.perform(post("/api/reservations/1")
+                        .header("Idempotency-Key", "retry-1")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldJoinWaitlist() throws Exception {
+        when(waitlistService.join(1L)).thenReturn(new WaitlistPositionDto(1L, 3, 3));
+
+        mockMvc.perform(post("/api/reservations/waitlist/1")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(3));
+    }
+
     @Test
     @WithMockUser
     public void shouldConfirmReservation() throws Exception {
@@ -88,6 +129,49 @@ public class ReservationControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void shouldSearchReservationsWithFilters() throws Exception {
+        CursorPage<ReservationDto> page = new CursorPage<>(
+                List.of(createSampleReservationDto(7L, ReservationStatus.WYPOŻYCZONA)), "next", true, null);
+        when(reservationService.findReservations(any(ReservationFilter.class), eq("abc"), eq(100))).thenReturn(page);
+
+        mockMvc.perform(get("/api/reservations")
+                        .param("status", "WYPOŻYCZONA")
+                        .param("userId", "3")
+                        .param("from", "2024-01-01")
+                        .param("cursor", "abc")
+                        .param("size", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(7))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        ArgumentCaptor<ReservationFilter> filter = ArgumentCaptor.forClass(ReservationFilter.class);
+        verify(reservationService).findReservations(filter.capture(), eq("abc"), eq(100));
+        assertThat(filter.getValue().getStatus()).isEqualTo(ReservationStatus.WYPOŻYCZONA);
+        assertThat(filter.getValue().getUserId()).isEqualTo(3L);
+        assertThat(filter.getValue().getFrom()).isEqualTo(LocalDate.of(2024, 1, 1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void shouldStreamReservationExport() throws Exception {
+        doAnswer(inv -> {
+            Writer writer = inv.getArgument(1);
+            writer.write("id,status\n1,ZWRÓCONA\n");
+            return null;
+        }).when(reservationService).exportReservations(any(ReservationFilter.class), any(Writer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/reservations/export").param("bookId", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"reservations.csv\""))
+                .andExpect(content().string("id,status\n1,ZWRÓCONA\n"));
+    }
+
     private ReservationDto createSampleReservationDto(Long id, ReservationStatus status) {
         return new ReservationDto(id, status, LocalDateTime.now(), LocalDateTime.now().plusDays(7), 1L, "user", 1L, "Book");
     }
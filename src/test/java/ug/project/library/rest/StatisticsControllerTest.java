@@ -0,0 +1,56 @@
+package ug.project.library.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ug.project.library.controller.StatisticsController;
+import ug.project.library.dto.LoanRankingDto;
+import ug.project.library.dto.TrendingStatsDto;
+import ug.project.library.model.enumerate.StatsWindow;
+import ug.project.library.service.AuthService;
+import ug.project.library.service.StatisticsService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatisticsController.class)
+public class StatisticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StatisticsService statisticsService;
+
+    @MockBean
+    private AuthService authService;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void shouldReturnTrendingForWindow() throws Exception {
+        TrendingStatsDto stats = new TrendingStatsDto("24h", LocalDateTime.now().minusHours(24),
+            List.of(new LoanRankingDto(1L, "Rok 1984", 4)), List.of(), List.of());
+        when(statisticsService.getTrendingStats(eq(StatsWindow.LAST_24H), eq(5))).thenReturn(stats);
+
+        mockMvc.perform(get("/api/stats/trending").param("window", "24h").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window").value("24h"))
+                .andExpect(jsonPath("$.books[0].name").value("Rok 1984"))
+                .andExpect(jsonPath("$.books[0].loanCount").value(4));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void shouldRejectUnknownWindow() throws Exception {
+        mockMvc.perform(get("/api/stats/trending").param("window", "1y"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,87 @@
+package ug.project.library.scheduler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationDeadlineQueueTest {
+
+    private final ReservationDeadlineQueue queue = new ReservationDeadlineQueue();
+
+    @Test
+    @DisplayName("Powinno zwracać rezerwacje w kolejności terminów")
+    void takeDue_ShouldReturnInDeadlineOrder() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        queue.schedule(1L, now.plusNanos(150_000_000));
+        queue.schedule(2L, now.minusSeconds(1));
+        queue.schedule(3L, now.plusNanos(50_000_000));
+
+        assertThat(queue.takeDue()).isEqualTo(2L);
+        assertThat(queue.takeDue()).isEqualTo(3L);
+        assertThat(queue.takeDue()).isEqualTo(1L);
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Nie powinno zwracać rezerwacji przed terminem")
+    void takeDue_ShouldWaitForDeadline() throws Exception {
+        queue.schedule(1L, LocalDateTime.now().plusNanos(300_000_000));
+        long start = System.nanoTime();
+
+        assertThat(queue.takeDue()).isEqualTo(1L);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    @DisplayName("Anulowane i przeplanowane terminy powinny być pomijane")
+    void takeDue_ShouldSkipCancelledAndRescheduled() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        queue.schedule(1L, now.minusSeconds(2));
+        queue.schedule(2L, now.minusSeconds(1));
+        queue.cancel(1L);
+        queue.schedule(2L, now.plusNanos(100_000_000));
+
+        CompletableFuture<Long> next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.takeDue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo(2L);
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Anulowanie w wycofanej transakcji nie powinno zdejmować terminu")
+    void cancel_ShouldApplyOnlyAfterCommit() {
+        queue.schedule(1L, LocalDateTime.now().plusMinutes(15));
+        queue.schedule(2L, LocalDateTime.now().plusMinutes(15));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            queue.cancel(1L);
+            assertThat(queue.size()).isEqualTo(2);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(queue.size()).as("wycofana transakcja").isEqualTo(2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            queue.cancel(2L);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(queue.size()).as("zatwierdzona transakcja").isEqualTo(1);
+    }
+}
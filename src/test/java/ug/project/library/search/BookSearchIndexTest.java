@@ -0,0 +1,243 @@
+package ug.project.library.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ug.project.library.dao.BookDao;
+import ug.project.library.model.entity.Author;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Genre;
+import ug.project.library.pagination.BookCursor;
+import ug.project.library.pagination.BookSort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(mock(BookDao.class));
+        index.index(book(1L, "Harry Potter i Kamień Filozoficzny", "J.K.", "Rowling", "Fantasy", "Media Rodzina", 9.0, 1997));
+        index.index(book(2L, "Rok 1984", "George", "Orwell", "Science Fiction", "Muza", 8.0, 1949));
+        index.index(book(3L, "Folwark zwierzęcy", "George", "Orwell", "Satyra", "Muza", 7.5, 1945));
+        index.index(book(4L, "Harry Potter i Komnata Tajemnic", "J.K.", "Rowling", "Fantasy", "Media Rodzina", 8.5, 1998));
+    }
+
+    @Test
+    @DisplayName("Powinno znaleźć książki po prefiksie słowa z tytułu")
+    void search_ShouldMatchTitlePrefix() {
+        Page<Long> result = index.search("harr", null, null, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactlyInAnyOrder(1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Powinno łączyć kryteria tytułu, autora i gatunku")
+    void search_ShouldIntersectCriteria() {
+        Page<Long> result = index.search("potter", "rowling", "fantasy", PageRequest.of(0, 10));
+        assertThat(result.getContent()).containsExactlyInAnyOrder(1L, 4L);
+
+        Page<Long> none = index.search("potter", "orwell", null, PageRequest.of(0, 10));
+        assertThat(none.getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Słowo kluczowe powinno pasować do wydawcy")
+    void search_KeywordShouldMatchPublisher() {
+        Page<Long> result = index.search(null, null, "muza", PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Bez sortowania wyniki powinny być ułożone wg trafności")
+    void search_ShouldRankExactTermsFirst() {
+        index.index(book(5L, "Rokowania", "Jan", "Kowalski", "Dramat", "Znak", 5.0, 2001));
+
+        Page<Long> result = index.search("rok", null, null, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(2L, 5L);
+    }
+
+    @Test
+    @DisplayName("Powinno sortować i stronicować wyniki wg Pageable")
+    void search_ShouldSortAndPage() {
+        PageRequest firstPage = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "avgRating"));
+        Page<Long> result = index.search(null, null, null, firstPage);
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).containsExactly(1L, 4L);
+
+        Page<Long> second = index.search(null, null, null, firstPage.next());
+        assertThat(second.getContent()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Powinno usuwać i reindeksować książki")
+    void removeAndReindex_ShouldUpdatePostings() {
+        index.remove(2L);
+        assertThat(index.search("1984", null, null, PageRequest.of(0, 10)).getContent()).isEmpty();
+
+        index.index(book(3L, "Animal Farm", "George", "Orwell", "Satyra", "Muza", 7.5, 1945));
+        assertThat(index.search("folwark", null, null, PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(index.search("animal", null, null, PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Powinno ignorować polskie znaki w zapytaniu i w indeksie")
+    void search_ShouldFoldDiacritics() {
+        index.index(book(6L, "Żółw i zając", "Ignacy", "Krasicki", "Bajka", "Łódzkie", 6.0, 1779));
+
+        assertThat(index.search("Zolw", null, null, PageRequest.of(0, 10)).getContent()).containsExactly(6L);
+        assertThat(index.search(null, null, "lodzkie", PageRequest.of(0, 10)).getContent()).containsExactly(6L);
+        assertThat(index.search("zwierzecy", null, null, PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Powinno dopasować słowo z literówką po trigramach")
+    void search_ShouldMatchMisspelledTerms() {
+        assertThat(index.search(null, "orwel", null, PageRequest.of(0, 10)).getContent())
+            .containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search("folwrak", null, null, PageRequest.of(0, 10)).getContent())
+            .containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Kursor powinien prowadzić przez wszystkie wyniki bez powtórzeń")
+    void seek_ShouldWalkAllResultsWithCursor() {
+        BookSearchIndex.SearchSlice first = index.seek(null, null, null, BookSort.RATING, null, 3);
+        assertThat(first.ids()).containsExactly(1L, 4L, 2L);
+        assertThat(first.total()).isEqualTo(4);
+        assertThat(first.next()).isNotNull();
+
+        BookCursor cursor = BookCursor.decode(first.next().encode(), BookSort.RATING);
+        BookSearchIndex.SearchSlice second = index.seek(null, null, null, BookSort.RATING, cursor, 3);
+        assertThat(second.ids()).containsExactly(3L);
+        assertThat(second.next()).isNull();
+    }
+
+    @Test
+    @DisplayName("Kursor powinien działać dla sortowania wg trafności")
+    void seek_ShouldPageByRelevance() {
+        index.index(book(5L, "Rokowania", "Jan", "Kowalski", "Dramat", "Znak", 5.0, 2001));
+
+        BookSearchIndex.SearchSlice first = index.seek("rok", null, null, BookSort.RELEVANCE, null, 1);
+        assertThat(first.ids()).containsExactly(2L);
+
+        BookSearchIndex.SearchSlice second = index.seek("rok", null, null, BookSort.RELEVANCE, first.next(), 1);
+        assertThat(second.ids()).containsExactly(5L);
+        assertThat(second.next()).isNull();
+    }
+
+    @Test
+    @DisplayName("Strony z gotowego porządku i z kopca top-k powinny zgadzać się z pełnym sortowaniem")
+    void seekAndSearch_ShouldMatchFullSort() {
+        List<Book> catalog = new ArrayList<>();
+        for (long id = 10; id < 210; id++) {
+            // powtarzające się tytuły, oceny i lata sprawdzają rozstrzyganie remisów po ID
+            Book book = book(id, "Tom " + (char) ('a' + id % 7), "Jan", "Nowak", "Dramat",
+                id % 3 == 0 ? "Znak" : "Wydawca", id % 5, 1990 + (int) (id % 11));
+            catalog.add(book);
+            index.index(book);
+        }
+        index.updateAvgRating(42L, 4.5);
+        catalog.stream().filter(b -> b.getId() == 42L).forEach(b -> b.setAvgRating(4.5));
+        index.remove(1L);
+        index.remove(2L);
+        index.remove(3L);
+        index.remove(4L);
+
+        for (BookSort sort : BookSort.values()) {
+            for (String keyword : new String[]{null, "znak"}) {
+                List<Long> expected = catalog.stream()
+                    .filter(b -> keyword == null || b.getPublisher().equals("Znak"))
+                    .sorted(expectedOrder(sort))
+                    .map(Book::getId)
+                    .toList();
+
+                List<Long> walked = new ArrayList<>();
+                BookSearchIndex.SearchSlice slice = index.seek(null, null, keyword, sort, null, 7);
+                walked.addAll(slice.ids());
+                while (slice.next() != null) {
+                    slice = index.seek(null, null, keyword, sort, slice.next(), 7);
+                    walked.addAll(slice.ids());
+                }
+                assertThat(walked).as("seek %s %s", sort, keyword).isEqualTo(expected);
+
+                List<Long> paged = new ArrayList<>();
+                for (int page = 0; page * 7 < expected.size(); page++) {
+                    Page<Long> result = index.search(null, null, keyword, PageRequest.of(page, 7, sort.toSort()));
+                    assertThat(result.getTotalElements()).isEqualTo(expected.size());
+                    paged.addAll(result.getContent());
+                }
+                assertThat(paged).as("search %s %s", sort, keyword).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Głęboka strona bez filtrów powinna zgadzać się z pełnym sortowaniem także po zmianie indeksu")
+    void search_ShouldServeDeepPagesByPosition() {
+        List<Book> catalog = new ArrayList<>();
+        for (long id = 10; id < 10 + BookSearchIndex.DEEP_PAGE_OFFSET + 200; id++) {
+            Book book = book(id, "Tom " + id, "Jan", "Nowak", "Dramat", "Znak", id % 5, 1990 + (int) (id % 11));
+            catalog.add(book);
+            index.index(book);
+        }
+        index.remove(1L);
+        index.remove(2L);
+        index.remove(3L);
+        index.remove(4L);
+        PageRequest deepPage = PageRequest.of(BookSearchIndex.DEEP_PAGE_OFFSET / 20 + 2, 20, BookSort.RATING.toSort());
+
+        assertThat(index.search(null, null, null, deepPage).getContent())
+            .isEqualTo(expectedPage(catalog, deepPage));
+
+        // ostatnia książka z oceną 0 idzie na początek - wszystko przed jej starym miejscem przesuwa się o jeden
+        Book moved = catalog.stream().filter(b -> b.getId() % 5 == 0).reduce((first, second) -> second).orElseThrow();
+        index.updateAvgRating(moved.getId(), 4.5);
+        moved.setAvgRating(4.5);
+        assertThat(index.search(null, null, null, deepPage).getContent())
+            .as("po zmianie oceny").isEqualTo(expectedPage(catalog, deepPage));
+    }
+
+    private static List<Long> expectedPage(List<Book> catalog, PageRequest page) {
+        return catalog.stream()
+            .sorted(expectedOrder(BookSort.RATING))
+            .skip(page.getOffset())
+            .limit(page.getPageSize())
+            .map(Book::getId)
+            .toList();
+    }
+
+    private static Comparator<Book> expectedOrder(BookSort sort) {
+        Comparator<Book> byId = Comparator.comparing(Book::getId);
+        return switch (sort) {
+            case TITLE -> Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+            case RATING -> Comparator.comparing(Book::getAvgRating, Comparator.reverseOrder()).thenComparing(byId);
+            case YEAR -> Comparator.comparing(Book::getYearPublished, Comparator.reverseOrder()).thenComparing(byId);
+            // jedno kryterium z jednym trafieniem na książkę - wszystkie wyniki równe, zostaje ID
+            case RELEVANCE -> byId;
+        };
+    }
+
+    private Book book(Long id, String title, String authorName, String authorSurname, String genreName,
+                      String publisher, double avgRating, int year) {
+        Author author = new Author(authorName, authorSurname, new ArrayList<>());
+        Genre genre = new Genre(genreName, new ArrayList<>());
+        Book book = new Book(title, List.of(author), List.of(genre), avgRating, year, publisher, null, 1);
+        book.setId(id);
+        return book;
+    }
+}
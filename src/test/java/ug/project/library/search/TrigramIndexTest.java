@@ -0,0 +1,59 @@
+package ug.project.library.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    private TrigramIndex<Long> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex<>();
+        index.add(1L, "Adam Mickiewicz");
+        index.add(2L, "Juliusz Słowacki");
+        index.add(3L, "Bolesław Prus");
+        index.add(4L, "Żółw i zając");
+    }
+
+    @Test
+    @DisplayName("Powinno usuwać polskie znaki diakrytyczne")
+    void fold_ShouldStripPolishDiacritics() {
+        assertThat(TextAnalyzer.fold("Żółw Łódź ĄĘŚĆŃ")).isEqualTo("zolw lodz aescn");
+        assertThat(TextAnalyzer.tokenize("Pan Tadeusz, czyli Ostatni zajazd na Litwie"))
+            .containsExactly("pan", "tadeusz", "czyli", "ostatni", "zajazd", "na", "litwie");
+    }
+
+    @Test
+    @DisplayName("Powinno znaleźć tekst zapisany bez polskich znaków")
+    void search_ShouldMatchWithoutDiacritics() {
+        List<TrigramIndex.Match<Long>> result = index.search("Zolw", 0.5, 5);
+
+        assertThat(result).isNotEmpty();
+        assertThat(result.get(0).key()).isEqualTo(4L);
+        assertThat(result.get(0).similarity()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Powinno tolerować literówki w nazwisku")
+    void search_ShouldTolerateTypos() {
+        List<TrigramIndex.Match<Long>> result = index.search("Mickiewcz", 0.4, 5);
+
+        assertThat(result).extracting(TrigramIndex.Match::key).containsExactly(1L);
+        assertThat(result.get(0).similarity()).isBetween(0.4, 1.0);
+    }
+
+    @Test
+    @DisplayName("Nie powinno zwracać usuniętych kluczy")
+    void remove_ShouldDropKey() {
+        index.remove(2L);
+
+        assertThat(index.search("Slowacki", 0.3, 5)).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,75 @@
+package ug.project.library.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ug.project.library.dto.TokenResponse;
+import ug.project.library.exceptions.InvalidTokenException;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.service.LibraryUserPrincipal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccessTokenServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-20T12:00:00Z");
+    private static final LibraryUserPrincipal PRINCIPAL = new LibraryUserPrincipal(42L, "anna|kowalska", "hash", UserRole.ADMIN);
+
+    private final AccessTokenService tokens = service("secret", NOW);
+
+    @Test
+    @DisplayName("Token dostępowy powinien odtworzyć ID, login i rolę")
+    void verifyAccessToken_ShouldRestorePrincipal() {
+        TokenResponse issued = tokens.issue(PRINCIPAL);
+
+        LibraryUserPrincipal principal = tokens.verifyAccessToken(issued.getAccessToken());
+
+        assertThat(principal.getUserId()).isEqualTo(42L);
+        assertThat(principal.getUsername()).isEqualTo("anna|kowalska");
+        assertThat(principal.getRole()).isEqualTo(UserRole.ADMIN);
+        assertThat(principal.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(issued.getExpiresIn()).isEqualTo(900);
+    }
+
+    @Test
+    @DisplayName("Zmieniona treść albo obcy klucz powinny unieważnić podpis")
+    void verifyAccessToken_ShouldRejectTamperedToken() {
+        String token = tokens.issue(PRINCIPAL).getAccessToken();
+        String forged = token.substring(0, 3) + (token.charAt(3) == 'A' ? 'B' : 'A') + token.substring(4);
+
+        assertThatThrownBy(() -> tokens.verifyAccessToken(forged)).isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> service("other", NOW).verifyAccessToken(token)).isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> tokens.verifyAccessToken("garbage")).isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    @DisplayName("Token powinien wygasnąć po czasie życia")
+    void verifyAccessToken_ShouldRejectExpiredToken() {
+        String token = tokens.issue(PRINCIPAL).getAccessToken();
+
+        assertThat(service("secret", NOW.plusSeconds(899)).verifyAccessToken(token).getUserId()).isEqualTo(42L);
+        assertThatThrownBy(() -> service("secret", NOW.plusSeconds(900)).verifyAccessToken(token))
+            .isInstanceOf(InvalidTokenException.class)
+            .hasMessageContaining("expired");
+    }
+
+    @Test
+    @DisplayName("Tokenu odświeżającego nie można użyć jako dostępowego i odwrotnie")
+    void verify_ShouldNotMixTokenTypes() {
+        TokenResponse issued = tokens.issue(PRINCIPAL);
+
+        assertThatThrownBy(() -> tokens.verifyAccessToken(issued.getRefreshToken())).isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> tokens.verifyRefreshToken(issued.getAccessToken())).isInstanceOf(InvalidTokenException.class);
+        assertThat(service("secret", NOW.plus(Duration.ofDays(6))).verifyRefreshToken(issued.getRefreshToken()).getUserId())
+            .isEqualTo(42L);
+    }
+
+    private static AccessTokenService service(String secret, Instant now) {
+        return new AccessTokenService(secret, Duration.ofMinutes(15), Duration.ofDays(7), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,103 @@
+package ug.project.library.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ug.project.library.exceptions.PasswordHashingBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    @DisplayName("Powinien delegować haszowanie i zbierać czasy")
+    void encode_ShouldDelegateAndRecordLatency() {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(null, null), 1, 1, Duration.ofSeconds(1));
+
+        assertThat(encoder.encode("secret")).isEqualTo("{plain}secret");
+        assertThat(encoder.matches("secret", "{plain}secret")).isTrue();
+
+        BoundedPasswordEncoder.HashingMetrics metrics = encoder.getMetrics();
+        assertThat(metrics.completed()).isEqualTo(2);
+        assertThat(metrics.rejected()).isZero();
+        assertThat(metrics.queueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Pełna pula i kolejka powinny od razu odrzucić kolejne haszowanie")
+    void encode_ShouldRejectWhenSaturated() throws Exception {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(started, release), 1, 1, Duration.ofSeconds(10));
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueDepth(1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(encoder.getMetrics().rejected()).isEqualTo(1);
+        assertThat(encoder.getMetrics().activeThreads()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("{plain}a");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("{plain}b");
+    }
+
+    @Test
+    @DisplayName("Zbyt długie oczekiwanie w kolejce powinno skończyć się odmową")
+    void matches_ShouldGiveUpAfterMaxWait() throws Exception {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(started, release), 1, 1, Duration.ofMillis(100));
+        CompletableFuture.runAsync(() -> encoder.encode("a")).exceptionally(e -> null);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> encoder.matches("b", "{plain}b")).isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(encoder.getMetrics().timedOut()).isGreaterThanOrEqualTo(1);
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.getMetrics().queueDepth() != depth) {
+            assertThat(System.nanoTime()).as("kolejka nie osiągnęła %d", depth).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    // Zastępuje BCrypt - opcjonalnie zatrzymuje się, dopóki test nie zwolni zatrzasku
+    private record PlainEncoder(CountDownLatch started, CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (started != null) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "{plain}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ug.project.library.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ug.project.library.exceptions.LoginThrottledException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAttemptThrottleTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-20T12:00:00Z"));
+    private final LoginAttemptThrottle throttle = new LoginAttemptThrottle(clock);
+
+    @Test
+    @DisplayName("Po limicie nieudanych prób login powinien być zablokowany do końca okna")
+    void reserveAttempt_ShouldBlockUserAfterLimit() {
+        for (int i = 0; i < LoginAttemptThrottle.MAX_USER_FAILURES; i++) {
+            throttle.reserveAttempt(i == 0 ? "Anna" : "anna", "10.0.0." + i);
+        }
+        clock.advance(Duration.ofMinutes(5));
+
+        assertThatThrownBy(() -> throttle.reserveAttempt("anna", "10.0.0.99"))
+            .isInstanceOf(LoginThrottledException.class)
+            .satisfies(e -> assertThat(((LoginThrottledException) e).getRetryAfterSeconds()).isEqualTo(600));
+        assertThatCode(() -> throttle.reserveAttempt("piotr", "10.0.0.1")).doesNotThrowAnyException();
+        assertThat(throttle.getMetrics().blockedAttempts()).isEqualTo(1);
+
+        clock.advance(Duration.ofMinutes(10));
+        assertThatCode(() -> throttle.reserveAttempt("anna", "10.0.0.99")).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Adres IP zgadujący wiele loginów powinien zostać zablokowany")
+    void reserveAttempt_ShouldBlockAddressAcrossUsernames() {
+        for (int i = 0; i < LoginAttemptThrottle.MAX_IP_FAILURES; i++) {
+            throttle.reserveAttempt("user" + i, "10.0.0.7");
+        }
+
+        assertThatThrownBy(() -> throttle.reserveAttempt("someone-else", "10.0.0.7"))
+            .isInstanceOf(LoginThrottledException.class);
+        assertThatCode(() -> throttle.reserveAttempt("someone-else", "10.0.0.8")).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Udane logowanie powinno zerować licznik loginu, a z adresu zdjąć tylko swoją próbę")
+    void recordSuccess_ShouldResetOnlyUsername() {
+        for (int i = 0; i < LoginAttemptThrottle.MAX_USER_FAILURES - 1; i++) {
+            throttle.reserveAttempt("anna", "10.0.0.7");
+        }
+        throttle.reserveAttempt("anna", "10.0.0.7");
+        throttle.recordSuccess("anna", "10.0.0.7");
+
+        // login ma znowu pełny limit
+        for (int i = 0; i < LoginAttemptThrottle.MAX_USER_FAILURES; i++) {
+            throttle.reserveAttempt("anna", "10.0.0.7");
+        }
+        // adres pamięta wszystkie porażki poza udanym logowaniem
+        for (int i = 2 * LoginAttemptThrottle.MAX_USER_FAILURES - 1; i < LoginAttemptThrottle.MAX_IP_FAILURES; i++) {
+            throttle.reserveAttempt("user" + i, "10.0.0.7");
+        }
+        assertThatThrownBy(() -> throttle.reserveAttempt("piotr", "10.0.0.7"))
+            .isInstanceOf(LoginThrottledException.class);
+    }
+
+    @Test
+    @DisplayName("Próba bez werdyktu o haśle nie powinna liczyć się jako porażka")
+    void release_ShouldRefundReservedAttempt() {
+        for (int i = 0; i < LoginAttemptThrottle.MAX_USER_FAILURES * 2; i++) {
+            throttle.reserveAttempt("anna", "10.0.0.7");
+            throttle.release("anna", "10.0.0.7");
+        }
+
+        assertThatCode(() -> throttle.reserveAttempt("anna", "10.0.0.7")).doesNotThrowAnyException();
+        assertThat(throttle.getMetrics().trackedKeys()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Zasypywanie losowymi loginami nie powinno powiększać mapy ponad limit ani odblokować adresu")
+    void reserveAttempt_ShouldBoundTrackedKeys() {
+        for (int i = 0; i < LoginAttemptThrottle.MAX_IP_FAILURES; i++) {
+            throttle.reserveAttempt("user" + i, "10.0.0.7");
+        }
+        for (int i = 0; i < LoginAttemptThrottle.MAX_TRACKED_KEYS; i++) {
+            throttle.reserveAttempt("spray" + i, "10.8." + (i / 256) + "." + (i % 256));
+            assertThatThrownBy(() -> throttle.reserveAttempt("someone-else", "10.0.0.7"))
+                .isInstanceOf(LoginThrottledException.class);
+        }
+
+        assertThat(throttle.getMetrics().trackedKeys()).isEqualTo(LoginAttemptThrottle.MAX_TRACKED_KEYS);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ug.project.library.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import ug.project.library.exceptions.LoginThrottledException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ThrottlingAuthenticationManagerTest {
+
+    private static final int CONCURRENT_ATTEMPTS = 20;
+
+    private final LoginAttemptThrottle throttle = new LoginAttemptThrottle();
+
+    @Test
+    @DisplayName("Równoległa seria złych haseł nie powinna przepuścić do weryfikacji więcej prób niż limit")
+    void authenticate_ShouldNotLetConcurrentBurstPastLimit() throws Exception {
+        // każda przepuszczona próba czeka w delegacie, aż wszystkie wątki dostaną odpowiedź - porażki nie są
+        // zapisywane przed końcem serii, więc bez atomowej rezerwacji przeszłyby wszystkie
+        CountDownLatch settled = new CountDownLatch(CONCURRENT_ATTEMPTS);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger verified = new AtomicInteger();
+        AtomicInteger throttled = new AtomicInteger();
+        ThrottlingAuthenticationManager manager = new ThrottlingAuthenticationManager(authentication -> {
+            verified.incrementAndGet();
+            settled.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new BadCredentialsException("bad");
+        }, throttle);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_ATTEMPTS);
+        try {
+            List<CompletableFuture<Void>> attempts = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_ATTEMPTS; i++) {
+                attempts.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        manager.authenticate(new UsernamePasswordAuthenticationToken("anna", "wrong"));
+                    } catch (LoginThrottledException e) {
+                        throttled.incrementAndGet();
+                        settled.countDown();
+                    } catch (BadCredentialsException e) {
+                        // spodziewane dla prób, które doszły do delegata
+                    }
+                }, executor));
+            }
+
+            assertThat(settled.await(5, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+            CompletableFuture.allOf(attempts.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(verified.get()).isEqualTo(LoginAttemptThrottle.MAX_USER_FAILURES);
+        assertThat(throttled.get()).isEqualTo(CONCURRENT_ATTEMPTS - LoginAttemptThrottle.MAX_USER_FAILURES);
+    }
+
+    @Test
+    @DisplayName("Błąd inny niż złe hasło powinien zwrócić zarezerwowaną próbę")
+    void authenticate_ShouldReleaseAttemptOnOtherFailure() {
+        ThrottlingAuthenticationManager manager = new ThrottlingAuthenticationManager(authentication -> {
+            throw new DisabledException("disabled");
+        }, throttle);
+
+        for (int i = 0; i < LoginAttemptThrottle.MAX_USER_FAILURES * 2; i++) {
+            assertThatThrownBy(() -> manager.authenticate(new UsernamePasswordAuthenticationToken("anna", "secret")))
+                .isInstanceOf(DisabledException.class);
+        }
+
+        assertThatCode(() -> throttle.reserveAttempt("anna", null)).doesNotThrowAnyException();
+    }
+}
@@ -1,5 +1,6 @@
 package ug.project.library.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,6 +12,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import ug.project.library.dto.UserRegistrationDto;
 import ug.project.library.exceptions.EmailAlreadyExistsException;
 import ug.project.library.exceptions.UserNotFoundException;
@@ -55,6 +59,35 @@ class AuthServiceTest {
         registrationDto = new UserRegistrationDto("testuser", "password123", "test@example.com");
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("getCurrentUserId should read ID from principal without touching repository")
+    void getCurrentUserId_ShouldUsePrincipal_WithoutQuery() {
+        authenticateAs(new LibraryUserPrincipal(1L, "testuser", "encodedPassword", UserRole.USER));
+
+        assertThat(authService.getCurrentUserId()).isEqualTo(1L);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("getCurrentUser should load user once per request")
+    void getCurrentUser_ShouldLoadOncePerRequest() {
+        authenticateAs(new LibraryUserPrincipal(1L, "testuser", "encodedPassword", UserRole.USER));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertThat(authService.getCurrentUser()).isSameAs(user);
+        assertThat(authService.getCurrentUser()).isSameAs(user);
+
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, never()).findByUsername(any());
+    }
+
     @Test
     @DisplayName("getCurrentUserId should return ID when authenticated")
     void getCurrentUserId_ShouldReturnId_WhenAuthenticated() {
@@ -119,4 +152,11 @@ class AuthServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> authService.registerUser(registrationDto));
     }
+
+    private void authenticateAs(LibraryUserPrincipal principal) {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.isAuthenticated()).thenReturn(true);
+        when(authentication.getPrincipal()).thenReturn(principal);
+    }
 }
@@ -15,6 +15,9 @@ import ug.project.library.dto.AuthorDto;
 import ug.project.library.exceptions.AuthorNotFoundException;
 import ug.project.library.model.entity.Author;
 import ug.project.library.repository.AuthorRepository;
+import ug.project.library.search.AuthorSearchIndex;
+import ug.project.library.search.BookSearchIndex;
+import ug.project.library.search.TrigramIndex;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +34,12 @@ class AuthorServiceTest {
     @Mock
     private AuthorRepository authorRepository;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private AuthorSearchIndex authorSearchIndex;
+
     @InjectMocks
     private AuthorService authorService;
 
@@ -143,4 +152,19 @@ class AuthorServiceTest {
         assertThrows(AuthorNotFoundException.class, () -> authorService.deleteAuthor(1L));
         verify(authorRepository, never()).deleteById(anyLong());
     }
+
+    @Test
+    @DisplayName("searchAuthors should return authors in similarity order")
+    void searchAuthors_ShouldReturnAuthorsInIndexOrder() {
+        Author other = new Author("Maria", "Mickiewicz", new ArrayList<>());
+        other.setId(2L);
+        when(authorSearchIndex.search("mickiewcz", 5)).thenReturn(List.of(
+            new TrigramIndex.Match<>(2L, 0.8, 0.6),
+            new TrigramIndex.Match<>(1L, 0.5, 0.3)));
+        when(authorRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(author, other));
+
+        List<AuthorDto> result = authorService.searchAuthors("mickiewcz", 5);
+
+        assertThat(result).extracting(AuthorDto::getId).containsExactly(2L, 1L);
+    }
 }
@@ -0,0 +1,86 @@
+package ug.project.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ug.project.library.dao.ReservationDao;
+import ug.project.library.model.enumerate.ReservationStatus;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AvailabilityForecastTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 20, 14, 30);
+
+    private ReservationDao reservationDao;
+    private AvailabilityForecast forecast;
+
+    @BeforeEach
+    void setUp() {
+        reservationDao = mock(ReservationDao.class);
+        forecast = new AvailabilityForecast(reservationDao);
+    }
+
+    @Test
+    @DisplayName("Prognoza powinna wskazywać najwcześniejszy termin zwrotu lub potwierdzenia")
+    void expectedBack_ShouldFollowEarliestDeadline() {
+        forecast.reservationChanged(1L, 10L, ReservationStatus.WYPOŻYCZONA, NOW.plusDays(10));
+        forecast.reservationChanged(1L, 11L, ReservationStatus.WYPOŻYCZONA, NOW.plusDays(3));
+        forecast.reservationChanged(1L, 12L, ReservationStatus.OCZEKUJĄCA, NOW.plusHours(2));
+        forecast.reservationChanged(2L, 13L, ReservationStatus.WYPOŻYCZONA, NOW.plusDays(1));
+
+        assertThat(forecast.expectedBack(1L)).contains(NOW.plusHours(2));
+
+        // potwierdzona rezerwacja nie ma terminu zwolnienia egzemplarza
+        forecast.reservationChanged(1L, 12L, ReservationStatus.POTWIERDZONA, NOW.plusHours(2));
+        assertThat(forecast.expectedBack(1L)).contains(NOW.plusDays(3));
+
+        // wypożyczenie przesuwa termin rezerwacji na termin zwrotu
+        forecast.reservationChanged(1L, 12L, ReservationStatus.WYPOŻYCZONA, NOW.plusDays(14));
+        forecast.reservationChanged(1L, 11L, ReservationStatus.ZWRÓCONA, NOW.plusDays(3));
+        assertThat(forecast.expectedBack(1L)).contains(NOW.plusDays(10));
+        assertThat(forecast.expectedBack(2L)).contains(NOW.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("Usunięcie ostatniej rezerwacji powinno wyczyścić prognozę książki")
+    void expectedBack_ShouldBeEmpty_WhenNothingOutstanding() {
+        forecast.reservationChanged(1L, 10L, ReservationStatus.OCZEKUJĄCA, NOW.plusHours(2));
+        forecast.reservationChanged(1L, 10L, null, null);
+        forecast.reservationChanged(3L, 99L, null, null);
+
+        assertThat(forecast.expectedBack(1L)).isEmpty();
+        assertThat(forecast.expectedBack(3L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Przebudowa powinna wczytać terminy z bazy")
+    void rebuild_ShouldLoadDeadlines() throws Exception {
+        forecast.reservationChanged(5L, 50L, ReservationStatus.WYPOŻYCZONA, NOW);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("book_id")).thenReturn(1L, 1L);
+        when(rs.getLong("id")).thenReturn(10L, 11L);
+        when(rs.getTimestamp("deadline"))
+            .thenReturn(Timestamp.valueOf(NOW.plusDays(5)), Timestamp.valueOf(NOW.plusDays(2)));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(0);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(reservationDao).forEachForecastDeadline(any());
+
+        forecast.rebuild();
+
+        assertThat(forecast.expectedBack(1L)).contains(NOW.plusDays(2));
+        assertThat(forecast.expectedBack(5L)).isEmpty();
+    }
+}
@@ -0,0 +1,115 @@
+package ug.project.library.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.dto.BookDto;
+import ug.project.library.model.entity.Author;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Genre;
+import ug.project.library.repository.AuthorRepository;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.GenreRepository;
+import ug.project.library.search.BookSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Liczba zapytań SQL na stronę nie może rosnąć z liczbą książek (regresja N+1 w mapBookToDto)
+@SpringBootTest
+@ActiveProfiles("test")
+class BookServiceQueryCountTest {
+
+    private static final int BOOKS = 20;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Author author = authorRepository.save(new Author("Autor", "Nr" + i, new ArrayList<>()));
+            Genre genre = genreRepository.save(new Genre("Gatunek " + i, new ArrayList<>()));
+            books.add(new Book("Powieść " + i, new ArrayList<>(List.of(author)), new ArrayList<>(List.of(genre)),
+                (double) (i % 10), 1990 + i, "Wydawnictwo", null, 1));
+        }
+        bookRepository.saveAll(books);
+        bookSearchIndex.rebuild();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+        genreRepository.deleteAll();
+        bookSearchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("getAllBooksDto powinno wykonać stałą liczbę zapytań na stronę")
+    void getAllBooksDto_ShouldNotIssueQueryPerBook() {
+        Page<BookDto> page = bookService.getAllBooksDto(PageRequest.of(0, BOOKS, Sort.by("title")));
+
+        assertThat(page.getContent()).hasSize(BOOKS);
+        assertThat(page.getContent()).allSatisfy(book -> {
+            assertThat(book.getAuthors()).hasSize(1);
+            assertThat(book.getGenres()).hasSize(1);
+        });
+        // strona + count + autorzy + gatunki
+        assertThat(statistics.getPrepareStatementCount()).isBetween(1L, 4L);
+    }
+
+    @Test
+    @DisplayName("searchBooks powinno wykonać stałą liczbę zapytań na stronę")
+    void searchBooks_ShouldNotIssueQueryPerBook() {
+        Page<BookDto> page = bookService.searchBooks("powiesc", null, null, PageRequest.of(0, BOOKS));
+
+        assertThat(page.getContent()).hasSize(BOOKS);
+        assertThat(page.getContent()).allSatisfy(book -> assertThat(book.getAuthors()).hasSize(1));
+        // trafienia pochodzą z indeksu w pamięci, z bazy tylko autorzy + gatunki
+        assertThat(statistics.getPrepareStatementCount()).isBetween(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("getTopRatedBooks powinno wykonać stałą liczbę zapytań")
+    void getTopRatedBooks_ShouldNotIssueQueryPerBook() {
+        List<BookDto> books = bookService.getTopRatedBooks(BOOKS);
+
+        assertThat(books).hasSize(BOOKS);
+        assertThat(books).allSatisfy(book -> assertThat(book.getGenres()).hasSize(1));
+        assertThat(statistics.getPrepareStatementCount()).isBetween(1L, 3L);
+    }
+}
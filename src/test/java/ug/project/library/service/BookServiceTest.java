@@ -7,19 +7,35 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ug.project.library.dao.BookDao;
 import ug.project.library.dto.AuthorDto;
 import ug.project.library.dto.BookDto;
+import ug.project.library.dto.CursorPage;
 import ug.project.library.dto.GenreDto;
 import ug.project.library.exceptions.BookAlreadyExistsException;
+import ug.project.library.exceptions.BookNotAvailableException;
+import ug.project.library.exceptions.InvalidCursorException;
+import ug.project.library.live.LiveUpdateBus;
 import ug.project.library.model.entity.Author;
 import ug.project.library.model.entity.Book;
 import ug.project.library.model.entity.Genre;
+import ug.project.library.pagination.BookCursor;
+import ug.project.library.pagination.BookSort;
 import ug.project.library.repository.BookRepository;
+import ug.project.library.search.BookSearchIndex;
+import ug.project.library.trending.TrendingBooks;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.util.Optional;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -37,6 +53,18 @@ class BookServiceTest {
     @Mock
     private GenreService genreService;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private TrendingBooks trendingBooks;
+
+    @Mock
+    private BookDao bookDao;
+
+    @Mock
+    private LiveUpdateBus liveUpdateBus;
+
     @InjectMocks
     private BookService bookService;
 
@@ -105,6 +133,29 @@ class BookServiceTest {
         verify(authorService, never()).findOrCreateAuthor(anyString(), anyString());
     }
 
+    @Test
+    @DisplayName("updateBook should not overwrite the average rating kept by RatingDao")
+    void updateBook_ShouldIgnoreClientAvgRating() {
+        // Given
+        Book existingBook = new Book();
+        existingBook.setId(1L);
+        existingBook.setTitle("Old Title");
+        existingBook.setAvgRating(4.2);
+        BookDto updateDto = new BookDto();
+        updateDto.setTitle("New Title");
+        updateDto.setAvgRating(1.0);
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        BookDto result = bookService.updateBook(1L, updateDto);
+
+        // Then
+        assertEquals(4.2, existingBook.getAvgRating());
+        assertEquals(4.2, result.getAvgRating());
+    }
+
     @Test
     @DisplayName("addBook should save book when it does not exist")
     void addBook_ShouldSaveBook_WhenBookDoesNotExist() {
@@ -127,4 +178,109 @@ class BookServiceTest {
         // Then
         verify(bookRepository, times(1)).save(any(Book.class));
     }
+
+    @Test
+    @DisplayName("searchBooks should load hits from the index in ranked order")
+    void searchBooks_ShouldReturnBooksInIndexOrder() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        when(bookSearchIndex.search("potter", null, null, pageable))
+            .thenReturn(new PageImpl<>(List.of(2L, 1L), pageable, 2));
+
+        Book first = new Book();
+        first.setId(1L);
+        first.setTitle("Harry Potter 1");
+        first.setAuthors(List.of(author));
+        first.setGenres(List.of());
+        Book second = new Book();
+        second.setId(2L);
+        second.setTitle("Harry Potter 2");
+        second.setAuthors(List.of(author));
+        second.setGenres(List.of());
+        when(bookRepository.findWithAuthorsByIdIn(List.of(2L, 1L))).thenReturn(List.of(first, second));
+
+        // When
+        Page<BookDto> result = bookService.searchBooks("potter", null, null, pageable);
+
+        // Then
+        assertEquals(2, result.getTotalElements());
+        assertEquals(List.of(2L, 1L), result.getContent().stream().map(BookDto::getId).toList());
+        verify(bookRepository, never()).searchBooks(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("getBooksAfter should continue after the cursor and skip count when not requested")
+    void getBooksAfter_ShouldUseKeysetQueries() {
+        // Given
+        Book first = new Book();
+        first.setId(7L);
+        first.setTitle("A");
+        first.setAuthors(List.of(author));
+        first.setGenres(List.of());
+        first.setAvgRating(8.0);
+        Book second = new Book();
+        second.setId(3L);
+        second.setTitle("B");
+        second.setAuthors(List.of(author));
+        second.setGenres(List.of());
+        String cursor = BookCursor.of(BookSort.RATING, 5L, 9.0).encode();
+        when(bookRepository.findAfterByRating(9.0, 5L, PageRequest.of(0, 2))).thenReturn(List.of(first, second));
+
+        // When
+        CursorPage<BookDto> result = bookService.getBooksAfter(BookSort.RATING, cursor, 1, false);
+
+        // Then
+        assertEquals(List.of(7L), result.getContent().stream().map(BookDto::getId).toList());
+        assertEquals(BookCursor.of(BookSort.RATING, 7L, 8.0), BookCursor.decode(result.getNextCursor(), BookSort.RATING));
+        assertNull(result.getTotalElements());
+        verify(bookRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("getBooksAfter should clamp a zero or oversized page size")
+    void getBooksAfter_ShouldClampPageSize() {
+        // Given
+        Book first = new Book();
+        first.setId(7L);
+        first.setTitle("A");
+        first.setAuthors(List.of(author));
+        first.setGenres(List.of());
+        Book second = new Book();
+        second.setId(3L);
+        second.setTitle("B");
+        second.setAuthors(List.of(author));
+        second.setGenres(List.of());
+        when(bookRepository.findFirstByTitle(PageRequest.of(0, 2))).thenReturn(List.of(first, second));
+
+        // When
+        CursorPage<BookDto> result = bookService.getBooksAfter(BookSort.TITLE, null, 0, false);
+        bookService.getBooksAfter(BookSort.TITLE, null, 100_000, false);
+
+        // Then
+        assertEquals(List.of(7L), result.getContent().stream().map(BookDto::getId).toList());
+        assertEquals(BookCursor.of(BookSort.TITLE, 7L, "A"), BookCursor.decode(result.getNextCursor(), BookSort.TITLE));
+        verify(bookRepository).findFirstByTitle(PageRequest.of(0, BookService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    @DisplayName("getBooksAfter should reject a cursor issued for another sort")
+    void getBooksAfter_ShouldRejectForeignCursor() {
+        String cursor = BookCursor.of(BookSort.YEAR, 5L, 1999).encode();
+
+        assertThrows(InvalidCursorException.class, () -> bookService.getBooksAfter(BookSort.TITLE, cursor, 10, true));
+    }
+
+    @Test
+    @DisplayName("deincrementQuantityAvailable should trust the conditional update, not the loaded entity")
+    void deincrementQuantityAvailable_ShouldThrow_WhenNoCopyWasTaken() {
+        // Given
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Bestseller");
+        book.setQuantityAvailable(3);
+        when(bookDao.deincrementQuantityAvailable(1L)).thenReturn(0);
+
+        // When & Then
+        assertThrows(BookNotAvailableException.class, () -> bookService.deincrementQuantityAvailable(book));
+    }
 }
@@ -31,6 +31,7 @@ class CustomUserDetailsServiceTest {
     @DisplayName("loadUserByUsername should return UserDetails when found")
     void loadUserByUsername_ShouldReturnUserDetails_WhenFound() {
         User user = new User("testuser", "password", "test@example.com", UserRole.USER);
+        user.setId(7L);
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
 
         UserDetails result = customUserDetailsService.loadUserByUsername("testuser");
@@ -38,6 +39,9 @@ class CustomUserDetailsServiceTest {
         assertThat(result.getUsername()).isEqualTo("testuser");
         assertThat(result.getAuthorities()).hasSize(1);
         assertThat(result.getAuthorities().iterator().next().getAuthority()).isEqualTo("ROLE_USER");
+        assertThat(result).isInstanceOf(LibraryUserPrincipal.class);
+        assertThat(((LibraryUserPrincipal) result).getUserId()).isEqualTo(7L);
+        assertThat(((LibraryUserPrincipal) result).getRole()).isEqualTo(UserRole.USER);
     }
 
     @Test
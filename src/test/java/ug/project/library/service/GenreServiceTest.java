@@ -14,6 +14,7 @@ import org.springframework.data.domain.Pageable;
 import ug.project.library.dto.GenreDto;
 import ug.project.library.model.entity.Genre;
 import ug.project.library.repository.GenreRepository;
+import ug.project.library.search.BookSearchIndex;
 
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +30,9 @@ class GenreServiceTest {
     @Mock
     private GenreRepository genreRepository;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
     @InjectMocks
     private GenreService genreService;
 
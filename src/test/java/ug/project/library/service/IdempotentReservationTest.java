@@ -0,0 +1,188 @@
+package ug.project.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.dto.ReservationDto;
+import ug.project.library.exceptions.BookNotAvailableException;
+import ug.project.library.exceptions.IdempotencyKeyConflictException;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotentReservationTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        reader = userRepository.save(new User("idem-reader", "pass", "idem@test.com", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.delete(reader);
+    }
+
+    @Test
+    @DisplayName("Ponowienie z tym samym kluczem powinno zwrócić pierwotną rezerwację bez zmiany stanu")
+    void createNewReservation_ShouldReplaySameKey() {
+        Long bookId = book(3);
+        authenticate();
+
+        ReservationDto first = reservationService.createNewReservation(bookId, "retry-1");
+        ReservationDto replay = reservationService.createNewReservation(bookId, "retry-1");
+
+        assertThat(replay.getId()).isEqualTo(first.getId());
+        assertThat(replay.getCreatedAt()).isEqualTo(first.getCreatedAt());
+        assertThat(quantity(bookId)).isEqualTo(2);
+        assertThat(reservationRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ten sam klucz dla innej książki powinien zostać odrzucony")
+    void createNewReservation_ShouldRejectKeyReuseForOtherBook() {
+        Long bookId = book(3);
+        Long otherBookId = book(3);
+        authenticate();
+        reservationService.createNewReservation(bookId, "retry-2");
+
+        assertThatThrownBy(() -> reservationService.createNewReservation(otherBookId, "retry-2"))
+            .isInstanceOf(IdempotencyKeyConflictException.class);
+        assertThat(quantity(otherBookId)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Nieudana rezerwacja nie powinna zablokować klucza")
+    void createNewReservation_ShouldReleaseKeyOnRollback() {
+        Long bookId = book(0);
+        authenticate();
+
+        assertThatThrownBy(() -> reservationService.createNewReservation(bookId, "retry-3"))
+            .isInstanceOf(BookNotAvailableException.class);
+        jdbcTemplate.update("UPDATE books SET quantity_available = 1 WHERE id = ?", bookId);
+
+        assertThat(reservationService.createNewReservation(bookId, "retry-3").getBookId()).isEqualTo(bookId);
+        assertThat(quantity(bookId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Wygasły, jeszcze nieusunięty klucz powinien dać nową rezerwację zamiast konfliktu")
+    void createNewReservation_ShouldReuseExpiredKey() {
+        Long bookId = book(3);
+        jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idem_key, book_id, created_at) VALUES (?, ?, ?, ?)",
+            reader.getId(), "retry-expired", bookId,
+            Timestamp.valueOf(LocalDateTime.now().minus(IdempotencyStore.TTL).minusHours(1)));
+        authenticate();
+
+        ReservationDto reservation = reservationService.createNewReservation(bookId, "retry-expired");
+
+        assertThat(reservation.getBookId()).isEqualTo(bookId);
+        assertThat(quantity(bookId)).isEqualTo(2);
+        assertThat(reservationService.createNewReservation(bookId, "retry-expired").getId()).isEqualTo(reservation.getId());
+    }
+
+    @Test
+    @DisplayName("Równoległe ponowienia z jednym kluczem powinny utworzyć dokładnie jedną rezerwację")
+    void createNewReservation_ShouldCreateOnceUnderConcurrentRetries() throws Exception {
+        Long bookId = book(10);
+        Set<Long> returnedIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> {
+                    authenticate();
+                    try {
+                        start.await();
+                        returnedIds.add(reservationService.createNewReservation(bookId, "burst").getId());
+                    } catch (IdempotencyKeyConflictException e) {
+                        conflicts.incrementAndGet();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(returnedIds).hasSize(1);
+        assertThat(reservationRepository.count()).isEqualTo(1);
+        assertThat(quantity(bookId)).isEqualTo(9);
+        authenticate();
+        assertThat(reservationService.createNewReservation(bookId, "burst").getId()).isIn(returnedIds);
+    }
+
+    private void authenticate() {
+        LibraryUserPrincipal principal = new LibraryUserPrincipal(reader.getId(), reader.getUsername(), "", UserRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+            UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+
+    private Long book(int copies) {
+        Book book = new Book();
+        book.setTitle("Rok 1984");
+        book.setPublisher("Muza");
+        book.setQuantityAvailable(copies);
+        return bookRepository.save(book).getId();
+    }
+
+    private int quantity(Long bookId) {
+        return bookRepository.findById(bookId).orElseThrow().getQuantityAvailable();
+    }
+}
@@ -0,0 +1,92 @@
+package ug.project.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OverdueLoanScannerTest {
+
+    @Autowired
+    private OverdueLoanScanner overdueLoanScanner;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("overdue", "pass", "overdue@test.com", UserRole.USER));
+        Book book = new Book();
+        book.setTitle("Książka");
+        book.setPublisher("Wydawnictwo");
+        bookId = bookRepository.save(book).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Powinno oznaczyć paczkami tylko wypożyczenia po terminie, każde raz")
+    void flagOverdue_ShouldFlagEachOverdueLoanOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        insertReservations("WYPOŻYCZONA", now.minusDays(1), 25);
+        insertReservations("WYPOŻYCZONA", now.plusDays(3), 4);
+        insertReservations("OCZEKUJĄCA", now.minusDays(1), 2);
+        insertReservations("ZWRÓCONA", now.minusDays(1), 2);
+
+        assertThat(overdueLoanScanner.flagOverdue(now, 10)).isEqualTo(25);
+        assertThat(countFlagged()).isEqualTo(25);
+
+        assertThat(overdueLoanScanner.flagOverdue(now, 10)).isZero();
+        assertThat(overdueLoanScanner.flagOverdue(now.plusDays(4), 10)).isEqualTo(4);
+        assertThat(countFlagged()).isEqualTo(29);
+    }
+
+    private void insertReservations(String status, LocalDateTime deadline, int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{status, Timestamp.valueOf(deadline.minusDays(14)), Timestamp.valueOf(deadline), user.getId(), bookId});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO reservations (status, created_at, deadline, user_id, book_id) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private long countFlagged() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservations WHERE overdue_at IS NOT NULL", Long.class);
+    }
+}
@@ -11,14 +11,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ug.project.library.dao.RatingDao;
 import ug.project.library.dto.RatingDto;
 import ug.project.library.model.entity.Book;
 import ug.project.library.model.entity.Rating;
 import ug.project.library.model.entity.User;
-import ug.project.library.repository.BookRepository;
 import ug.project.library.repository.RatingRepository;
 import ug.project.library.repository.ReservationRepository;
 import ug.project.library.repository.UserRepository;
+import ug.project.library.search.BookSearchIndex;
+import ug.project.library.trending.TrendingBooks;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -38,7 +40,7 @@ class RatingServiceTest {
     @Mock
     private BookService bookService;
     @Mock
-    private BookRepository bookRepository;
+    private RatingDao ratingDao;
     @Mock
     private ReservationRepository reservationRepository;
     @Mock
@@ -46,6 +48,12 @@ class RatingServiceTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private TrendingBooks trendingBooks;
+
     @InjectMocks
     private RatingService ratingService;
 
@@ -95,14 +103,16 @@ class RatingServiceTest {
         when(reservationRepository.existsLoanByBookIdAndUserId(1L, 1L)).thenReturn(true);
         when(ratingRepository.findRecentRatingsByUser(eq(1L), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
         when(ratingRepository.save(any(Rating.class))).thenReturn(rating);
-        when(ratingRepository.calculateAverageRating(1L)).thenReturn(4.5);
+        when(ratingDao.applyScoreChange(1L, null, 5)).thenReturn(4.5);
 
         RatingDto result = ratingService.addRating(ratingDto);
 
         assertThat(result.getScore()).isEqualTo(5);
         verify(ratingRepository).save(any(Rating.class));
-        verify(bookRepository).save(book);
-        assertThat(book.getAvgRating()).isEqualTo(4.5);
+        verify(bookSearchIndex).updateAvgRating(1L, 4.5);
+        verify(ratingDao, never()).findAverageRating(any());
+        verify(trendingBooks).recordRating(1L);
+        verify(ratingRepository, never()).calculateAverageRating(any());
     }
 
     @Test
@@ -143,24 +153,23 @@ class RatingServiceTest {
     @Test
     @DisplayName("updateRating should update when not in cooldown")
     void updateRating_ShouldUpdate_WhenValid() {
-        when(authService.getCurrentUser()).thenReturn(user);
+        when(authService.getCurrentUserId()).thenReturn(user.getId());
         when(ratingRepository.findById(1L)).thenReturn(Optional.of(rating));
         when(ratingRepository.save(any(Rating.class))).thenReturn(rating);
-        when(ratingRepository.calculateAverageRating(1L)).thenReturn(4.0);
-        when(bookService.getBookById(1L)).thenReturn(book);
 
         ratingDto.setScore(4);
         RatingDto result = ratingService.updateRating(1L, ratingDto);
 
         assertThat(result.getScore()).isEqualTo(4);
         verify(ratingRepository).save(rating);
+        verify(ratingDao).applyScoreChange(1L, 5, 4);
     }
 
     @Test
     @DisplayName("updateRating should throw exception when in edit cooldown")
     void updateRating_ShouldThrowException_WhenInEditCooldown() {
         rating.setLastModifiedAt(LocalDateTime.now().minusDays(1));
-        when(authService.getCurrentUser()).thenReturn(user);
+        when(authService.getCurrentUserId()).thenReturn(user.getId());
         when(ratingRepository.findById(1L)).thenReturn(Optional.of(rating));
 
         assertThrows(IllegalStateException.class, () -> ratingService.updateRating(1L, ratingDto));
@@ -169,15 +178,27 @@ class RatingServiceTest {
     @Test
     @DisplayName("deleteRating should delete and update average")
     void deleteRating_ShouldDeleteAndUpdateAverage() {
-        when(authService.getCurrentUser()).thenReturn(user);
+        when(authService.getCurrentUserId()).thenReturn(user.getId());
         when(ratingRepository.findById(1L)).thenReturn(Optional.of(rating));
-        when(ratingRepository.calculateAverageRating(1L)).thenReturn(3.0);
-        when(bookService.getBookById(1L)).thenReturn(book);
+        when(ratingDao.applyScoreChange(1L, 5, null)).thenReturn(3.0);
 
         ratingService.deleteRating(1L);
 
         verify(ratingRepository).deleteById(1L);
-        verify(bookRepository).save(book);
-        assertThat(book.getAvgRating()).isEqualTo(3.0);
+        verify(bookSearchIndex).updateAvgRating(1L, 3.0);
+    }
+
+    @Test
+    @DisplayName("repairRatingAggregates should recompute only drifted books")
+    void repairRatingAggregates_ShouldRecomputeDriftedBooks() {
+        RatingDao.RatingDrift drift = new RatingDao.RatingDrift(1L, 3, 2, 12, 9);
+        when(ratingDao.findDrift()).thenReturn(List.of(drift));
+        when(ratingDao.findAverageRating(1L)).thenReturn(4.5);
+
+        List<RatingDao.RatingDrift> result = ratingService.repairRatingAggregates();
+
+        assertThat(result).containsExactly(drift);
+        verify(ratingDao).recomputeAggregates(List.of(1L));
+        verify(bookSearchIndex).updateAvgRating(1L, 4.5);
     }
 }
@@ -0,0 +1,130 @@
+package ug.project.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.exceptions.BookNotAvailableException;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Równoległe rezerwacje jednej książki: dokładnie tyle udanych, ile było egzemplarzy, stan nigdy poniżej zera
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int USERS = 20;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private final List<String> usernames = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(new User("reader" + i, "pass", "reader" + i + "@test.com", UserRole.USER));
+            usernames.add(user.getUsername());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("2000 równoległych rezerwacji książki z 25 egzemplarzami - dokładnie 25 udanych")
+    void createNewReservation_ShouldNotOversellUnderContention() throws Exception {
+        assertExactlyCopiesReserved(25, 2000);
+    }
+
+    @Test
+    @DisplayName("Ostatni egzemplarz powinien trafić do dokładnie jednej z wielu równoległych rezerwacji")
+    void createNewReservation_ShouldHandOutLastCopyOnce() throws Exception {
+        assertExactlyCopiesReserved(1, 500);
+    }
+
+    @Test
+    @DisplayName("Książka bez egzemplarzy nie powinna dać się zarezerwować")
+    void createNewReservation_ShouldRejectAllWhenOutOfStock() throws Exception {
+        assertExactlyCopiesReserved(0, 200);
+    }
+
+    private void assertExactlyCopiesReserved(int copies, int attempts) throws Exception {
+        Book book = new Book();
+        book.setTitle("Bestseller");
+        book.setPublisher("Wydawnictwo");
+        book.setQuantityAvailable(copies);
+        Long bookId = bookRepository.save(book).getId();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                String username = usernames.get(i % USERS);
+                futures.add(executor.submit(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+                    try {
+                        start.await();
+                        reservationService.createNewReservation(bookId);
+                        succeeded.incrementAndGet();
+                    } catch (BookNotAvailableException e) {
+                        rejected.incrementAndGet();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(succeeded.get()).isEqualTo(copies);
+        assertThat(rejected.get()).isEqualTo(attempts - copies);
+        assertThat(bookRepository.findById(bookId).orElseThrow().getQuantityAvailable()).isZero();
+        assertThat(reservationRepository.count()).isEqualTo(copies);
+    }
+}
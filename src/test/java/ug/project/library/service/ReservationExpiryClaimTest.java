@@ -0,0 +1,164 @@
+package ug.project.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import ug.project.library.dao.BookDao;
+import ug.project.library.dao.DatabaseDialect;
+import ug.project.library.dao.ReservationDao;
+import ug.project.library.dao.WorkClaimSupport;
+import ug.project.library.live.LiveUpdateBus;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+import ug.project.library.scheduler.ReservationDeadlineQueue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Kilka "instancji" (osobnych silników) wygasza te same rezerwacje na jednej bazie -
+// każda rezerwacja ma zostać wygaszona dokładnie raz, a stan zwrócony bez podwójnego liczenia
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationExpiryClaimTest {
+
+    private static final int SCHEDULERS = 6;
+    private static final int RESERVATIONS_PER_BOOK = 400;
+
+    @Autowired
+    private ReservationDao reservationDao;
+
+    @Autowired
+    private BookDao bookDao;
+
+    @Autowired
+    private WorkClaimSupport workClaimSupport;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private LiveUpdateBus liveUpdateBus;
+
+    @Autowired
+    private AvailabilityForecast availabilityForecast;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> bookIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("claimer", "pass", "claimer@test.com", UserRole.USER));
+        LocalDateTime deadline = LocalDateTime.now().minusMinutes(10);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Book book = new Book();
+            book.setTitle("Książka " + i);
+            book.setPublisher("Wydawnictwo");
+            book.setQuantityAvailable(0);
+            Long bookId = bookRepository.save(book).getId();
+            bookIds.add(bookId);
+            for (int j = 0; j < RESERVATIONS_PER_BOOK; j++) {
+                rows.add(new Object[]{Timestamp.valueOf(deadline.minusHours(2)), Timestamp.valueOf(deadline.plusSeconds(j)), user.getId(), bookId});
+            }
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO reservations (status, created_at, deadline, user_id, book_id) VALUES ('OCZEKUJĄCA', ?, ?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Równoległe przeglądy z SKIP LOCKED powinny podzielić się pracą bez duplikatów")
+    void expireDue_ShouldSplitWorkWithSkipLocked() throws Exception {
+        assertThat(workClaimSupport.skipLockedSupported()).isTrue();
+
+        runSchedulersConcurrently(workClaimSupport);
+    }
+
+    @Test
+    @DisplayName("Wariant zastępczy bez SKIP LOCKED też nie powinien wygaszać rezerwacji dwa razy")
+    void expireDue_ShouldNotDoubleCount_WithFallbackClaiming() throws Exception {
+        WorkClaimSupport withoutSkipLocked = new WorkClaimSupport(databaseDialect) {
+            @Override
+            public boolean skipLockedSupported() {
+                return false;
+            }
+        };
+
+        runSchedulersConcurrently(withoutSkipLocked);
+    }
+
+    private void runSchedulersConcurrently(WorkClaimSupport claimSupport) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(SCHEDULERS);
+        List<Future<ReservationExpiryEngine.ExpiryReport>> reports = new ArrayList<>();
+        try {
+            for (int i = 0; i < SCHEDULERS; i++) {
+                ReservationExpiryEngine engine = new ReservationExpiryEngine(
+                    reservationDao, bookDao, new ReservationDeadlineQueue(), claimSupport, waitlistService, liveUpdateBus, availabilityForecast,
+                    transactionManager);
+                reports.add(executor.submit(() -> {
+                    start.await();
+                    return engine.expireDue(now, 50);
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<ReservationExpiryEngine.ExpiryReport> report : reports) {
+                total += report.get(60, TimeUnit.SECONDS).reservations();
+            }
+            assertThat(total).isEqualTo(bookIds.size() * RESERVATIONS_PER_BOOK);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(reservationRepository.count()).isZero();
+        for (Long bookId : bookIds) {
+            Integer quantity = jdbcTemplate.queryForObject("SELECT quantity_available FROM books WHERE id = ?", Integer.class, bookId);
+            assertThat(quantity).isEqualTo(RESERVATIONS_PER_BOOK);
+        }
+    }
+}
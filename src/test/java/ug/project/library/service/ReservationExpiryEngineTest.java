@@ -0,0 +1,112 @@
+package ug.project.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationExpiryEngineTest {
+
+    @Autowired
+    private ReservationExpiryEngine reservationExpiryEngine;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private final List<Long> bookIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("expiry", "pass", "expiry@test.com", UserRole.USER));
+        for (int i = 0; i < 3; i++) {
+            Book book = new Book();
+            book.setTitle("Książka " + i);
+            book.setPublisher("Wydawnictwo");
+            book.setQuantityAvailable(0);
+            bookIds.add(bookRepository.save(book).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Powinno wygasić zaległe rezerwacje paczkami i zwrócić egzemplarze zbiorczo")
+    void expireDue_ShouldExpireInChunksAndRestoreStock() {
+        LocalDateTime now = LocalDateTime.now();
+        insertReservations(bookIds.get(0), "OCZEKUJĄCA", now.minusHours(1), 600);
+        insertReservations(bookIds.get(1), "OCZEKUJĄCA", now.minusMinutes(5), 430);
+        insertReservations(bookIds.get(2), "OCZEKUJĄCA", now.plusHours(1), 7);
+        insertReservations(bookIds.get(2), "POTWIERDZONA", now.minusHours(1), 3);
+
+        ReservationExpiryEngine.ExpiryReport report = reservationExpiryEngine.expireDue(now, 100);
+
+        assertThat(report.reservations()).isEqualTo(1030);
+        assertThat(report.chunks()).isEqualTo(11);
+        assertThat(quantity(bookIds.get(0))).isEqualTo(600);
+        assertThat(quantity(bookIds.get(1))).isEqualTo(430);
+        assertThat(quantity(bookIds.get(2))).isZero();
+        assertThat(reservationRepository.count()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Bez zaległych rezerwacji nie powinno niczego zmieniać")
+    void expireDue_ShouldDoNothing_WhenNothingExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        insertReservations(bookIds.get(0), "OCZEKUJĄCA", now.plusMinutes(30), 5);
+        long runsBefore = reservationExpiryEngine.getMetrics().runs();
+
+        ReservationExpiryEngine.ExpiryReport report = reservationExpiryEngine.expireDue(now);
+
+        assertThat(report.reservations()).isZero();
+        assertThat(report.chunks()).isZero();
+        assertThat(reservationRepository.count()).isEqualTo(5);
+        assertThat(reservationExpiryEngine.getMetrics().runs()).isEqualTo(runsBefore + 1);
+    }
+
+    private void insertReservations(Long bookId, String status, LocalDateTime deadline, int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{status, Timestamp.valueOf(deadline.minusHours(2)), Timestamp.valueOf(deadline), user.getId(), bookId});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO reservations (status, created_at, deadline, user_id, book_id) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private int quantity(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT quantity_available FROM books WHERE id = ?", Integer.class, bookId);
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -11,21 +12,32 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ug.project.library.dao.LoanStatsDao;
 import ug.project.library.dao.ReservationDao;
+import ug.project.library.dto.CursorPage;
 import ug.project.library.dto.ReservationDto;
+import ug.project.library.dto.ReservationFilter;
+import ug.project.library.exceptions.InvalidCursorException;
+import ug.project.library.live.LiveUpdateBus;
 import ug.project.library.model.entity.Book;
 import ug.project.library.model.entity.Reservation;
 import ug.project.library.model.entity.User;
 import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.pagination.ReservationCursor;
 import ug.project.library.repository.ReservationRepository;
+import ug.project.library.scheduler.ReservationDeadlineQueue;
+import ug.project.library.trending.TrendingBooks;
 
+import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +51,21 @@ class ReservationServiceTest {
     private AuthService authService;
     @Mock
     private ReservationDao reservationDao;
+    @Mock
+    private ReservationDeadlineQueue deadlineQueue;
+    @Mock
+    private LoanStatsDao loanStatsDao;
+    @Mock
+    private TrendingBooks trendingBooks;
+    @Mock
+    private IdempotencyStore idempotencyStore;
+    @Mock
+    private WaitlistService waitlistService;
+    @Mock
+    private LiveUpdateBus liveUpdateBus;
+
+    @Mock
+    private AvailabilityForecast availabilityForecast;
 
     @InjectMocks
     private ReservationService reservationService;
@@ -74,6 +101,40 @@ class ReservationServiceTest {
         assertThat(result).isNotNull();
         verify(bookService).deincrementQuantityAvailable(book);
         verify(reservationRepository).save(any(Reservation.class));
+        verify(deadlineQueue).schedule(1L, reservation.getDeadline());
+        verify(trendingBooks).recordReservation(1L);
+    }
+
+    @Test
+    @DisplayName("createNewReservation should replay stored response without touching inventory")
+    void createNewReservation_ShouldReplayStoredResponse() {
+        ReservationDto stored = new ReservationDto();
+        stored.setId(7L);
+        when(authService.getCurrentUserId()).thenReturn(1L);
+        when(idempotencyStore.findReplay(1L, "retry-1", 1L)).thenReturn(Optional.of(stored));
+
+        ReservationDto result = reservationService.createNewReservation(1L, "retry-1");
+
+        assertThat(result).isSameAs(stored);
+        verify(idempotencyStore, never()).claim(any(), any(), any());
+        verifyNoInteractions(bookService, reservationRepository, deadlineQueue, trendingBooks);
+    }
+
+    @Test
+    @DisplayName("createNewReservation should claim key before inventory and store the response")
+    void createNewReservation_ShouldClaimAndCompleteKey() {
+        when(authService.getCurrentUserId()).thenReturn(1L);
+        when(authService.getCurrentUser()).thenReturn(user);
+        when(idempotencyStore.findReplay(1L, "retry-1", 1L)).thenReturn(Optional.empty());
+        when(bookService.getBookById(1L)).thenReturn(book);
+        when(reservationRepository.save(any(Reservation.class))).thenReturn(reservation);
+
+        ReservationDto result = reservationService.createNewReservation(1L, "retry-1");
+
+        InOrder inOrder = inOrder(idempotencyStore, bookService);
+        inOrder.verify(idempotencyStore).claim(1L, "retry-1", 1L);
+        inOrder.verify(bookService).deincrementQuantityAvailable(book);
+        inOrder.verify(idempotencyStore).complete(1L, "retry-1", 1L, result);
     }
 
     @Test
@@ -87,6 +148,7 @@ class ReservationServiceTest {
 
         assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.POTWIERDZONA);
         verify(reservationRepository).save(reservation);
+        verify(deadlineQueue).cancel(1L);
     }
 
     @Test
@@ -112,7 +174,10 @@ class ReservationServiceTest {
         ReservationDto result = reservationService.borrowReservation(1L);
 
         assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.WYPOŻYCZONA);
+        assertThat(reservation.getDeadline()).isBetween(
+            LocalDateTime.now().plusDays(14).minusMinutes(1), LocalDateTime.now().plusDays(14));
         verify(reservationRepository).save(reservation);
+        verify(loanStatsDao).recordLoan(eq(1L), eq(1L), any(LocalDateTime.class));
     }
 
     @Test
@@ -130,6 +195,20 @@ class ReservationServiceTest {
         verify(reservationRepository).save(reservation);
     }
 
+    @Test
+    @DisplayName("returnReservation should hand the copy to the waitlist instead of the shelf")
+    void returnReservation_ShouldHandCopyToWaitlist() {
+        reservation.setStatus(ReservationStatus.WYPOŻYCZONA);
+        when(authService.getCurrentUserId()).thenReturn(1L);
+        when(reservationRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.save(any(Reservation.class))).thenReturn(reservation);
+        when(waitlistService.handOver(1L, 1)).thenReturn(1);
+
+        reservationService.returnReservation(1L);
+
+        verify(bookService, never()).incrementQuantityAvailable(any());
+    }
+
     @Test
     @DisplayName("cancelReservation should delete and increment quantity")
     void cancelReservation_ShouldDeleteAndIncrementQuantity() {
@@ -143,24 +222,111 @@ class ReservationServiceTest {
     }
 
     @Test
-    @DisplayName("getAllReservations should return list of DTOs")
-    void getAllReservations_ShouldReturnListOfDtos() {
-        when(reservationRepository.findAll()).thenReturn(List.of(reservation));
+    @DisplayName("expireReservationIfDue should expire pending reservation past its deadline")
+    void expireReservationIfDue_ShouldExpire_WhenDeadlinePassed() {
+        reservation.setDeadline(LocalDateTime.now().minusSeconds(1));
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(reservationDao.deletePendingEach(List.of(1L))).thenReturn(new int[]{1});
 
-        List<ReservationDto> result = reservationService.getAllReservations();
+        boolean expired = reservationService.expireReservationIfDue(1L);
 
-        assertThat(result).hasSize(1);
+        assertThat(expired).isTrue();
+        verify(bookService).incrementQuantityAvailable(book);
+        verify(deadlineQueue).cancel(1L);
+    }
+
+    @Test
+    @DisplayName("expireReservationIfDue should not restore stock when another node expired it first")
+    void expireReservationIfDue_ShouldSkip_WhenClaimedElsewhere() {
+        reservation.setDeadline(LocalDateTime.now().minusSeconds(1));
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(reservationDao.deletePendingEach(List.of(1L))).thenReturn(new int[]{0});
+
+        boolean expired = reservationService.expireReservationIfDue(1L);
+
+        assertThat(expired).isFalse();
+        verify(bookService, never()).incrementQuantityAvailable(any());
+    }
+
+    @Test
+    @DisplayName("expireReservationIfDue should skip reservation confirmed in the meantime")
+    void expireReservationIfDue_ShouldSkip_WhenAlreadyConfirmed() {
+        reservation.setDeadline(LocalDateTime.now().minusSeconds(1));
+        reservation.setStatus(ReservationStatus.POTWIERDZONA);
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+
+        boolean expired = reservationService.expireReservationIfDue(1L);
+
+        assertThat(expired).isFalse();
+        verify(bookService, never()).incrementQuantityAvailable(any());
+        verify(reservationRepository, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("findReservations should fetch one extra row and return cursor of the last one")
+    void findReservations_ShouldReturnNextCursor() {
+        ReservationFilter filter = new ReservationFilter(ReservationStatus.ZWRÓCONA, null, null, null, null);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<ReservationDto> rows = List.of(consoleRow(3L, createdAt), consoleRow(2L, createdAt), consoleRow(1L, createdAt));
+        when(reservationDao.findConsolePage(filter, null, 3)).thenReturn(rows);
+
+        CursorPage<ReservationDto> page = reservationService.findReservations(filter, null, 2);
+
+        assertThat(page.getContent()).extracting(ReservationDto::getId).containsExactly(3L, 2L);
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(ReservationCursor.decode(page.getNextCursor())).isEqualTo(new ReservationCursor(createdAt, 2L));
+    }
+
+    @Test
+    @DisplayName("findReservations should continue after decoded cursor")
+    void findReservations_ShouldContinueAfterCursor() {
+        ReservationFilter filter = new ReservationFilter();
+        ReservationCursor after = new ReservationCursor(LocalDateTime.of(2024, 3, 1, 12, 0), 2L);
+        when(reservationDao.findConsolePage(filter, after, 3)).thenReturn(List.of(consoleRow(1L, after.createdAt())));
+
+        CursorPage<ReservationDto> page = reservationService.findReservations(filter, after.encode(), 2);
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
     }
 
     @Test
-    @DisplayName("getUserReservationHistory should return page of entities")
+    @DisplayName("findReservations should reject malformed cursor")
+    void findReservations_ShouldRejectMalformedCursor() {
+        assertThrows(InvalidCursorException.class,
+                () -> reservationService.findReservations(new ReservationFilter(), "###", 10));
+    }
+
+    @Test
+    @DisplayName("exportReservations should write CSV with escaped fields")
+    void exportReservations_ShouldWriteCsv() throws Exception {
+        ReservationDto row = consoleRow(1L, LocalDateTime.of(2024, 3, 1, 12, 0));
+        row.setBookTitle("Pan \"Tadeusz\", wyd. 2");
+        doAnswer(inv -> {
+            Consumer<ReservationDto> consumer = inv.getArgument(1);
+            consumer.accept(row);
+            return null;
+        }).when(reservationDao).forEachForExport(any(ReservationFilter.class), any());
+        StringWriter writer = new StringWriter();
+
+        reservationService.exportReservations(new ReservationFilter(), writer);
+
+        assertThat(writer.toString()).isEqualTo(
+                "id,status,created_at,deadline,user_id,username,book_id,book_title,overdue\n"
+                + "1,ZWRÓCONA,2024-03-01T12:00,,1,testuser,1,\"Pan \"\"Tadeusz\"\", wyd. 2\",false\n");
+    }
+
+    @Test
+    @DisplayName("getUserReservationHistory should return page of DTOs")
     void getUserReservationHistory_ShouldReturnPage() {
         Pageable pageable = PageRequest.of(0, 10);
         when(reservationRepository.findPastReservations(1L, pageable)).thenReturn(new PageImpl<>(List.of(reservation)));
 
-        Page<Reservation> result = reservationService.getUserReservationHistory(1L, pageable);
+        Page<ReservationDto> result = reservationService.getUserReservationHistory(1L, pageable);
 
         assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).getBookTitle()).isEqualTo(book.getTitle());
     }
 
     @Test
@@ -168,8 +334,12 @@ class ReservationServiceTest {
     void getUserActiveReservations_ShouldReturnList() {
         when(reservationDao.findActiveReservationsByUserId(1L)).thenReturn(List.of(reservation));
 
-        List<Reservation> result = reservationService.getUserActiveReservations(1L);
+        List<ReservationDto> result = reservationService.getUserActiveReservations(1L);
 
         assertThat(result).hasSize(1);
     }
+
+    private static ReservationDto consoleRow(Long id, LocalDateTime createdAt) {
+        return new ReservationDto(id, ReservationStatus.ZWRÓCONA, createdAt, null, 1L, "testuser", 1L, "Test Book");
+    }
 }
@@ -1,5 +1,6 @@
 package ug.project.library.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,16 +11,35 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import ug.project.library.model.entity.Author;
-import ug.project.library.model.entity.Book;
-import ug.project.library.model.entity.User;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import ug.project.library.dao.LoanStatsDao;
+import ug.project.library.dto.ActiveUserDto;
+import ug.project.library.dto.LoanRankingDto;
+import ug.project.library.dto.PopularAuthorDto;
+import ug.project.library.dto.PopularBookDto;
+import ug.project.library.dto.StatsDashboardDto;
+import ug.project.library.dto.TrendingStatsDto;
+import ug.project.library.model.enumerate.LoanSubject;
+import ug.project.library.model.enumerate.StatsWindow;
 import ug.project.library.repository.AuthorRepository;
 import ug.project.library.repository.BookRepository;
 import ug.project.library.repository.UserRepository;
 
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,18 +51,27 @@ class StatisticsServiceTest {
     private UserRepository userRepository;
     @Mock
     private AuthorRepository authorRepository;
+    @Mock
+    private LoanStatsDao loanStatsDao;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private StatisticsService statisticsService;
 
+    @AfterEach
+    void tearDown() {
+        statisticsService.shutdown();
+    }
+
     @Test
     @DisplayName("getMostPopularBooks should call repository")
     void getMostPopularBooks_ShouldCallRepository() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Book> bookPage = new PageImpl<>(List.of(new Book()));
+        Page<PopularBookDto> bookPage = new PageImpl<>(List.of(new PopularBookDto()));
         when(bookRepository.findMostPopularBooks(pageable)).thenReturn(bookPage);
 
-        Page<Book> result = statisticsService.getMostPopularBooks(pageable);
+        Page<PopularBookDto> result = statisticsService.getMostPopularBooks(pageable);
 
         assertThat(result.getContent()).hasSize(1);
     }
@@ -51,10 +80,10 @@ class StatisticsServiceTest {
     @DisplayName("getUsersWithMostLoans should call repository")
     void getUsersWithMostLoans_ShouldCallRepository() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<User> userPage = new PageImpl<>(List.of(new User()));
+        Page<ActiveUserDto> userPage = new PageImpl<>(List.of(new ActiveUserDto()));
         when(userRepository.getUsersWithMostLoans(pageable)).thenReturn(userPage);
 
-        Page<User> result = statisticsService.getUsersWithMostLoans(pageable);
+        Page<ActiveUserDto> result = statisticsService.getUsersWithMostLoans(pageable);
 
         assertThat(result.getContent()).hasSize(1);
     }
@@ -63,11 +92,91 @@ class StatisticsServiceTest {
     @DisplayName("getMostPopularAuthors should call repository")
     void getMostPopularAuthors_ShouldCallRepository() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Author> authorPage = new PageImpl<>(List.of(new Author()));
+        Page<PopularAuthorDto> authorPage = new PageImpl<>(List.of(new PopularAuthorDto()));
         when(authorRepository.findMostPopularAuthors(pageable)).thenReturn(authorPage);
 
-        Page<Author> result = statisticsService.getMostPopularAuthors(pageable);
+        Page<PopularAuthorDto> result = statisticsService.getMostPopularAuthors(pageable);
 
         assertThat(result.getContent()).hasSize(1);
     }
+
+    @Test
+    @DisplayName("getDashboard should load all panels concurrently")
+    void getDashboard_ShouldLoadPanelsConcurrently() {
+        // każdy panel czeka, aż wystartują wszystkie trzy - przy ładowaniu po kolei latch nigdy by nie doszedł do zera
+        CountDownLatch allStarted = new CountDownLatch(3);
+        Pageable pageable = PageRequest.of(0, 10);
+        when(bookRepository.findMostPopularBooks(pageable)).thenAnswer(inv -> {
+            awaitOthers(allStarted);
+            return new PageImpl<>(List.of(new PopularBookDto(1L, "Rok 1984", "Muza", 4.5, 7)));
+        });
+        when(authorRepository.findMostPopularAuthors(pageable)).thenAnswer(inv -> {
+            awaitOthers(allStarted);
+            return new PageImpl<>(List.of(new PopularAuthorDto(2L, "George Orwell", 2, 9)));
+        });
+        when(userRepository.getUsersWithMostLoans(pageable)).thenAnswer(inv -> {
+            awaitOthers(allStarted);
+            return new PageImpl<>(List.of(new ActiveUserDto(3L, "anna", "anna@test.com", 5)));
+        });
+
+        StatsDashboardDto dashboard = statisticsService.getDashboard(pageable, pageable, pageable);
+
+        assertThat(dashboard.getBooks().getContent().get(0).getLoanCount()).isEqualTo(7);
+        assertThat(dashboard.getAuthors().getContent().get(0).getBookCount()).isEqualTo(2);
+        assertThat(dashboard.getUsers().getContent().get(0).getUsername()).isEqualTo("anna");
+        verify(transactionManager, times(3)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    @DisplayName("getDashboard should rethrow panel failure")
+    void getDashboard_ShouldRethrowPanelFailure() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(bookRepository.findMostPopularBooks(pageable)).thenThrow(new IllegalStateException("db down"));
+        // pozostałe panele mogą nie zdążyć wystartować przed zgłoszeniem błędu
+        lenient().when(authorRepository.findMostPopularAuthors(pageable)).thenReturn(Page.empty());
+        lenient().when(userRepository.getUsersWithMostLoans(pageable)).thenReturn(Page.empty());
+
+        assertThatThrownBy(() -> statisticsService.getDashboard(pageable, pageable, pageable))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("db down");
+    }
+
+    @Test
+    @DisplayName("rebuildLoanCounters should delegate to dao")
+    void rebuildLoanCounters_ShouldDelegateToDao() {
+        statisticsService.rebuildLoanCounters();
+
+        verify(loanStatsDao).rebuild(any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("getTrendingStats should query every subject within the window")
+    void getTrendingStats_ShouldQueryEverySubject() {
+        LoanRankingDto entry = new LoanRankingDto(1L, "Rok 1984", 3);
+        when(loanStatsDao.findTopSince(eq(LoanSubject.BOOK), any(LocalDateTime.class), eq(10))).thenReturn(List.of(entry));
+        when(loanStatsDao.findTopSince(eq(LoanSubject.AUTHOR), any(LocalDateTime.class), eq(10))).thenReturn(List.of());
+        when(loanStatsDao.findTopSince(eq(LoanSubject.USER), any(LocalDateTime.class), eq(10))).thenReturn(List.of());
+
+        TrendingStatsDto result = statisticsService.getTrendingStats(StatsWindow.LAST_7D, 10);
+
+        assertThat(result.getWindow()).isEqualTo("7d");
+        assertThat(result.getBooks()).containsExactly(entry);
+        assertThat(result.getFrom()).isBefore(LocalDateTime.now().minusDays(6));
+        assertThat(result.getFrom().toLocalTime()).isEqualTo(LocalTime.MIDNIGHT);
+    }
+
+    @Test
+    @DisplayName("getTrending should clamp the limit")
+    void getTrending_ShouldClampLimit() {
+        statisticsService.getTrending(LoanSubject.USER, StatsWindow.LAST_24H, 1000);
+
+        verify(loanStatsDao).findTopSince(eq(LoanSubject.USER), any(LocalDateTime.class), eq(50));
+    }
+
+    private static void awaitOthers(CountDownLatch allStarted) throws InterruptedException {
+        allStarted.countDown();
+        if (!allStarted.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("panele ładowane po kolei");
+        }
+    }
 }
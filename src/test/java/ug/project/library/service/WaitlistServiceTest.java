@@ -0,0 +1,271 @@
+package ug.project.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ug.project.library.dto.ReservationDto;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Reservation;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class WaitlistServiceTest {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationExpiryEngine reservationExpiryEngine;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User owner;
+    private User first;
+    private User second;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("wait-owner", "pass", "wait-owner@test.com", UserRole.USER));
+        first = userRepository.save(new User("wait-first", "pass", "wait-first@test.com", UserRole.USER));
+        second = userRepository.save(new User("wait-second", "pass", "wait-second@test.com", UserRole.USER));
+        Book book = new Book();
+        book.setTitle("Rok 1984");
+        book.setPublisher("Muza");
+        book.setQuantityAvailable(1);
+        bookId = bookRepository.save(book).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM waitlist_entries");
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll(List.of(owner, first, second));
+    }
+
+    @Test
+    @DisplayName("Zwrot powinien przydzielić egzemplarz pierwszej osobie z kolejki zamiast odłożyć go na półkę")
+    void returnReservation_ShouldHandCopyToFirstWaiter() {
+        Long loanId = borrowLastCopy();
+        joinAs(first);
+        joinAs(second);
+
+        authenticate(owner);
+        reservationService.returnReservation(loanId);
+
+        assertThat(quantity()).isZero();
+        assertThat(pendingFor(first)).hasSize(1);
+        assertThat(pendingFor(first).get(0).getDeadline()).isAfter(LocalDateTime.now());
+        assertThat(pendingFor(second)).isEmpty();
+        authenticate(second);
+        assertThat(waitlistService.getPosition(bookId).getPosition()).isEqualTo(1);
+        assertThat(waitlistService.getPosition(bookId).getWaiting()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Anulowanie i wygaśnięcie przydzielonej rezerwacji powinny przekazać egzemplarz dalej, a przy pustej kolejce na półkę")
+    void cancelAndExpiry_ShouldPassCopyAlong() {
+        Long loanId = borrowLastCopy();
+        joinAs(first);
+        joinAs(second);
+
+        // zwrot: egzemplarz -> first
+        authenticate(owner);
+        reservationService.returnReservation(loanId);
+        Long firstReservation = pendingFor(first).get(0).getId();
+
+        // first rezygnuje -> second
+        authenticate(first);
+        reservationService.cancelReservation(firstReservation);
+        assertThat(pendingFor(second)).hasSize(1);
+        assertThat(quantity()).isZero();
+
+        // rezerwacja second wygasa, kolejka pusta -> półka
+        jdbcTemplate.update("UPDATE reservations SET deadline = ? WHERE id = ?",
+            Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), pendingFor(second).get(0).getId());
+        reservationExpiryEngine.expireDue(LocalDateTime.now());
+
+        assertThat(pendingFor(second)).isEmpty();
+        assertThat(quantity()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Przegląd hurtowy powinien przydzielić wygasłe egzemplarze kolejnym oczekującym")
+    void expireDue_ShouldHandExpiredCopiesToWaiters() {
+        authenticate(owner);
+        reservationService.createNewReservation(bookId);
+        joinAs(first);
+        jdbcTemplate.update("UPDATE reservations SET deadline = ? WHERE book_id = ?",
+            Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), bookId);
+
+        ReservationExpiryEngine.ExpiryReport report = reservationExpiryEngine.expireDue(LocalDateTime.now());
+
+        assertThat(report.reservations()).isEqualTo(1);
+        assertThat(pendingFor(owner)).isEmpty();
+        assertThat(pendingFor(first)).hasSize(1);
+        assertThat(quantity()).isZero();
+    }
+
+    @Test
+    @DisplayName("Zapis do kolejki dostępnej książki powinien zostać odrzucony, a ponowny zapis nie zmienia pozycji")
+    void join_ShouldRejectAvailableBookAndKeepPosition() {
+        authenticate(first);
+        assertThatThrownBy(() -> waitlistService.join(bookId)).isInstanceOf(IllegalStateException.class);
+
+        borrowLastCopy();
+        joinAs(first);
+        joinAs(second);
+        authenticate(first);
+
+        assertThat(waitlistService.join(bookId).getPosition()).isEqualTo(1);
+        waitlistService.leave(bookId);
+        authenticate(second);
+        assertThat(waitlistService.getPosition(bookId).getPosition()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Zwrot w trakcie zapisu do kolejki powinien poczekać i przydzielić egzemplarz nowemu oczekującemu")
+    void returnDuringJoin_ShouldHandCopyToNewWaiter() throws Exception {
+        Long loanId = borrowLastCopy();
+        CountDownLatch joined = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> join = executor.submit(() -> inTransaction(first, () -> {
+                waitlistService.join(bookId);
+                joined.countDown();
+                sleep(300);
+            }));
+            assertThat(joined.await(30, TimeUnit.SECONDS)).isTrue();
+            Future<?> giveBack = executor.submit(() -> inTransaction(owner, () -> reservationService.returnReservation(loanId)));
+
+            join.get(30, TimeUnit.SECONDS);
+            giveBack.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(quantity()).isZero();
+        assertThat(pendingFor(first)).hasSize(1);
+        assertThat(waiting()).isZero();
+    }
+
+    @Test
+    @DisplayName("Zapis do kolejki w trakcie zwrotu powinien poczekać i zostać odrzucony, bo egzemplarz wrócił na półkę")
+    void joinDuringReturn_ShouldSeeReturnedCopy() throws Exception {
+        Long loanId = borrowLastCopy();
+        CountDownLatch returned = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> giveBack = executor.submit(() -> inTransaction(owner, () -> {
+                reservationService.returnReservation(loanId);
+                returned.countDown();
+                sleep(300);
+            }));
+            assertThat(returned.await(30, TimeUnit.SECONDS)).isTrue();
+            Future<?> join = executor.submit(() -> inTransaction(first, () -> waitlistService.join(bookId)));
+
+            giveBack.get(30, TimeUnit.SECONDS);
+            assertThatThrownBy(() -> join.get(30, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(quantity()).isEqualTo(1);
+        assertThat(waiting()).isZero();
+    }
+
+    private void inTransaction(User user, Runnable action) {
+        authenticate(user);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int waiting() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM waitlist_entries WHERE book_id = ?", Integer.class, bookId);
+    }
+
+    private Long borrowLastCopy() {
+        authenticate(owner);
+        ReservationDto reservation = reservationService.createNewReservation(bookId);
+        reservationService.confirmReservation(reservation.getId());
+        return reservationService.borrowReservation(reservation.getId()).getId();
+    }
+
+    private void joinAs(User user) {
+        authenticate(user);
+        waitlistService.join(bookId);
+    }
+
+    private List<Reservation> pendingFor(User user) {
+        return reservationRepository.findAll().stream()
+            .filter(r -> r.getStatus() == ReservationStatus.OCZEKUJĄCA)
+            .filter(r -> r.getUser().getId().equals(user.getId()))
+            .toList();
+    }
+
+    private int quantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity_available FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private void authenticate(User user) {
+        LibraryUserPrincipal principal = new LibraryUserPrincipal(user.getId(), user.getUsername(), "", UserRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+            UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+}
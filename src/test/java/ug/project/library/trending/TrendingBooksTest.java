@@ -0,0 +1,112 @@
+package ug.project.library.trending;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ug.project.library.dao.TrendingSnapshotDao;
+import ug.project.library.dao.TrendingSnapshotDao.SnapshotRow;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrendingBooksTest {
+
+    private static final long HALF_LIFE = TrendingBooks.HALF_LIFE.toMillis();
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private TrendingSnapshotDao snapshotDao;
+    private TrendingBooks trending;
+
+    @BeforeEach
+    void setUp() {
+        snapshotDao = mock(TrendingSnapshotDao.class);
+        trending = new TrendingBooks(snapshotDao, now::get);
+    }
+
+    @Test
+    @DisplayName("Rezerwacje i oceny powinny ważyć więcej niż wyświetlenia")
+    void topBookIds_ShouldWeighEvents() {
+        trending.recordView(1L);
+        trending.recordView(1L);
+        trending.recordView(1L);
+        trending.recordReservation(2L);
+        trending.recordRating(3L);
+
+        assertThat(trending.topBookIds(3)).containsExactly(2L, 3L, 1L);
+        assertThat(trending.topBookIds(1)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Stare zdarzenia powinny wygasać na rzecz świeżych")
+    void topBookIds_ShouldDecayOldEvents() {
+        for (int i = 0; i < 10; i++) {
+            trending.recordView(1L);
+        }
+        now.addAndGet(HALF_LIFE * 3);
+        trending.recordView(2L);
+
+        assertThat(trending.topBookIds(2)).containsExactly(1L, 2L);
+
+        now.addAndGet(HALF_LIFE);
+        trending.recordView(2L);
+        assertThat(trending.topBookIds(2)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    @DisplayName("Licznik nie powinien przekroczyć pojemności, a częste książki powinny w nim zostać")
+    void counters_ShouldStayBoundedAndKeepHeavyHitters() {
+        for (int round = 0; round < 20; round++) {
+            trending.recordReservation(7L);
+            trending.recordReservation(8L);
+            LongStream.range(1000 + round * 100L, 1000 + (round + 1) * 100L).forEach(trending::recordView);
+        }
+
+        List<Long> top = trending.topBookIds(TrendingBooks.CAPACITY * 2);
+        assertThat(top).hasSize(TrendingBooks.CAPACITY);
+        assertThat(top.subList(0, 2)).containsExactlyInAnyOrder(7L, 8L);
+    }
+
+    @Test
+    @DisplayName("Długi okres bez przeskalowania nie powinien przepełnić liczników")
+    void counters_ShouldSurviveLongUptime() {
+        trending.recordView(1L);
+        now.addAndGet(HALF_LIFE * 200);
+        trending.recordView(2L);
+        trending.recordView(2L);
+
+        assertThat(trending.topBookIds(2)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    @DisplayName("Zrzut i odtworzenie powinny zachować ranking z wygaszeniem za czas przerwy")
+    void snapshotAndRestore_ShouldKeepRanking() {
+        trending.recordReservation(1L);
+        trending.recordView(2L);
+        trending.snapshot();
+
+        ArgumentCaptor<List<SnapshotRow>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotDao).replaceSnapshot(captor.capture());
+        List<SnapshotRow> rows = captor.getValue();
+        assertThat(rows).extracting(SnapshotRow::bookId).containsExactly(1L, 2L);
+        assertThat(rows.get(0).score()).isCloseTo(5.0, within(1e-9));
+
+        now.addAndGet(Duration.ofHours(6).toMillis());
+        when(snapshotDao.findSnapshot()).thenReturn(rows);
+        TrendingBooks restarted = new TrendingBooks(snapshotDao, now::get);
+        restarted.restore();
+        restarted.recordView(3L);
+        restarted.recordView(3L);
+
+        // po jednym okresie połowicznym rezerwacja waży 2.5, a dwa świeże wyświetlenia 2
+        assertThat(restarted.topBookIds(3)).containsExactly(1L, 3L, 2L);
+    }
+}
@@ -0,0 +1,200 @@
+package ug.project.library.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Reservation;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+import ug.project.library.service.LibraryUserPrincipal;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Liczba zapytań do bazy na uwierzytelnione żądanie: dawny principal (sam login, ID szukane po nazwie
+// przy każdym żądaniu) kontra LibraryUserPrincipal z ID ustalonym przy logowaniu. Liczone są wszystkie
+// instrukcje JDBC wysłane z wątku żądania - także te z JdbcTemplate, których nie widzą statystyki Hibernate.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthenticatedRequestRoundTripTest {
+
+    private static final String USERNAME = "bench-reader";
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+
+    private static final AtomicInteger statements = new AtomicInteger();
+    private static volatile Thread measuredThread;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private User reader;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        reader = userRepository.save(new User(USERNAME, "pass", "bench@test.com", UserRole.USER));
+        book = bookRepository.save(new Book("Rok 1984", new ArrayList<>(), new ArrayList<>(), 0.0, 1949, "Muza", null, 5));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            reservationRepository.save(new Reservation(ReservationStatus.ZWRÓCONA, now.minusDays(10 + i), reader, book, null));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.delete(reader);
+    }
+
+    @Test
+    @DisplayName("Historia rezerwacji: 2 zapytania -> 1")
+    void history_ShouldSkipUserLookup() throws Exception {
+        // strona niepełna, więc Spring Data pomija COUNT
+        assertRoundTrips(get("/user/history"), 2, 1);
+    }
+
+    @Test
+    @DisplayName("Aktywne rezerwacje: 2 zapytania -> 1")
+    void myReservations_ShouldSkipUserLookup() throws Exception {
+        assertRoundTrips(get("/user/my-reservations"), 2, 1);
+    }
+
+    @Test
+    @DisplayName("Potwierdzenie rezerwacji: o jedno zapytanie mniej")
+    void confirm_ShouldSkipUserLookup() throws Exception {
+        long before = measure(put("/api/reservations/" + pendingReservation() + "/confirm").with(csrf())
+            .with(user(legacyPrincipal())));
+        long after = measure(put("/api/reservations/" + pendingReservation() + "/confirm").with(csrf())
+            .with(user(principal())));
+
+        assertThat(after).isEqualTo(before - 1);
+    }
+
+    private void assertRoundTrips(RequestBuilder request, long expectedBefore, long expectedAfter) throws Exception {
+        long before = measure(withPrincipal(request, legacyPrincipal()));
+        long after = measure(withPrincipal(request, principal()));
+
+        assertThat(before).as("dawny principal").isEqualTo(expectedBefore);
+        assertThat(after).as("LibraryUserPrincipal").isEqualTo(expectedAfter);
+    }
+
+    private static RequestBuilder withPrincipal(RequestBuilder request, UserDetails principal) {
+        return servletContext -> {
+            var built = request.buildRequest(servletContext);
+            return user(principal).postProcessRequest(built);
+        };
+    }
+
+    private long measure(RequestBuilder request) throws Exception {
+        statements.set(0);
+        measuredThread = Thread.currentThread();
+        try {
+            mockMvc.perform(request).andExpect(status().isOk());
+        } finally {
+            measuredThread = null;
+        }
+        return statements.get();
+    }
+
+    private Long pendingReservation() {
+        LocalDateTime now = LocalDateTime.now();
+        return reservationRepository.save(
+            new Reservation(ReservationStatus.OCZEKUJĄCA, now, reader, book, now.plusHours(2))).getId();
+    }
+
+    private UserDetails legacyPrincipal() {
+        return org.springframework.security.core.userdetails.User.withUsername(USERNAME)
+            .password("pass").roles("USER").build();
+    }
+
+    private UserDetails principal() {
+        return new LibraryUserPrincipal(reader.getId(), USERNAME, "pass", UserRole.USER);
+    }
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new CountingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    private static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection target) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName()) && Thread.currentThread() == measuredThread) {
+                        statements.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        }
+    }
+}
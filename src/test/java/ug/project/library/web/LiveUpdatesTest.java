@@ -0,0 +1,119 @@
+package ug.project.library.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ug.project.library.dto.ReservationDto;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+import ug.project.library.service.LibraryUserPrincipal;
+import ug.project.library.service.ReservationService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LiveUpdatesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private User reader;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        reader = userRepository.save(new User("live-reader", "pass", "live@test.com", UserRole.USER));
+        book = bookRepository.save(new Book("Rok 1984", new ArrayList<>(), new ArrayList<>(), 0.0, 1949, "Muza", null, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.delete(reader);
+    }
+
+    @Test
+    @DisplayName("Strumień książki powinien dostać nowy stan po rezerwacji bez logowania")
+    void bookStream_ShouldPushAvailability() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/books/" + book.getId() + "/live"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        authenticate();
+        reservationService.createNewReservation(book.getId());
+
+        assertThat(awaitContent(stream, "\"quantityAvailable\":1"))
+            .contains("event:availability")
+            .contains("\"bookId\":" + book.getId());
+    }
+
+    @Test
+    @DisplayName("Strumień użytkownika powinien dostawać kolejne statusy jego rezerwacji")
+    void userStream_ShouldPushStatusTransitions() throws Exception {
+        LibraryUserPrincipal principal = new LibraryUserPrincipal(reader.getId(), reader.getUsername(), "", UserRole.USER);
+        MvcResult stream = mockMvc.perform(get("/user/my-reservations/live").with(user(principal)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        authenticate();
+        ReservationDto reservation = reservationService.createNewReservation(book.getId());
+        reservationService.confirmReservation(reservation.getId());
+
+        String content = awaitContent(stream, "POTWIERDZONA");
+        assertThat(content).contains("event:reservation").contains("OCZEKUJĄCA");
+        assertThat(content.indexOf("OCZEKUJĄCA")).isLessThan(content.indexOf("POTWIERDZONA"));
+    }
+
+    // Wysyłka idzie z osobnego wątku po commicie
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = stream.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+    private void authenticate() {
+        LibraryUserPrincipal principal = new LibraryUserPrincipal(reader.getId(), reader.getUsername(), "", UserRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+            UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+}
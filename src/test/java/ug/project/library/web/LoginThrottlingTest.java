@@ -0,0 +1,111 @@
+package ug.project.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import ug.project.library.dto.TokenRequest;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.UserRepository;
+
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Limity prób są w pamięci i współdzielone przez cały kontekst - każdy test używa własnego loginu i adresu
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoginThrottlingTest {
+
+    private static final String PASSWORD = "secret123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User formUser;
+    private User apiUser;
+
+    @BeforeEach
+    void setUp() {
+        formUser = userRepository.save(new User("throttle-form", passwordEncoder.encode(PASSWORD), "tf@test.com", UserRole.USER));
+        apiUser = userRepository.save(new User("throttle-api", passwordEncoder.encode(PASSWORD), "ta@test.com", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.delete(formUser);
+        userRepository.delete(apiUser);
+    }
+
+    @Test
+    @DisplayName("Logowanie formularzem powinno zostać zablokowane po serii złych haseł")
+    void formLogin_ShouldBeBlockedAfterFailures() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(login("throttle-form", "wrong", "10.1.0.1"))
+                .andExpect(redirectedUrl("/login?error"))
+                .andExpect(unauthenticated());
+        }
+
+        mockMvc.perform(login("throttle-form", PASSWORD, "10.1.0.2"))
+            .andExpect(redirectedUrl("/login?error"))
+            .andExpect(unauthenticated());
+    }
+
+    @Test
+    @DisplayName("Wydawanie tokenów powinno zwrócić 429 z Retry-After po serii złych haseł")
+    void tokenEndpoint_ShouldReturnTooManyRequests() throws Exception {
+        mockMvc.perform(login("throttle-api", PASSWORD, "10.2.0.1"))
+            .andExpect(authenticated());
+        for (int i = 0; i < 5; i++) {
+            requestToken("wrong", "10.2.0.1").andExpect(status().isUnauthorized());
+        }
+
+        requestToken(PASSWORD, "10.2.0.1")
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    private ResultActions requestToken(String password, String address) throws Exception {
+        return mockMvc.perform(post("/api/auth/token")
+            .with(from(address))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new TokenRequest("throttle-api", password))));
+    }
+
+    private MockHttpServletRequestBuilder login(String username, String password, String address) {
+        return post("/login").param("username", username).param("password", password).with(from(address));
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
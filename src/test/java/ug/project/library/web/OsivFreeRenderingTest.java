@@ -0,0 +1,205 @@
+package ug.project.library.web;
+
+import jakarta.persistence.Entity;
+import org.hibernate.proxy.HibernateProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.validation.BindingResult;
+import ug.project.library.model.entity.Author;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Reservation;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.AuthorRepository;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+import ug.project.library.service.AvailabilityForecast;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Widoki renderowane z wyłączonym open-session-in-view (profil no-osiv): sesja Hibernate jest zamknięta,
+// zanim szablon ruszy, więc każde leniwe doczytanie kończy się LazyInitializationException i błędem żądania.
+// Dodatkowo model nie może zawierać encji - zachłanne relacje nie rzuciłyby wyjątku, ale ciągnęłyby całe grafy.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "no-osiv"})
+class OsivFreeRenderingTest {
+
+    private static final String USERNAME = "osiv-reader";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private AvailabilityForecast availabilityForecast;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        Author author = authorRepository.save(new Author("George", "Orwell", new ArrayList<>()));
+        book = bookRepository.save(new Book("Rok 1984", List.of(author), new ArrayList<>(), 0.0, 1949, "Muza", null, 3));
+        User reader = userRepository.save(new User(USERNAME, "pass", "osiv@test.com", UserRole.USER));
+        LocalDateTime now = LocalDateTime.now();
+        reservationRepository.save(new Reservation(ReservationStatus.ZWRÓCONA, now.minusDays(20), reader, book, now.minusDays(6)));
+        reservationRepository.save(new Reservation(ReservationStatus.OCZEKUJĄCA, now, reader, book, now.plusHours(2)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+        userRepository.findByUsername(USERNAME).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME)
+    @DisplayName("Historia rezerwacji powinna się wyrenderować bez otwartej sesji")
+    void history_ShouldRenderWithoutOpenSession() throws Exception {
+        String html = render("/user/history").getResponse().getContentAsString();
+
+        assertThat(html).contains("Rok 1984");
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME)
+    @DisplayName("Aktywne rezerwacje powinny się wyrenderować bez otwartej sesji")
+    void myReservations_ShouldRenderWithoutOpenSession() throws Exception {
+        String html = render("/user/my-reservations").getResponse().getContentAsString();
+
+        assertThat(html).contains("Rok 1984").contains("Muza");
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME)
+    @DisplayName("Publiczne widoki książek powinny się wyrenderować bez otwartej sesji")
+    void bookViews_ShouldRenderWithoutOpenSession() throws Exception {
+        render("/");
+        render("/books/" + book.getId());
+        render("/reservation/" + book.getId());
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME)
+    @DisplayName("Strona główna powinna przyciąć zerowy i ujemny rozmiar strony")
+    void home_ShouldClampPageSize() throws Exception {
+        String html = render("/?size=0").getResponse().getContentAsString();
+
+        assertThat(html).contains("Rok 1984");
+        render("/?size=-5");
+        render("/?size=0&page=1");
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME)
+    @DisplayName("Niedostępna książka powinna pokazać spodziewany zwrot")
+    void bookDetail_ShouldRenderExpectedBack() throws Exception {
+        Book outOfStock = bookRepository.save(new Book("Folwark zwierzęcy", new ArrayList<>(), new ArrayList<>(), 0.0, 1945, "Muza", null, 0));
+        LocalDateTime due = LocalDateTime.of(2099, 6, 1, 12, 0);
+        availabilityForecast.reservationChanged(outOfStock.getId(), -1L, ReservationStatus.WYPOŻYCZONA, due);
+
+        String html = render("/books/" + outOfStock.getId()).getResponse().getContentAsString();
+
+        assertThat(html).contains("Expected back by 01-06-2099 12:00");
+        availabilityForecast.reservationChanged(outOfStock.getId(), -1L, null, null);
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME, roles = "ADMIN")
+    @DisplayName("Panele administratora powinny się wyrenderować bez otwartej sesji")
+    void adminViews_ShouldRenderWithoutOpenSession() throws Exception {
+        String html = render("/admin/manage-reservations").getResponse().getContentAsString();
+        assertThat(html).contains(USERNAME);
+
+        render("/admin/book-management");
+        render("/admin/user-management");
+        render("/admin/stats");
+        render("/admin/stats?window=7d");
+    }
+
+    @Test
+    @DisplayName("Sprawdzenie modelu powinno wykryć encję także wewnątrz kolekcji")
+    void assertNoEntities_ShouldDetectNestedEntity() {
+        assertThatThrownBy(() -> assertNoEntities("reservations", List.of(new Reservation())))
+            .isInstanceOf(AssertionError.class)
+            .hasMessageContaining("reservations[0]");
+    }
+
+    private MvcResult render(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn();
+        result.getModelAndView().getModel().forEach((name, value) -> {
+            if (!name.startsWith(BindingResult.MODEL_KEY_PREFIX)) {
+                assertNoEntities(name, value);
+            }
+        });
+        return result;
+    }
+
+    // Przechodzi przez kolekcje, strony i pola DTO z naszego pakietu
+    private static void assertNoEntities(String path, Object value) {
+        if (value == null) {
+            return;
+        }
+        Class<?> type = value.getClass();
+        assertThat(value instanceof HibernateProxy || type.isAnnotationPresent(Entity.class))
+            .as("%s przekazuje do szablonu encję %s", path, type.getSimpleName())
+            .isFalse();
+
+        if (value instanceof Iterable<?> items) {
+            int i = 0;
+            for (Object item : items) {
+                assertNoEntities(path + "[" + i++ + "]", item);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            map.forEach((key, item) -> assertNoEntities(path + "." + key, item));
+        } else if (type.getPackageName().startsWith("ug.project.library.dto")) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                try {
+                    assertNoEntities(path + "." + field.getName(), field.get(value));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
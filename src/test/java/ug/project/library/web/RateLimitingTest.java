@@ -0,0 +1,115 @@
+package ug.project.library.web;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+import ug.project.library.service.LibraryUserPrincipal;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "library.rate-limit.policies.reservations.capacity=2",
+    "library.rate-limit.policies.reservations.ip-capacity=3"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User anna;
+    private User piotr;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        anna = userRepository.save(new User("limit-anna", "pass", "la@test.com", UserRole.USER));
+        piotr = userRepository.save(new User("limit-piotr", "pass", "lp@test.com", UserRole.USER));
+        book = bookRepository.save(new Book("Rok 1984", new ArrayList<>(), new ArrayList<>(), 0.0, 1949, "Muza", null, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.delete(anna);
+        userRepository.delete(piotr);
+    }
+
+    @Test
+    @DisplayName("Żądanie ponad limit użytkownika powinno dostać 429 bez żadnego zapytania do bazy")
+    void reservation_ShouldBeRejectedBeforeRepository() throws Exception {
+        reserve(anna, "10.3.0.1").andExpect(status().isOk());
+        reserve(anna, "10.3.0.2").andExpect(status().isOk());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        reserve(anna, "10.3.0.3")
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(reservationRepository.count()).isEqualTo(2);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getQuantityAvailable()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Adres IP powinien mieć własny limit niezależny od użytkowników")
+    void reservation_ShouldLimitPerAddress() throws Exception {
+        reserve(anna, "10.4.0.1").andExpect(status().isOk());
+        reserve(anna, "10.4.0.1").andExpect(status().isOk());
+        reserve(piotr, "10.4.0.1").andExpect(status().isOk());
+
+        reserve(piotr, "10.4.0.1").andExpect(status().isTooManyRequests());
+        reserve(piotr, "10.4.0.2").andExpect(status().isOk());
+    }
+
+    private ResultActions reserve(User reader, String address) throws Exception {
+        LibraryUserPrincipal principal = new LibraryUserPrincipal(reader.getId(), reader.getUsername(), "", UserRole.USER);
+        return mockMvc.perform(post("/api/reservations/" + book.getId()).with(user(principal)).with(from(address)));
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
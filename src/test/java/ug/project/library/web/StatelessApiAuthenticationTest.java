@@ -0,0 +1,133 @@
+package ug.project.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ug.project.library.dto.RefreshTokenRequest;
+import ug.project.library.dto.TokenRequest;
+import ug.project.library.dto.TokenResponse;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatelessApiAuthenticationTest {
+
+    private static final String ADMIN = "api-admin";
+    private static final String PASSWORD = "secret123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        admin = userRepository.save(new User(ADMIN, passwordEncoder.encode(PASSWORD), "api-admin@test.com", UserRole.ADMIN));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.delete(admin);
+    }
+
+    @Test
+    @DisplayName("Token dostępowy powinien otworzyć chronione API bez tworzenia sesji")
+    void accessToken_ShouldAuthorizeWithoutSession() throws Exception {
+        TokenResponse tokens = login(PASSWORD);
+
+        mockMvc.perform(get("/api/stats/trending")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.getAccessToken()))
+            .andExpect(status().isOk())
+            .andExpect(request().sessionAttribute("SPRING_SECURITY_CONTEXT", (Object) null))
+            .andExpect(header().doesNotExist("Set-Cookie"));
+        mockMvc.perform(get("/api/stats/trending"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Niepoprawny token i złe hasło powinny kończyć się 401")
+    void invalidCredentials_ShouldReturnUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/books")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not.valid"))
+            .andExpect(status().isUnauthorized())
+            .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""));
+        mockMvc.perform(post("/api/auth/token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TokenRequest(ADMIN, "wrong-password"))))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Sesja z logowania formularzem nie powinna uwierzytelniać API")
+    void apiChain_ShouldIgnoreHttpSession() throws Exception {
+        MockHttpSession session = (MockHttpSession) mockMvc.perform(formLogin("/login").user(ADMIN).password(PASSWORD))
+            .andReturn().getRequest().getSession(false);
+        assertThat(session).isNotNull();
+
+        mockMvc.perform(get("/admin/stats").session(session)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/stats/trending").session(session)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Token odświeżający powinien wydać nową parę i odczytać aktualną rolę")
+    void refresh_ShouldIssueNewTokensWithCurrentRole() throws Exception {
+        TokenResponse tokens = login(PASSWORD);
+        admin.setUserRole(UserRole.USER);
+        userRepository.save(admin);
+
+        TokenResponse refreshed = objectMapper.readValue(mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest(tokens.getRefreshToken()))))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString(), TokenResponse.class);
+
+        mockMvc.perform(get("/api/stats/trending")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshed.getAccessToken()))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest(tokens.getAccessToken()))))
+            .andExpect(status().isUnauthorized());
+    }
+
+    private TokenResponse login(String password) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TokenRequest(ADMIN, password))))
+            .andExpect(status().isOk())
+            .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), TokenResponse.class);
+    }
+}
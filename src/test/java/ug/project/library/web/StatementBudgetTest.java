@@ -0,0 +1,160 @@
+package ug.project.library.web;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ug.project.library.model.entity.Book;
+import ug.project.library.model.entity.Comment;
+import ug.project.library.model.entity.Rating;
+import ug.project.library.model.entity.Reservation;
+import ug.project.library.model.entity.User;
+import ug.project.library.model.enumerate.ReservationStatus;
+import ug.project.library.model.enumerate.UserRole;
+import ug.project.library.repository.BookRepository;
+import ug.project.library.repository.CommentRepository;
+import ug.project.library.repository.RatingRepository;
+import ug.project.library.repository.ReservationRepository;
+import ug.project.library.repository.UserRepository;
+import ug.project.library.service.CommentService;
+import ug.project.library.service.RatingService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Budżet zapytań SQL na endpoint: relacje @ManyToOne są leniwe, a każdy przypadek użycia dociąga
+// użytkownika i książkę grafem encji albo JOIN FETCH. Każdy wiersz ma innego użytkownika lub inną książkę,
+// więc doczytywanie relacji pojedynczymi SELECT-ami od razu przekroczyłoby budżet.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatementBudgetTest {
+
+    private static final int ROWS = 10;
+    private static final String READER = "budget0";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+    private Book sharedBook;
+    private Long ratingId;
+    private Long commentId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ROWS; i++) {
+            users.add(userRepository.save(new User("budget" + i, "pass", "budget" + i + "@test.com", UserRole.USER)));
+        }
+        sharedBook = bookRepository.save(new Book("Wspólna", new ArrayList<>(), new ArrayList<>(), 0.0, 2000, "Muza", null, 1));
+        for (int i = 0; i < ROWS; i++) {
+            User user = users.get(i);
+            Book book = bookRepository.save(new Book("Książka " + i, new ArrayList<>(), new ArrayList<>(), 0.0, 2000, "Muza", null, 1));
+            ratingId = ratingRepository.save(new Rating(user, sharedBook, 1 + i % 5)).getId();
+            commentId = commentRepository.save(new Comment("Komentarz " + i, user, sharedBook)).getId();
+            reservationRepository.save(new Reservation(ReservationStatus.ZWRÓCONA, now.minusDays(i + 1), users.get(0), book, null));
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        ratingRepository.deleteAll();
+        reservationRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    @DisplayName("GET /api/ratings - strona + count")
+    void ratingsPage_ShouldStayWithinBudget() throws Exception {
+        assertEndpointBudget("/api/ratings?size=" + ROWS, 2);
+        assertEndpointBudget("/api/ratings/" + ratingId, 1);
+    }
+
+    @Test
+    @DisplayName("GET /api/comments - strona + count")
+    void commentsPage_ShouldStayWithinBudget() throws Exception {
+        assertEndpointBudget("/api/comments?size=" + ROWS, 2);
+        assertEndpointBudget("/api/comments/" + commentId, 1);
+    }
+
+    @Test
+    @DisplayName("Oceny i komentarze książki - strona + count")
+    void forBook_ShouldStayWithinBudget() {
+        assertThat(ratingService.getAllRatingsForBook(sharedBook.getId(), PageRequest.of(0, ROWS)).getContent())
+            .hasSize(ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+
+        statistics.clear();
+        assertThat(commentService.getAllCommentsForBook(sharedBook.getId(), PageRequest.of(0, ROWS)).getContent())
+            .hasSize(ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(username = "admin-budget", roles = "ADMIN")
+    @DisplayName("Konsola rezerwacji administratora - projekcja JDBC, bez zapytań Hibernate")
+    void manageReservations_ShouldStayWithinBudget() throws Exception {
+        assertEndpointBudget("/admin/manage-reservations", 0);
+    }
+
+    @Test
+    @WithMockUser(username = READER)
+    @DisplayName("Historia rezerwacji - użytkownik + strona + count")
+    void history_ShouldStayWithinBudget() throws Exception {
+        assertEndpointBudget("/user/history", 3);
+    }
+
+    private void assertEndpointBudget(String url, long budget) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount())
+            .as("liczba zapytań dla %s", url)
+            .isLessThanOrEqualTo(budget);
+    }
+}